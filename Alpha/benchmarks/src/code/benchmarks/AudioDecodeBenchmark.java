@@ -0,0 +1,108 @@
+/*
+ * AudioDecodeBenchmark.java
+ *
+ * Measures how fast each of our audio decoders turns a file into PCM samples.  The
+ * game has no WAV assets, so the WAV file is generated when the benchmark starts.
+ * The working directory must be the assets folder.
+ */
+package code.benchmarks;
+
+import code.audio.AudioSource;
+import code.audio.AudioStream;
+import code.backend.audio.Mp3Source;
+import code.backend.audio.OggSource;
+import code.backend.audio.WavSource;
+import com.badlogic.gdx.files.FileHandle;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A full decode of one sound effect per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AudioDecodeBenchmark {
+	/** The OGG file to decode */
+	private static final String OGG_FILE = "sounds/chef/slap_1.ogg";
+	/** The MP3 file to decode */
+	private static final String MP3_FILE = "sounds/chef/pew.mp3";
+	/** The length of the generated WAV file in seconds */
+	private static final float WAV_SECONDS = 1.0f;
+	/** The sample rate of the generated WAV file */
+	private static final int WAV_RATE = 44100;
+	/** The size of the decoding buffer in bytes (the MP3 decoder needs over 4608) */
+	private static final int BUFFER_SIZE = 16384;
+
+	/** The audio format */
+	@Param({"ogg", "mp3", "wav"})
+	public String format;
+
+	private File wav;
+	private AudioSource source;
+	private AudioStream stream;
+	private byte[] buffer;
+
+	@Setup
+	public void setup() throws IOException {
+		if (format.equals("ogg")) {
+			source = new OggSource(new FileHandle(OGG_FILE));
+		} else if (format.equals("mp3")) {
+			source = new Mp3Source(new FileHandle(MP3_FILE));
+		} else {
+			wav = File.createTempFile("decode", ".wav");
+			wav.deleteOnExit();
+			writeTone(new FileHandle(wav));
+			source = new WavSource(new FileHandle(wav));
+		}
+		stream = source.getStream();
+		buffer = new byte[BUFFER_SIZE];
+	}
+
+	@TearDown
+	public void teardown() {
+		stream.reset();
+		source.dispose();
+		if (wav != null) {
+			wav.delete();
+		}
+	}
+
+	@Benchmark
+	public long decode() {
+		// Resetting closes the file, so the next read starts over from the beginning
+		stream.reset();
+		long total = 0;
+		int read;
+		while ((read = stream.read(buffer)) > 0) {
+			total += read;
+		}
+		return total;
+	}
+
+	/**
+	 * Writes a mono 16-bit WAV file holding a 440 Hz tone
+	 *
+	 * @param file	The file to write
+	 */
+	private static void writeTone(FileHandle file) {
+		int samples = (int)(WAV_SECONDS*WAV_RATE);
+		ByteBuffer data = ByteBuffer.allocate(44+2*samples).order(ByteOrder.LITTLE_ENDIAN);
+		data.put("RIFF".getBytes()).putInt(36+2*samples).put("WAVE".getBytes());
+		data.put("fmt ".getBytes()).putInt(16).putShort((short)1).putShort((short)1);
+		data.putInt(WAV_RATE).putInt(2*WAV_RATE).putShort((short)2).putShort((short)16);
+		data.put("data".getBytes()).putInt(2*samples);
+		for (int ii = 0; ii < samples; ii++) {
+			data.putShort((short)(Short.MAX_VALUE/2*Math.sin(2*Math.PI*440*ii/WAV_RATE)));
+		}
+		file.writeBytes(data.array(), false);
+	}
+}
@@ -0,0 +1,200 @@
+/*
+ * ContactBenchmark.java
+ *
+ * Measures the contact handlers of the CollisionController.  The game controller
+ * hands them every contact that starts or ends in a physics step, so their dispatch
+ * cost is paid many times a frame once the chickens crowd the chef.
+ *
+ * Box2D contacts cannot be created by hand, but the handlers only need the two
+ * fixtures.  So we build a chef, a stove, a platform, a wall, two chickens and two
+ * traps in an empty world, and dispatch a fixed mix of their fixture pairs.  The
+ * handlers change the state of those objects (the chef is hurt, the chickens attack
+ * and the traps wear out), so the objects are restored before every invocation.
+ * The working directory must be the assets folder.
+ */
+package code.benchmarks;
+
+import code.game.controllers.CollisionController;
+import code.game.models.Chef;
+import code.game.models.Chicken;
+import code.game.models.Stove;
+import code.game.models.Trap;
+import code.game.models.obstacle.EntityType;
+import code.game.models.obstacle.Obstacle;
+import code.game.models.obstacle.PolygonObstacle;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.BodyDef;
+import com.badlogic.gdx.physics.box2d.Box2D;
+import com.badlogic.gdx.physics.box2d.Fixture;
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.JsonReader;
+import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.ObjectSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A begin and an end event for each of a fixed list of fixture pairs.
+ *
+ * The list cycles through every pair of fixtures that has a handler, plus the
+ * chicken-chicken and chicken-wall pairs that have none (the most common contacts
+ * in a crowd).  The lists are long enough that restoring the objects before each
+ * invocation is small next to the invocation itself.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContactBenchmark {
+	/** The number of pixels in a Box2D unit */
+	private static final float SCALE = 32.0f;
+	/** Enough time for the chef to recover from any hit */
+	private static final float RECOVERY = 10.0f;
+
+	/** The number of fixture pairs dispatched per invocation */
+	@Param({"128", "1024"})
+	public int contacts;
+
+	private World world;
+	private CollisionController collisions;
+	private Chef chef;
+	private Stove stove;
+	private Chicken[] chickens;
+	private Trap[] traps;
+	private Fixture[] first;
+	private Fixture[] second;
+	private ObjectSet<Fixture> sensorFixtures;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		Box2D.init();
+		JsonValue constants = new JsonReader().parse(new FileHandle("constants.json"));
+		world = new World(new Vector2(), false);
+		collisions = new CollisionController(new Vector2(SCALE, SCALE), constants);
+		sensorFixtures = new ObjectSet<Fixture>();
+
+		chef = new Chef(constants.get("chef"), 1, 1, 3);
+		chef.activatePhysics(world);
+		stove = new Stove(constants.get("stove"), 16, 9, 2, 2);
+		stove.activatePhysics(world);
+		PolygonObstacle platform = block(EntityType.PLATFORM, 4, 4);
+		PolygonObstacle wall = block(EntityType.WALL, 8, 4);
+
+		chickens = new Chicken[2];
+		for (int ii = 0; ii < chickens.length; ii++) {
+			chickens[ii] = new Chicken(constants.get("chicken"), 2+ii, 2, 1, 1, chef, 5);
+			chickens[ii].activatePhysics(world);
+		}
+		traps = new Trap[] {
+			new Trap(constants.get("trap"), 6, 6, 1, 1, Trap.type.SLOW, Trap.shape.CIRCLE),
+			new Trap(constants.get("trap"), 7, 6, 1, 1, Trap.type.LURE, Trap.shape.CIRCLE)
+		};
+		for (Trap trap : traps) {
+			trap.activatePhysics(world);
+		}
+
+		Chicken chicken = chickens[0];
+		Fixture chickenBody = fixture(chicken, null);
+		Fixture chickenSensor = fixture(chicken, chicken.getSensorName());
+		Array<Fixture> pairs = new Array<Fixture>();
+		// The chef walks into a chicken, and then into its attack
+		pairs.add(fixture(chef, null), chickenBody);
+		pairs.add(chickenSensor, fixture(chef, chef.getSensorName()));
+		pairs.add(fixture(chef, null), fixture(chicken, "nugAttack"));
+		// The chef reaches the stove
+		pairs.add(fixture(stove, stove.getSensorName()), fixture(chef, null));
+		// Chickens run into the scenery
+		pairs.add(chickenBody, fixture(platform, null));
+		pairs.add(fixture(wall, null), chickenBody);
+		pairs.add(chickenBody, fixture(stove, null));
+		// Chickens step on the traps
+		pairs.add(chickenSensor, fixture(traps[0], traps[0].getSensorName()));
+		pairs.add(fixture(traps[1], traps[1].getSensorName()), chickenSensor);
+		// Chickens push each other around
+		pairs.add(chickenBody, fixture(chickens[1], null));
+		pairs.add(fixture(chickens[1], chickens[1].getSensorName()), chickenSensor);
+
+		first  = new Fixture[contacts];
+		second = new Fixture[contacts];
+		for (int ii = 0; ii < contacts; ii++) {
+			int pair = 2*(ii % (pairs.size/2));
+			first[ii]  = pairs.get(pair);
+			second[ii] = pairs.get(pair+1);
+		}
+	}
+
+	/**
+	 * Restores the objects to the state they were created in
+	 */
+	@Setup(Level.Invocation)
+	public void restore() {
+		chef.setHealth(chef.getMaxHealth());
+		chef.update(RECOVERY);
+		chef.setCanCook(false);
+		stove.setLit(false);
+		for (Chicken chicken : chickens) {
+			chicken.reset();
+		}
+		for (Trap trap : traps) {
+			trap.reset();
+			trap.markRemoved(false);
+		}
+		sensorFixtures.clear();
+	}
+
+	@TearDown(Level.Trial)
+	public void teardown() {
+		world.dispose();
+		Chicken.disposeShapes();
+	}
+
+	@Benchmark
+	public int dispatch() {
+		for (int ii = 0; ii < contacts; ii++) {
+			collisions.beginContact(first[ii], second[ii]);
+		}
+		for (int ii = 0; ii < contacts; ii++) {
+			collisions.endContact(first[ii], second[ii], sensorFixtures);
+		}
+		return chef.getHealth();
+	}
+
+	/**
+	 * Returns a static unit square of the given type, added to the world
+	 *
+	 * @param type	The type of the square (a wall or a platform)
+	 * @param x		The x-coordinate of the bottom left corner
+	 * @param y		The y-coordinate of the bottom left corner
+	 *
+	 * @return a static unit square of the given type
+	 */
+	private PolygonObstacle block(EntityType type, float x, float y) {
+		PolygonObstacle obj = new PolygonObstacle(new float[] {x, y, x+1, y, x+1, y+1, x, y+1}, 0, 0);
+		obj.setBodyType(BodyDef.BodyType.StaticBody);
+		obj.setEntityType(type);
+		obj.activatePhysics(world);
+		return obj;
+	}
+
+	/**
+	 * Returns the first fixture of the object with the given user data
+	 *
+	 * @param obj	The object to search
+	 * @param data	The user data of the fixture (null for the main fixture)
+	 *
+	 * @return the first fixture of the object with the given user data
+	 */
+	private static Fixture fixture(Obstacle obj, Object data) {
+		for (Fixture fix : obj.getBody().getFixtureList()) {
+			if (data == null ? fix.getUserData() == null : data.equals(fix.getUserData())) {
+				return fix;
+			}
+		}
+		throw new IllegalStateException("No fixture "+data+" on "+obj.getEntityType());
+	}
+}
@@ -0,0 +1,52 @@
+/*
+ * GridCostBenchmark.java
+ *
+ * Measures the bookkeeping around a path search: resetting the search state, which
+ * happens before every A* search, and stamping a trap into the navigation costs and
+ * removing it again, which happens every time a trap is placed or destroyed.
+ */
+package code.benchmarks;
+
+import code.game.models.Grid;
+import code.game.models.GridSearch;
+import com.badlogic.gdx.math.Vector2;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Search resets, and stamps and unstamps of trap costs of different radii.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GridCostBenchmark {
+	/** The trap radius in Box2D units */
+	@Param({"0.5", "2.0", "6.0"})
+	public float radius;
+
+	private Grid grid;
+	private GridSearch search;
+
+	@Setup
+	public void setup() {
+		grid = new Grid(1024.0f, 576.0f, new Vector2(32.0f, 32.0f));
+		search = new GridSearch(grid);
+	}
+
+	@Benchmark
+	public int clearCosts() {
+		search.clearCosts();
+		return search.getExpanded();
+	}
+
+	@Benchmark
+	public int stampAndRemove() {
+		grid.addCost(16.0f, 9.0f, radius, 4.0f);
+		grid.addCost(16.0f, 9.0f, radius, -4.0f);
+		return grid.getVersion();
+	}
+}
@@ -0,0 +1,101 @@
+/*
+ * PathfinderBenchmark.java
+ *
+ * Measures the cost of routing a chicken across the level, with a single A* search
+ * and with a flood of the whole grid (as for a flow field), on the real level and on
+ * a maze.  The maze forces the searches to expand most of the grid, so it is the
+ * worst case for both.  The working directory must be the assets folder.
+ */
+package code.benchmarks;
+
+import code.game.controllers.AIController;
+import code.game.controllers.PathPlanner;
+import code.game.models.Chef;
+import code.game.models.Chicken;
+import code.game.models.Grid;
+import code.game.models.GridSearch;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.JsonReader;
+import com.badlogic.gdx.utils.JsonValue;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Corner to corner searches on the navigation grid of a level.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PathfinderBenchmark {
+	/** The width of the screen in pixels */
+	private static final float WIDTH  = 1024.0f;
+	/** The height of the screen in pixels */
+	private static final float HEIGHT = 576.0f;
+	/** The number of pixels in a Box2D unit */
+	private static final float SCALE = 32.0f;
+	/** The distance between the walls of the maze */
+	private static final float MAZE_SPACING = 4.0f;
+	/** The size of the gap at the end of each maze wall */
+	private static final float MAZE_GAP = 3.0f;
+	/** The thickness of a maze wall */
+	private static final float MAZE_WALL = 0.8f;
+
+	/** The level layout */
+	@Param({"level", "maze"})
+	public String layout;
+
+	private Grid grid;
+	private GridSearch search;
+	private AIController controller;
+	private Grid.Tile goal;
+
+	@Setup
+	public void setup() {
+		JsonValue constants = new JsonReader().parse(new FileHandle("constants.json"));
+		float width  = WIDTH/SCALE;
+		float height = HEIGHT/SCALE;
+		grid = new Grid(WIDTH, HEIGHT, new Vector2(SCALE, SCALE));
+		if (layout.equals("maze")) {
+			// Vertical walls with the gap alternating between the top and the bottom
+			boolean top = true;
+			for (float x = MAZE_SPACING; x < width; x += MAZE_SPACING) {
+				float y0 = top ? 0 : MAZE_GAP;
+				float y1 = top ? height-MAZE_GAP : height;
+				grid.setObstacle(new float[] {x, y0, x+MAZE_WALL, y0, x+MAZE_WALL, y1, x, y1});
+				top = !top;
+			}
+		} else {
+			for (JsonValue wall : constants.get("walls")) {
+				grid.setObstacle(wall.asFloatArray());
+			}
+			for (JsonValue platform : constants.get("platforms")) {
+				grid.setObstacle(platform.asFloatArray());
+			}
+		}
+		search = new GridSearch(grid);
+		PathPlanner planner = new PathPlanner(search, 8, 2);
+
+		// The chicken starts bottom left and the chef waits top right
+		Chef chef = new Chef(constants.get("chef"), 1, 1, 3);
+		chef.setPosition(width-1.5f, height-1.5f);
+		Chicken chicken = new Chicken(constants.get("chicken"), 1.5f, 1.5f, 1, 1, chef, 5);
+		controller = new AIController(chicken, chef, grid, planner, null);
+		goal = grid.getTile(chef.getX(), chef.getY());
+	}
+
+	@Benchmark
+	public Grid.Tile aStar() {
+		return controller.AStar();
+	}
+
+	@Benchmark
+	public int flood() {
+		search.flood(goal);
+		return search.getExpanded();
+	}
+}
@@ -0,0 +1,85 @@
+/*
+ * PooledListBenchmark.java
+ *
+ * Compares the PooledList that holds the level objects with the libGDX Array, on the
+ * operations the game loop does every frame: adding the new objects, walking the
+ * list, and removing the dead ones in place.
+ */
+package code.benchmarks;
+
+import com.badlogic.gdx.utils.Array;
+import code.util.PooledList;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One frame of list churn: fill, iterate, then remove every other element.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PooledListBenchmark {
+	/** The number of objects in the list */
+	@Param({"16", "128", "1024"})
+	public int size;
+
+	private Integer[] values;
+	private PooledList<Integer> pooled;
+	private Array<Integer> array;
+
+	@Setup
+	public void setup() {
+		values = new Integer[size];
+		for (int ii = 0; ii < size; ii++) {
+			values[ii] = ii;
+		}
+		pooled = new PooledList<Integer>();
+		array = new Array<Integer>();
+	}
+
+	@Benchmark
+	public int pooledList() {
+		for (int ii = 0; ii < size; ii++) {
+			pooled.add(values[ii]);
+		}
+		int sum = 0;
+		for (Integer value : pooled) {
+			sum += value;
+		}
+		Iterator<PooledList<Integer>.Entry> iterator = pooled.entryIterator();
+		while (iterator.hasNext()) {
+			PooledList<Integer>.Entry entry = iterator.next();
+			if ((entry.getValue() & 1) == 0) {
+				entry.remove();
+			}
+		}
+		pooled.clear();
+		return sum;
+	}
+
+	@Benchmark
+	public int gdxArray() {
+		for (int ii = 0; ii < size; ii++) {
+			array.add(values[ii]);
+		}
+		int sum = 0;
+		for (int ii = 0; ii < array.size; ii++) {
+			sum += array.get(ii);
+		}
+		int kept = 0;
+		for (int ii = 0; ii < array.size; ii++) {
+			Integer value = array.get(ii);
+			if ((value & 1) != 0) {
+				array.set(kept++, value);
+			}
+		}
+		array.truncate(kept);
+		array.clear();
+		return sum;
+	}
+}
@@ -29,6 +29,7 @@ import com.badlogic.gdx.assets.loaders.*;
 import com.badlogic.gdx.assets.loaders.resolvers.*;
 import com.badlogic.gdx.scenes.scene2d.ui.Skin;
 import code.util.FilmStrip;
+import code.telemetry.Telemetry;
 
 /**
  * An asset manager that uses a JSON file to define its assets.
@@ -42,8 +43,8 @@ import code.util.FilmStrip;
  * objects.  However, it also requires {@link AssetParser} objects.  An asset parser
  * takes an JSON entry in the directory and instructs the appropriate loader how to
  * load that file.  This class has built in parsers for the classes {@link Texture}, 
- * {@link TextureRegion},  {@link BitmapFont}, {@link SoundBuffer}, {@link MusicBuffer},
- * and {@link JsonValue}.
+ * {@link TextureRegion}, {@link TextureAtlas}, {@link BitmapFont}, {@link SoundBuffer},
+ * {@link MusicBuffer}, and {@link JsonValue}.
  *
  * If you wish to add custom assets, you need to add BOTH a custom {@link AssetLoader}
  * and a custom {@link AssetParser} to this manager.  While a type can only have one
@@ -67,6 +68,10 @@ public class AssetDirectory extends AssetManager {
     protected Index contents;
     /** The dedicated loader for the {@link Index} class */
     protected DirectoryLoader topLoader;
+    /** The telemetry span for the asset currently loading (null if none) */
+    private Object assetSpan;
+    /** The texture regions made for texture keys, by key (see {@link #getEntry}) */
+    private ObjectMap<String, TextureRegion> regions = new ObjectMap<String, TextureRegion>();
 
     /**
      * This class represents the top level index of an asset directory.
@@ -163,6 +168,7 @@ public class AssetDirectory extends AssetManager {
         // And now the default parsers
         topLoader.addParser( new JsonValueParser() );
         topLoader.addParser( new TextureParser() );
+        topLoader.addParser( new TextureAtlasParser() );
         topLoader.addParser( new TextureRegionParser() );
         topLoader.addParser( new FilmStripParser() );
         topLoader.addParser( new FreetypeFontParser() );
@@ -202,10 +208,33 @@ public class AssetDirectory extends AssetManager {
     public void loadAssets() {
         DirectoryLoader.DirectoryLoaderParameters params = new DirectoryLoader.DirectoryLoaderParameters();
         params.loadedCallback = callback;
+        assetSpan = Telemetry.beginAsset();
         load( filename, Index.class, params );
     }
 
-    
+    /**
+     * Adds an asset to this asset manager, once it has finished loading.
+     *
+     * This is also where we send the asset load telemetry.  The asset manager loads
+     * one asset at a time, so the time of an asset is the time since the previous
+     * one finished (or since {@link #loadAssets} was called).  The directory index is
+     * the first asset, as it queues the others when it is parsed.
+     *
+     * @param fileName  The asset file name
+     * @param type      The asset type
+     * @param asset     The loaded asset
+     */
+    @Override
+    public synchronized <T> void addAsset(String fileName, Class<T> type, T asset) {
+        super.addAsset( fileName, type, asset );
+        if (assetSpan != null) {
+            Telemetry.endAsset( assetSpan, fileName, type );
+            // The finished asset is still counted as queued
+            assetSpan = getQueuedAssets() > 1 ? Telemetry.beginAsset() : null;
+        }
+    }
+
+
     /**
      * Unloads all assets previously loaded by {@link #loadAssets}.
      *
@@ -221,6 +250,7 @@ public class AssetDirectory extends AssetManager {
                 unload( filename );
             }
         }
+        regions.clear();
         contents = null;
     }
     
@@ -288,6 +318,11 @@ public class AssetDirectory extends AssetManager {
      * The method {@link #loadAssets} must have been called for this method to
      * return a value.
      *
+     * A {@link TextureRegion} may also be requested with the key of a texture.  If
+     * that texture was packed into one of the atlases of this directory, the result is
+     * its atlas region.  Otherwise it is a region covering the whole texture.  Either
+     * way, asking again for the same key gives the same region.
+     *
      * @param key  the asset directory key
      * @param type the asset type
      *
@@ -295,14 +330,53 @@ public class AssetDirectory extends AssetManager {
      */
     public <T> T getEntry(String key, Class<T> type) {
         ObjectMap<String, String> keys = contents.keymap.get( type, null );
-        if (keys == null) {
+        String filename = keys == null ? null : keys.get( key, null );
+        if (filename == null) {
+            if (type == TextureRegion.class) {
+                return type.cast( getTextureRegion( key ) );
+            }
             return null;
         }
-        String filename = keys.get( key, null );
+        return get( filename, type );
+    }
+
+    /**
+     * Returns the texture region for the given texture key
+     *
+     * Atlas regions are named after the texture file, without its extension, which is
+     * how the packer in the tools project names them.
+     *
+     * @param key  the texture directory key
+     *
+     * @return the texture region for the given texture key (null if not a texture)
+     */
+    private TextureRegion getTextureRegion(String key) {
+        TextureRegion region = regions.get( key, null );
+        if (region != null) {
+            return region;
+        }
+        ObjectMap<String, String> textures = contents.keymap.get( Texture.class, null );
+        String filename = textures == null ? null : textures.get( key, null );
         if (filename == null) {
             return null;
         }
-        return get( filename, type );
+
+        ObjectMap<String, String> atlases = contents.keymap.get( TextureAtlas.class, null );
+        if (atlases != null) {
+            int suffix = filename.lastIndexOf( '.' );
+            String name = suffix == -1 ? filename : filename.substring( 0, suffix );
+            for (String atlas : atlases.values()) {
+                region = get( atlas, TextureAtlas.class ).findRegion( name );
+                if (region != null) {
+                    break;
+                }
+            }
+        }
+        if (region == null) {
+            region = new TextureRegion( get( filename, Texture.class ) );
+        }
+        regions.put( key, region );
+        return region;
     }
 
     /**
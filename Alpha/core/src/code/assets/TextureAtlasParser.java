@@ -0,0 +1,91 @@
+/*
+ * TextureAtlasParser.java
+ *
+ * This is an interface for parsing a JSON entry into a texture atlas.  The atlases are
+ * packed at build time (see the tools project) from the textures in the same asset
+ * directory.  Drawing from a single atlas page lets the sprite batch draw a whole
+ * level in a handful of batches, instead of flushing on every texture switch.
+ */
+package code.assets;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.ObjectMap;
+
+/**
+ * This class parses a JSON entry into a {@link TextureAtlas}.
+ *
+ * The atlases are defined in a subobject called "atlases", and are only specified by
+ * file name.  An atlas that has not been packed yet is skipped, so that the textures
+ * are used on their own instead.
+ */
+public class TextureAtlasParser implements AssetParser<TextureAtlas> {
+    /** The current atlas entry in the JSON directory */
+    private JsonValue root;
+
+    /**
+     * Returns the asset type generated by this parser
+     *
+     * @return the asset type generated by this parser
+     */
+    public Class<TextureAtlas> getType() {
+        return TextureAtlas.class;
+    }
+
+    /**
+     * Resets the parser iterator for the given directory.
+     *
+     * The value directory is assumed to be the root of a larger JSON structure.
+     * The individual assets are defined by subtrees in this structure.
+     *
+     * @param directory    The JSON representation of the asset directory
+     */
+    public void reset(JsonValue directory) {
+        root = directory;
+        root = root.getChild( "atlases" );
+    }
+
+    /**
+     * Returns true if there are still assets left to generate
+     *
+     * @return true if there are still assets left to generate
+     */
+    public boolean hasNext() {
+        return root != null;
+    }
+
+    /**
+     * Processes the next available texture atlas, loading it into the asset manager
+     *
+     * {@link TextureAtlas} objects have no additional loader properties.  They are
+     * specified key : filename.  The atlas pages are loaded as dependencies.
+     *
+     * This method fails silently if there are no available assets to process.
+     *
+     * @param manager    The asset manager to load an asset
+     * @param keymap    The mapping of JSON keys to asset file names
+     */
+    public void processNext(AssetManager manager, ObjectMap<String,String> keymap) {
+        String file = root.asString();
+        if (manager.getFileHandleResolver().resolve( file ).exists()) {
+            keymap.put(root.name(), file);
+            manager.load( file, TextureAtlas.class, null );
+        } else {
+            Gdx.app.log( "TextureAtlasParser", "Atlas "+file+" has not been packed; using the separate textures" );
+        }
+        root = root.next();
+    }
+
+    /**
+     * Returns true if o is another TextureAtlasParser
+     *
+     * @return true if o is another TextureAtlasParser
+     */
+    public boolean equals(Object o) {
+        return o instanceof TextureAtlasParser;
+    }
+
+
+}
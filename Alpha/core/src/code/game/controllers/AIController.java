@@ -12,11 +12,10 @@ import code.game.models.Chicken;
 import code.game.models.obstacle.Obstacle;
 import code.util.FilmStrip;
 
+import code.game.models.FlowField;
 import code.game.models.Grid;
-
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.PriorityQueue;
+import code.game.models.GridSearch;
+import code.telemetry.Telemetry;
 
 
 /** This class handles the AI for the enemy chickens by using a finite state machine.
@@ -93,12 +92,12 @@ public class AIController {
      * We would probably want an AI Controller to handle this, but enemy movement is
      * pretty simple for the prototype */
     //private Obstacle target;
-    /** The grid */
+    /** The grid (shared by every chicken in the level) */
     private Grid grid;
-    /** Goal tiles */
-    private PriorityQueue<Grid.Tile> open;
-    /** Closed tiles / tiles already evaluated */
-    private ArrayList<Grid.Tile> closed;
+    /** The planner that decides when this chicken may search (shared by every chicken) */
+    private PathPlanner planner;
+    /** The flow field to the chef (shared by every chicken, null to use A* instead) */
+    private FlowField field;
     /** The tile that the chicken is on */
     private Grid.Tile start_tile;
     /** The tile that the target is on */
@@ -107,6 +106,24 @@ public class AIController {
     private Grid.Tile move_tile;
     /** The tile that is the child of move_tile */
     private Grid.Tile child_tile;
+    /** The last path found, as tile indices from the first step to the target */
+    private int[] path = new int[32];
+    /** The number of tiles in the last path found */
+    private int path_length = 0;
+    /** The position in the path of the next tile to move to */
+    private int path_index = 0;
+    /** The tile that the target was on when the last path was found (null if none) */
+    private Grid.Tile path_target;
+    /** The version of the grid when the last path was found */
+    private int path_version;
+    /** The planner frame when the last path was found (-1 if none) */
+    private int path_frame = -1;
+    /** True if this chicken is waiting for the planner to find it a new path */
+    private boolean waiting = false;
+    /** When this chicken asked the planner for its new path (to break ties in age) */
+    private long request_order;
+    /** How many tiles of the path to look ahead for the tile that the chicken is on */
+    private final int PATH_LOOKAHEAD = 3;
 
 
 
@@ -130,9 +147,11 @@ public class AIController {
      *
      * @param chicken   the chicken that is being controlled
      * @param chef      the chef that the chicken is trying to attack
-     * @param grid      The grid object used to perform A* pathfinding
+     * @param grid      The grid object used to perform A* pathfinding (shared by every chicken)
+     * @param planner   The planner that schedules A* searches on grid (shared by every chicken)
+     * @param field     The flow field to the chef, or null if this level uses A*
      * */
-    public AIController(Chicken chicken, Chef chef, Grid grid){
+    public AIController(Chicken chicken, Chef chef, Grid grid, PathPlanner planner, FlowField field){
         this.target = chef;
         this.chef = chef;
         this.chicken = chicken;
@@ -144,8 +163,8 @@ public class AIController {
         knockback = data.getFloat("knockback", 0);
 
         this.grid = grid;
-        open = new PriorityQueue<>(4, new TileComparator());
-        closed = new ArrayList<>();
+        this.planner = planner;
+        this.field = field;
     }
 
     /**
@@ -183,9 +202,6 @@ public class AIController {
      * @param dt    the number of seconds since the last animiation frame
      * */
     public void update(float dt){
-        open.clear();
-        closed.clear();
-        grid.clearCosts();
         invuln_counter   = MathUtils.clamp(invuln_counter+=dt,0f,INVULN_TIME);
         sideways_counter = MathUtils.clamp(sideways_counter+=dt,0f,SIDEWAYS_TIME);
         stop_counter = MathUtils.clamp(stop_counter+=dt,0f,STOP_TIME);
@@ -205,18 +221,27 @@ public class AIController {
                 if (grid.sameTile(target.getX(), target.getY(), chicken.getX(), chicken.getY())) {
                     temp.set(target.getPosition().sub(chicken.getPosition()));
                 } else {
-                    start_tile = grid.getTile(chicken.getPosition().x, chicken.getPosition().y);
-                    start_tile.setGcost(0);
-                    start_tile.setHcost(distance(target.getPosition(), grid.getPosition(start_tile.row, start_tile.col)));
-                    start_tile.setFcost(start_tile.getHcost());
-                    open.add(start_tile);
+                    start_tile = grid.getTile(chicken.getX(), chicken.getY());
                     target_tile = grid.getTile(target.getX(), target.getY());
-                    move_tile = AStar();
+                    if (field != null) {
+                        move_tile = followField();
+                    } else {
+                        move_tile = followPath();
+                        // Off the path, at its end, the target has moved too far, or the traps changed
+                        if ((move_tile == null && path_length > 0) || path_target == null ||
+                                distance(path_target, target_tile) > planner.getDistance() ||
+                                path_version != grid.getVersion()) {
+                            planner.request(this);
+                        }
+                    }
+                    // No path around the obstacles, so head straight for the target
+                    if (move_tile == null) {
+                        temp.set(target.getPosition().sub(chicken.getPosition()));
                     // Moving in a straight line?
-                    if (child_tile.row == start_tile.row || child_tile.col == start_tile.col || move_tile == target_tile) {
-                        temp.set(grid.getPosition(move_tile.row, move_tile.col).sub(chicken.getPosition()));
+                    } else if (child_tile.row == start_tile.row || child_tile.col == start_tile.col || move_tile == target_tile) {
+                        grid.getPosition(move_tile.row, move_tile.col, temp).sub(chicken.getPosition());
                     } else {
-                        temp.set(grid.getPosition(child_tile.row, child_tile.col).sub(chicken.getPosition()));
+                        grid.getPosition(child_tile.row, child_tile.col, temp).sub(chicken.getPosition());
                     }
 
                 }
@@ -242,81 +267,124 @@ public class AIController {
         }
     }
 
-    /** Returns the distance between Vectors a and b
+    /** Determines the direction of the force that will move the chicken forward
+     *  based on the flow field towards the chef
      *
-     * @param a The first vector
-     * @param b The second vector
-     * @return  The distance between a and b
+     *  @return the first tile on the path, or null if the chef cannot be reached
      */
-    private float distance(Vector2 a, Vector2 b) {
-        float xdiff = b.x - a.x;
-        float ydiff = b.y - a.y;
-        return (float)Math.sqrt(Math.pow(xdiff,2) + Math.pow(ydiff,2));
+    private Grid.Tile followField() {
+        Grid.Tile next = field.getNext(start_tile);
+        if (next == null) { return null; }
+        child_tile = field.getNext(next);
+        if (child_tile == null) { child_tile = next; }
+        return next;
     }
 
-
     /** Determines the direction of the force that will move the chicken forward
-     *  based on the closest possible path towards the target
+     *  based on the last path found towards the target
+     *
+     *  @return the next tile on the path, or null if the chicken is no longer on it
      */
-    public Grid.Tile AStar() {
-        while (!open.isEmpty()) {
-            Grid.Tile curr = open.peek();
-            if (curr == target_tile) {
-                if (curr.getParent() == null) { return curr; }
-                child_tile = curr;
-                Grid.Tile parent = curr.getParent();
-                while (parent.getParent() != null) {
-                    child_tile = curr;
-                    curr = curr.getParent();
-                    parent = curr.getParent();
-                }
-                return curr;
-            }
-            for (Grid.Tile neighbor: curr.getNeighbors()) {
-                if (!neighbor.isObstacle()) {
-                    float hcost = distance(grid.getPosition(target_tile.row, target_tile.col), grid.getPosition(neighbor.row,neighbor.col));
-                    // ndist = distance between curr and neighbor
-                    float ndist = distance(grid.getPosition(curr.row, curr.col), grid.getPosition(neighbor.row, neighbor.col));
-                    float gcost = ndist + curr.getGcost();
-                    float fcost = hcost + gcost;
-
-                    if (!closed.contains(neighbor) && !open.contains(neighbor)) {
-                        neighbor.setParent(curr);
-                        neighbor.setGcost(gcost);
-                        neighbor.setHcost(hcost);
-                        neighbor.setFcost(neighbor.getGcost() + distance(grid.getPosition(neighbor.row, neighbor.col), grid.getPosition(target_tile.row, target_tile.col)));
-                        open.add(neighbor);
-                    } else {
-                        if (fcost < neighbor.getGcost()) {
-                            neighbor.setGcost(ndist + curr.getGcost());
-                            neighbor.setFcost(fcost);
-                            neighbor.setParent(curr);
-                            if (closed.contains(neighbor)) {
-                                closed.remove(neighbor);
-                                if (!open.contains(neighbor)) { open.add(neighbor); }
-                            }
-                        }
-                    }
-                }
+    private Grid.Tile followPath() {
+        // Skip past the tiles that the chicken has already reached
+        int end = Math.min(path_length, path_index+PATH_LOOKAHEAD);
+        for (int ii = path_index; ii < end; ii++) {
+            if (path[ii] == start_tile.getIndex()) {
+                path_index = ii+1;
+                break;
             }
-            closed.add(curr);
-            open.remove(curr);
         }
-        return null;
+        if (path_index >= path_length) { return null; }
+        Grid.Tile next = grid.getTile(path[path_index]);
+        if (distance(start_tile, next) > 1) { return null; }
+        child_tile = path_index+1 < path_length ? grid.getTile(path[path_index+1]) : next;
+        return next;
+    }
+
+    /** Returns the number of king moves between tiles a and b
+     *
+     * @param a The first tile
+     * @param b The second tile
+     * @return  The number of king moves between a and b
+     */
+    private int distance(Grid.Tile a, Grid.Tile b) {
+        return Math.max(Math.abs(a.row - b.row), Math.abs(a.col - b.col));
     }
 
     /**
-     * Comparator for Tile class that have the following rules:
+     * Returns whether this chicken is waiting for the planner to find it a new path
      *
-     * If Tile1's FCost < Tile2's FCost : -1
-     * If Tile1's FCost > Tile2's FCost : 1
-     * Otherwise, 0
+     * @return whether this chicken is waiting for a new path
      */
-    public class TileComparator implements Comparator<Grid.Tile> {
-        @Override
-        public int compare(Grid.Tile tile1, Grid.Tile tile2) {
-            return tile1.getFcost() < tile2.getFcost() ? -1: tile1.getFcost() > tile2.getFcost()? 1: 0;
+    public boolean isWaiting() { return waiting; }
+
+    /**
+     * Sets whether this chicken is waiting for the planner to find it a new path
+     *
+     * @param value whether this chicken is waiting for a new path
+     */
+    public void setWaiting(boolean value) { waiting = value; }
+
+    /**
+     * Returns the planner frame when the last path was found, or -1 if there is none
+     *
+     * @return the planner frame when the last path was found
+     */
+    public int getPathFrame() { return path_frame; }
+
+    /**
+     * Returns when this chicken asked the planner for its new path
+     *
+     * @return when this chicken asked the planner for its new path
+     */
+    public long getRequestOrder() { return request_order; }
+
+    /**
+     * Sets when this chicken asked the planner for its new path
+     *
+     * @param value when this chicken asked the planner for its new path
+     */
+    public void setRequestOrder(long value) { request_order = value; }
+
+    /** Finds the closest possible path from the chicken towards the target, and
+     *  caches it to be followed on later frames.  This is called by the
+     *  {@link PathPlanner} when it is this chicken's turn to search.
+     *
+     *  The target tile may be entered even if it is an obstacle (e.g. the chef is
+     *  pressed against a platform).
+     *
+     *  @return the first tile on the path, or null if the target cannot be reached
+     */
+    public Grid.Tile AStar() {
+        start_tile = grid.getTile(chicken.getX(), chicken.getY());
+        target_tile = grid.getTile(target.getX(), target.getY());
+        path_target = target_tile;
+        path_version = grid.getVersion();
+        path_frame = planner.getFrame();
+        path_length = 0;
+        path_index = 0;
+
+        GridSearch search = planner.getSearch();
+        Object span = Telemetry.beginSearch();
+        if (!search.search(start_tile, target_tile)) {
+            Telemetry.endSearch(span, start_tile.getIndex(), target_tile.getIndex(), search.getExpanded(), 0, false);
+            return null;
+        }
+        int length = 0;
+        for (Grid.Tile curr = target_tile; search.getParent(curr) != null; curr = search.getParent(curr)) {
+            length++;
+        }
+        if (length > path.length) {
+            path = new int[Math.max(length, 2*path.length)];
+        }
+        Grid.Tile curr = target_tile;
+        for (int ii = length-1; ii >= 0; ii--) {
+            path[ii] = curr.getIndex();
+            curr = search.getParent(curr);
         }
+        path_length = length;
+        Telemetry.endSearch(span, start_tile.getIndex(), target_tile.getIndex(), search.getExpanded(), length, true);
+        return followPath();
     }
 
-}
\ No newline at end of file
+}
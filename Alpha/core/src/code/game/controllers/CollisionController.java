@@ -5,6 +5,7 @@ import code.game.models.Chef;
 import code.game.models.Chicken;
 import code.game.models.Stove;
 import code.game.models.Trap;
+import code.game.models.obstacle.EntityType;
 import code.game.models.obstacle.Obstacle;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.*;
@@ -12,10 +13,6 @@ import com.badlogic.gdx.utils.JsonValue;
 import com.badlogic.gdx.utils.ObjectSet;
 
 public class CollisionController implements CollisionControllerInterface {
-    /**The damage for this round of contact*/
-    private float dmg;
-
-
     private TrapController trapController;
 
     public CollisionController(Vector2 scale, JsonValue constants){
@@ -28,14 +25,12 @@ public class CollisionController implements CollisionControllerInterface {
      * this method to test if it is the "right" kind of collision.  In particular, we
      * use it to test if we made it to the win door.
      *
-     * @param contact The two bodies that collided
+     * @param fix1 The first fixture that collided
+     * @param fix2 The second fixture that collided
      */
-    public void beginContact(Contact contact, float potential_dmg) {
-        dmg = potential_dmg;
+    public void beginContact(Fixture fix1, Fixture fix2) {
         //TODO: Detect if a collision is with an enemy and have an appropriate interaction
         //hitbox
-        Fixture fix1 = contact.getFixtureA();
-        Fixture fix2 = contact.getFixtureB();
         //game body
         Body body1 = fix1.getBody();
         Body body2 = fix2.getBody();
@@ -43,106 +38,67 @@ public class CollisionController implements CollisionControllerInterface {
         Object fd1 = fix1.getUserData();
         Object fd2 = fix2.getUserData();
 
-        //
-        try {
-            Obstacle bd1 = (Obstacle) body1.getUserData();
-            Obstacle bd2 = (Obstacle) body2.getUserData();
+        Obstacle bd1 = (Obstacle) body1.getUserData();
+        Obstacle bd2 = (Obstacle) body2.getUserData();
 
+        // Order the pair by type, so each pair of types is handled in one place
+        if (bd1.getEntityType().compareTo(bd2.getEntityType()) <= 0) {
             handleCollision(bd1, fd1, bd2, fd2);
-            //handleCollision(bd2, fd2, bd1, fd1);
-
-            } catch(Exception e){
-                e.printStackTrace();
-            }
+        } else {
+            handleCollision(bd2, fd2, bd1, fd1);
         }
+    }
 
-        private void handleCollision(Obstacle bd1, Object fd1, Obstacle bd2, Object fd2){
-            //special platform case
-            if (bd1.getName().contains("platform") && bd2.getName().equals("chicken")){
-                ((Chicken)bd2).hitWall();
-            }
-            else if (bd2.getName().contains("platform") && bd1.getName().equals("chicken")){
-                ((Chicken)bd2).hitWall();
-            }
-
-            else {
-                //otherwise check collisions between objects
-                switch (bd1.getName()) {
-                    case "chicken":
-                        chickenCollision((Chicken) bd1, fd1, bd2, fd2);
-                        break;
-                    case "chef":
-                        chefCollision((Chef) bd1, fd1, bd2, fd2);
-                        break;
-                    case "stove":
-                        stoveCollision((Stove) bd1, fd1, bd2, fd2);
-                        break;
-                    case "bullet":
-                        slapCollision(bd1, fd1, bd2, fd2);
-                        break;
-                    case "trap":
-                        trapCollision((Trap) bd1, fd1, bd2, fd2);
-                        break;
-                }
-            }
+    /**
+     * Handles the start of a contact between two objects
+     *
+     * The type of bd1 never comes after the type of bd2 (see {@link EntityType}).
+     */
+    private void handleCollision(Obstacle bd1, Object fd1, Obstacle bd2, Object fd2){
+        switch (bd1.getEntityType()) {
+            case PLATFORM:
+                platformCollision(bd1, fd1, bd2, fd2);
+                break;
+            case STOVE:
+                stoveCollision((Stove) bd1, fd1, bd2, fd2);
+                break;
+            case CHEF:
+                chefCollision((Chef) bd1, fd1, bd2, fd2);
+                break;
+            case CHICKEN:
+                chickenCollision((Chicken) bd1, fd1, bd2, fd2);
+                break;
         }
+    }
 
-        private void chickenCollision(Chicken c1, Object fd1, Obstacle bd2, Object fd2){
-            switch(bd2.getName()){
-                case "stove": c1.hitWall();
-                    break;
-                case "chicken":
-                    break;
-                case "chef": handleChefChicken((Chef)bd2, fd2, c1, fd1);
-                    break;
-                case "bullet": handleChickenSlap(c1, fd1, bd2, fd2);
-                    break;
-                case "trap": handleChickenTrap(c1, fd1, (Trap)bd2, fd2);
-                    break;
-            }
+    private void platformCollision(Obstacle p1, Object fd1, Obstacle bd2, Object fd2){
+        if (bd2.getEntityType() == EntityType.CHICKEN) {
+            ((Chicken)bd2).hitWall();
         }
+    }
 
-        private void chefCollision(Chef c1, Object fd1, Obstacle bd2, Object fd2){
-            switch(bd2.getName()){
-                case "stove": handleStoveChef((Stove)bd2, c1);
-                    break;
-                case "chicken": handleChefChicken(c1, fd1, (Chicken)bd2, fd2);
-                    break;
-                case "chef":
-                case "bullet":
-                case "trap":
-                    break;
-            }
+    private void stoveCollision(Stove s1, Object fd1, Obstacle bd2, Object fd2){
+        switch(bd2.getEntityType()){
+            case CHEF: handleStoveChef(s1, (Chef)bd2);
+                s1.setLit(true);
+                break;
+            case CHICKEN: ((Chicken)bd2).hitWall();
+                break;
         }
-
-        private void stoveCollision(Stove s1, Object fd1, Obstacle bd2, Object fd2){
-            switch(bd2.getName()){
-                case "stove":
-                    break;
-                case "chicken": ((Chicken)bd2).hitWall();
-                    break;
-                case "chef": handleStoveChef(s1, (Chef)bd2);
-                    s1.setLit(true);
-                    break;
-                case "bullet":
-                case "trap":
-                    break;
-            }
     }
 
-
-        private void slapCollision(Obstacle bd1, Object fd1, Obstacle bd2, Object fd2){
-        //TODO make slap class
-            if(bd2.getName().equals("chicken")){
-                handleChickenSlap((Chicken)bd2, fd2, bd1, fd1);
-            }
+    private void chefCollision(Chef c1, Object fd1, Obstacle bd2, Object fd2){
+        if (bd2.getEntityType() == EntityType.CHICKEN) {
+            handleChefChicken(c1, fd1, (Chicken)bd2, fd2);
         }
+    }
 
-        private void trapCollision(Trap t1, Object fd1, Obstacle bd2, Object fd2){
-            if(bd2.getName().equals("chicken")){
-                handleChickenTrap((Chicken)bd2, fd2, t1, fd1);
-            }
+    private void chickenCollision(Chicken c1, Object fd1, Obstacle bd2, Object fd2){
+        switch(bd2.getEntityType()){
+            case TRAP: handleChickenTrap(c1, fd1, (Trap)bd2, fd2);
+                break;
         }
+    }
 
     /****************************************
      * HELPER METHODS
@@ -164,11 +120,12 @@ public class CollisionController implements CollisionControllerInterface {
      * @param fd2
      */
     private void handleChefChicken(Chef chef, Object fd1, Chicken chicken, Object fd2){
-        if(chicken.isAttacking()){
+        // Only the attack sensor does damage, and it is only on while attacking
+        if("nugAttack".equals(fd2)){
             chef.decrementHealth();
             chicken.hitPlayer();
         }
-        else if (chicken.chasingPlayer(chef)){
+        else if (!chicken.isAttacking() && chicken.chasingPlayer(chef)){
             chicken.startAttack();
         }
         //else {chicken.startAttack();}
@@ -186,20 +143,6 @@ public class CollisionController implements CollisionControllerInterface {
         }*/
     }
 
-    /**
-     * Handles an interaction between a chicken and a slap
-     * @param c1
-     * @param fd1
-     * @param bd2
-     * @param fd2
-     */
-    private void handleChickenSlap(Chicken c1, Object fd1, Obstacle bd2, Object fd2){
-        c1.takeDamage(dmg);
-        if(!c1.isAlive()){
-            c1.markRemoved(true);
-        }
-    }
-
     /**
      * Handles an interaction between a chicken and a trap
      * @param c1
@@ -217,11 +160,13 @@ public class CollisionController implements CollisionControllerInterface {
      * This method is called when two objects cease to touch.  The main use of this method
      * is to determine when the characer is NOT on the ground.  This is how we prevent
      * double jumping.
+     *
+     * @param fix1 The first fixture that separated
+     * @param fix2 The second fixture that separated
+     * @param sensorFixtures The fixtures touching the chef sensor
      */
-    public void endContact(Contact contact, ObjectSet<Fixture> sensorFixtures) {
+    public void endContact(Fixture fix1, Fixture fix2, ObjectSet<Fixture> sensorFixtures) {
         //TODO: Detect if collision is with an enemy and give appropriate interaction (if any needed)
-        Fixture fix1 = contact.getFixtureA();
-        Fixture fix2 = contact.getFixtureB();
         //game body
         Body body1 = fix1.getBody();
         Body body2 = fix2.getBody();
@@ -232,86 +177,56 @@ public class CollisionController implements CollisionControllerInterface {
         Obstacle bd1 = (Obstacle) body1.getUserData();
         Obstacle bd2 = (Obstacle) body2.getUserData();
 
-        if(bd1.getName().equals("chef") || bd2.getName().equals("chef")){
-            Chef chef = (Chef)(bd1.getName().equals("chef") ? bd1 : bd2);
+        if(bd1.getEntityType() == EntityType.CHEF || bd2.getEntityType() == EntityType.CHEF){
+            Chef chef = (Chef)(bd1.getEntityType() == EntityType.CHEF ? bd1 : bd2);
             if ((chef.getSensorName().equals(fd2) && chef != bd1)
                     ||(chef.getSensorName().equals(fd1) && chef != bd2) ){
                 sensorFixtures.remove((chef.equals(bd1)) ? fix2 : fix1);
             }
         }
 
-        switch (bd1.getName()) {
-            case "chicken":
-                endChickenCollision((Chicken) bd1, fd1, bd2, fd2);
-                break;
-            case "chef":
-                endChefCollision((Chef) bd1, fd1, bd2, fd2);
-                break;
-            case "stove":
-                endStoveCollision((Stove) bd1, fd1, bd2, fd2);
-                break;
-            case "bullet":
-                endSlapCollision(bd1, fd1, bd2, fd2);
-                break;
-            case "trap":
-                endTrapCollision((Trap) bd1, fd1, bd2, fd2);
-                break;
+        // Order the pair by type, as in beginContact
+        if (bd1.getEntityType().compareTo(bd2.getEntityType()) <= 0) {
+            handleEndCollision(bd1, fd1, bd2, fd2);
+        } else {
+            handleEndCollision(bd2, fd2, bd1, fd1);
         }
     }
 
-    private void endChickenCollision(Chicken c1, Object fd1, Obstacle bd2, Object fd2){
-        switch(bd2.getName()){
-            case "stove":
-                break;
-            case "chicken":
-                break;
-            case "chef": endChickenChef(c1, fd1, (Chef)bd2, fd2);
-                break;
-            case "bullet":
-                break;
-            case "trap": endChickenTrap(c1, fd1, (Trap)bd2, fd2);
-                break;
-        }
-    }
-
-    private void endChefCollision(Chef chef, Object fd1, Obstacle bd2, Object fd2){
-        switch(bd2.getName()){
-            case "stove": endStoveChef((Stove) bd2, fd2, chef, fd1);
+    /**
+     * Handles the end of a contact between two objects
+     *
+     * The type of bd1 never comes after the type of bd2 (see {@link EntityType}).
+     */
+    private void handleEndCollision(Obstacle bd1, Object fd1, Obstacle bd2, Object fd2){
+        switch (bd1.getEntityType()) {
+            case STOVE:
+                endStoveCollision((Stove) bd1, fd1, bd2, fd2);
                 break;
-            case "chicken": endChickenChef((Chicken)bd2, fd2, chef, fd1);
+            case CHEF:
+                endChefCollision((Chef) bd1, fd1, bd2, fd2);
                 break;
-            case "chef":
-            case "bullet":
-            case "trap":
+            case CHICKEN:
+                endChickenCollision((Chicken) bd1, fd1, bd2, fd2);
                 break;
         }
     }
 
     private void endStoveCollision(Stove s1, Object fd1, Obstacle bd2, Object fd2){
-        switch(bd2.getName()){
-            case "stove":
-                break;
-            case "chicken":
-                break;
-            case "chef": endStoveChef(s1, fd1, (Chef)bd2, fd2);
-                break;
-            case "bullet":
-            case "trap":
-                break;
+        if (bd2.getEntityType() == EntityType.CHEF) {
+            endStoveChef(s1, fd1, (Chef)bd2, fd2);
         }
     }
 
-
-    private void endSlapCollision(Obstacle bd1, Object fd1, Obstacle bd2, Object fd2){
-        //TODO make slap class
-        if(bd2.getName().equals("chicken")){
-
+    private void endChefCollision(Chef chef, Object fd1, Obstacle bd2, Object fd2){
+        if (bd2.getEntityType() == EntityType.CHICKEN) {
+            endChickenChef((Chicken)bd2, fd2, chef, fd1);
         }
     }
 
-    private void endTrapCollision(Trap t1, Object fd1, Obstacle bd2, Object fd2){
-        if(bd2.getName().equals("chicken")){
-            endChickenTrap((Chicken)bd2, fd2, t1, fd1);
+    private void endChickenCollision(Chicken c1, Object fd1, Obstacle bd2, Object fd2){
+        if (bd2.getEntityType() == EntityType.TRAP) {
+            endChickenTrap(c1, fd1, (Trap)bd2, fd2);
         }
     }
 
@@ -14,11 +14,22 @@ import code.assets.AssetDirectory;
 import code.audio.SoundBuffer;
 import code.game.models.*;
 import code.game.models.obstacle.BoxObstacle;
+import code.game.models.obstacle.CollisionMatrix;
+import code.game.models.obstacle.ContactBuffer;
+import code.game.models.obstacle.EntityType;
 import code.game.models.obstacle.Obstacle;
+import code.game.models.obstacle.ObstaclePool;
 import code.game.models.obstacle.PolygonObstacle;
+import code.game.models.obstacle.SpatialHash;
+import code.game.profile.AllocationMeter;
+import code.game.profile.FrameProfiler;
+import code.game.profile.GcMonitor;
 import code.game.views.GameCanvas;
+import code.game.views.TextLabel;
+import code.telemetry.Telemetry;
 import code.util.PooledList;
 import code.util.ScreenListener;
+import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Screen;
 import com.badlogic.gdx.math.*;
 import com.badlogic.gdx.utils.*;
@@ -27,7 +38,6 @@ import com.badlogic.gdx.graphics.g2d.*;
 import com.badlogic.gdx.physics.box2d.*;
 
 import java.util.Iterator;
-import java.util.HashMap;
 /**
  * Gameplay specific controller for the platformer game.  
  *
@@ -37,7 +47,7 @@ import java.util.HashMap;
  * This is the purpose of our AssetState variable; it ensures that multiple instances
  * place nicely with the static assets.
  */
-public class GameController implements ContactListener, Screen {
+public class GameController implements ContactListener, ContactBuffer.Handler, Screen {
 	///TODO: Implement a proper board and interactions between the player and chickens, slap may also be implemented here
 	////////////// This file puts together a lot of data, be sure that you do not modify something without knowing fully
 	////////////// its purpose or you may break someone else's work, further comments are below ////////////////////
@@ -63,9 +73,9 @@ public class GameController implements ContactListener, Screen {
 	private TextureRegion trapSpotTexture;
 
 	/** Texture asset for the chef*/
-	private Texture chefTexture;
+	private TextureRegion chefTexture;
 	/** Texture asset for the nugget */
-	private Texture nuggetTexture;
+	private TextureRegion nuggetTexture;
 
 	///** Texture asset for temp bar*/
 	//private Texture tempTexture;
@@ -113,6 +123,16 @@ public class GameController implements ContactListener, Screen {
 	public static final int WORLD_VELOC = 6;
 	/** Number of position iterations for the constrain solvers */
 	public static final int WORLD_POSIT = 2;
+	/** The maximum number of physics steps to catch up on in one frame */
+	public static final int MAX_SUBSTEPS = 5;
+	/** The number of frames between refreshes of the profiler overlay */
+	public static final int PROFILE_REFRESH = 15;
+	/** The default reach of a slap, from the center of the chef to the edge of a chicken */
+	public static final float SLAP_REACH = 2.0f;
+	/** The default angular width of a slap, in degrees */
+	public static final float SLAP_ARC = 120.0f;
+	/** The default length of a slap, in seconds */
+	public static final float SLAP_DURATION = 0.1f;
 
 	/** Exit code for quitting the game */
 	public static final int EXIT_QUIT = 0;
@@ -159,8 +179,8 @@ public class GameController implements ContactListener, Screen {
 	private static float spawn_ymin;
 	/** The maximum y position of a spawned chicken */
 	private static float spawn_ymax;
-	/** maps chickens to their corresponding AI controllers*/
-	private HashMap<Chicken, AIController> ai = new HashMap<>();
+	/** maps chickens to their corresponding AI controllers (its iterators are reused every frame) */
+	private ObjectMap<Chicken, AIController> ai = new ObjectMap<Chicken, AIController>();
 //	/** Reference to the stove object */
 //	private Stove stove;
 
@@ -170,6 +190,34 @@ public class GameController implements ContactListener, Screen {
 	private int parameterSelected = 0;
 	/** List of all parameter values {player max health, chicken max health, base damage (player), spawn rate (per update frames), initial spawn}*/
 	private int[] parameterList = {3, 5, 2, 100, 2, 6, 30, 10, 5, 5, 5, 5, 0};
+	/** The display name of each parameter, in the same order as parameterList */
+	private static final String[] PARAMETER_NAMES = {"player max health: ", "chicken max health: ",
+			"base damage (player): ", "spawn rate: ", "initial spawn: ", "lure durability: ", "slow durability: ",
+			"fire linger durability: ", "fire damage durability: ", "player speed: ", "enemy speed: ",
+			"invulnerability time: ", "invincibility: "};
+	/** The cached label for the selected trap */
+	private TextLabel trapLabel;
+	/** The cached label for each parameter */
+	private TextLabel[] parameterLabels;
+
+	/** The timings of the last few frames */
+	private FrameProfiler profiler = new FrameProfiler();
+	/** Whether or not the profiler overlay is shown */
+	private boolean profiling;
+	/** The CSV file to append the timings to at the end of each level (null for none) */
+	private String profileFile;
+	/** The number of levels played, to label the CSV rows */
+	private int levelCount;
+	/** The frames until the profiler overlay is refreshed */
+	private int profileRefresh;
+	/** The cached heading of the profiler overlay */
+	private TextLabel profileHeader;
+	/** The cached label for each phase in the profiler overlay */
+	private TextLabel[] profileLabels;
+	/** The cached label for the garbage collections in the profiler overlay */
+	private TextLabel profileGcLabel;
+	/** Scratch space for the text of the profiler overlay */
+	private java.lang.StringBuilder profileText = new java.lang.StringBuilder();
 	//TODO MAKE CONSTANT
 
 
@@ -179,9 +227,22 @@ public class GameController implements ContactListener, Screen {
 	protected PooledList<Obstacle> objects  = new PooledList<Obstacle>();
 	/** Queue for adding objects */
 	protected PooledList<Obstacle> addQueue = new PooledList<Obstacle>();
+	/** The chickens in the world (also in objects) */
+	protected PooledList<Chicken> chickens = new PooledList<Chicken>();
+	/** The walls, platforms and trap spots in the world (also in objects) */
+	protected PooledList<Obstacle> statics = new PooledList<Obstacle>();
 	/** Listener that will update the player mode when we are done */
 	private ScreenListener listener;
 
+	/** The length of a physics step in seconds */
+	private float stepSize = WORLD_STEP;
+	/** The maximum number of physics steps to catch up on in one frame */
+	private int maxSubsteps = MAX_SUBSTEPS;
+	/** The simulation time not yet consumed by a physics step */
+	private float accumulator;
+	/** How far between the last two physics states to draw (0 to 1) */
+	private float alpha;
+
 	/** The Box2D world */
 	protected World world;
 	/** The boundary of the world */
@@ -190,6 +251,33 @@ public class GameController implements ContactListener, Screen {
 	protected Vector2 scale;
 	/** The grid */
 	protected Grid grid;
+	/** The planner for A* searches over the grid, shared by every chicken */
+	private PathPlanner planner;
+	/** The flow field to the chef, shared by every chicken (null if the level uses A*) */
+	private FlowField flowField;
+	/** The bucket size of the chicken index in Box2D units */
+	private static final float INDEX_CELL = 2.0f;
+	/** The chickens by position, rebuilt after every physics step */
+	private SpatialHash<Chicken> chickenIndex;
+	/** Recycled chickens, with their bodies parked in the current world */
+	private ObstaclePool<Chicken> chickenPool;
+	/** Recycled traps, one pool per trap type (indexed by ordinal) */
+	private TrapPool[] trapPools;
+
+	/** The time left in the current slap (0 if not slapping) */
+	private float slapTime;
+	/** The direction of the current slap, in radians */
+	private float slapAngle;
+	/** The reach of a slap, from the center of the chef */
+	private float slapReach = SLAP_REACH;
+	/** Half the angular width of a slap, in radians */
+	private float slapHalfArc = SLAP_ARC*MathUtils.degreesToRadians/2;
+	/** How long a slap lasts, in seconds */
+	private float slapDuration = SLAP_DURATION;
+	/** The chickens already hit by the current slap */
+	private Array<Chicken> slapHits = new Array<Chicken>();
+	/** The chickens found by the slap query this frame */
+	private Array<Chicken> slapQuery = new Array<Chicken>();
 	/** Whether or not the grid should be displayed */
 	private boolean grid_toggle;
 
@@ -219,6 +307,12 @@ public class GameController implements ContactListener, Screen {
 
 	/**The collision controller for this game*/
 	private CollisionController collisionController;
+	/** The contacts reported during the current physics step */
+	private ContactBuffer contactBuffer = new ContactBuffer();
+	/** Whether the world is in the middle of a physics step */
+	private boolean stepping;
+	/** The entity types that collide with each other */
+	private CollisionMatrix collisions = new CollisionMatrix();
 	/**The trap controller for this game*/
 
 
@@ -279,6 +373,7 @@ public class GameController implements ContactListener, Screen {
 		world = new World(gravity,false);
 		this.bounds = new Rectangle(bounds);
 		this.scale = new Vector2(1,1);
+		chickenIndex = new SpatialHash<Chicken>(this.bounds, INDEX_CELL);
 		complete = false;
 		failed = false;
 		debug  = false;
@@ -298,16 +393,17 @@ public class GameController implements ContactListener, Screen {
 		//textures
 			//environment
 		earthTile = new TextureRegion(directory.getEntry( "enviro:earth", Texture.class ));
-		stoveTexture = new TextureRegion(directory.getEntry("enviro:stove",Texture.class));
+		// Sprites come from the packed atlas when there is one, so they share a batch
+		stoveTexture = directory.getEntry("enviro:stove",TextureRegion.class);
 			//traps
-		trapTexture = new TextureRegion(directory.getEntry("enviro:trap:spike",Texture.class));
-		trapSpotTexture = new TextureRegion(directory.getEntry("enviro:trap:spot", Texture.class));
+		trapTexture = directory.getEntry("enviro:trap:spike",TextureRegion.class);
+		trapSpotTexture = directory.getEntry("enviro:trap:spot", TextureRegion.class);
 			//characters
-		bulletTexture = new TextureRegion(directory.getEntry("char:bullet",Texture.class));
-		chickenTexture  = new TextureRegion(directory.getEntry("char:chicken",Texture.class));
-		enemyHealthBarTexture = new TextureRegion(directory.getEntry("char:nuggetBar", Texture.class));
-		chefTexture = directory.getEntry("char:chef", Texture.class);
-		nuggetTexture = directory.getEntry("char:nugget", Texture.class);
+		bulletTexture = directory.getEntry("char:bullet",TextureRegion.class);
+		chickenTexture  = directory.getEntry("char:chicken",TextureRegion.class);
+		enemyHealthBarTexture = directory.getEntry("char:nuggetBar", TextureRegion.class);
+		chefTexture = directory.getEntry("char:chef", TextureRegion.class);
+		nuggetTexture = directory.getEntry("char:nugget", TextureRegion.class);
 
 		//ui
 		tempBackground = directory.getEntry("ui:tempBar.background", TextureRegion.class);
@@ -347,6 +443,14 @@ public class GameController implements ContactListener, Screen {
 	 * This method disposes of the world and creates a new one.
 	 */
 	public void reset() {
+		// Save the timings of the level that just ended
+		if (profileFile != null) {
+			profiler.dump(Gdx.files.local(profileFile), Integer.toString(levelCount));
+		}
+		profiler.clear();
+		profileRefresh = 0;
+		levelCount++;
+
 		Vector2 gravity = new Vector2(world.getGravity() );
 		
 		for(Obstacle obj : objects) {
@@ -354,13 +458,22 @@ public class GameController implements ContactListener, Screen {
 		}
 		objects.clear();
 		addQueue.clear();
+		chickens.clear();
+		statics.clear();
+		ai.clear();
+		chickenIndex.clear();
 		world.dispose();
+		contactBuffer.clear();
+		slapTime = 0;
+		slapHits.clear();
 		
 		world = new World(gravity,false);
 		world.setContactListener(this);
 		setComplete(false);
 		setFailure(false);
 		//chickens = 0;
+		accumulator = 0;
+		alpha = 0;
 		populateLevel();
 	}
 	public void initEasy(){
@@ -383,6 +496,26 @@ public class GameController implements ContactListener, Screen {
 	 */
 	private void populateLevel() {
 		//TODO: Populate level similar to our board designs, and also change the win condition (may require work outside this method)
+		// Parked bodies belong to the old world, so the pools are rebuilt with it
+		createPools();
+
+		JsonValue physjv = constants.get("physics");
+		stepSize = physjv.getFloat("step", WORLD_STEP);
+		maxSubsteps = Math.max(1, physjv.getInt("max_substeps", MAX_SUBSTEPS));
+		collisions = new CollisionMatrix(constants.get("collisions"));
+		JsonValue slapjv = constants.get("slap");
+		if (slapjv != null) {
+			slapReach = slapjv.getFloat("reach", SLAP_REACH);
+			slapHalfArc = slapjv.getFloat("arc", SLAP_ARC)*MathUtils.degreesToRadians/2;
+			slapDuration = slapjv.getFloat("duration", SLAP_DURATION);
+		}
+		JsonValue profjv = constants.get("profiler");
+		String csv = profjv == null ? "" : profjv.getString("csv", "");
+		profileFile = csv.isEmpty() ? null : csv;
+		if (profileFile != null) {
+			profiler.setTracking(true);
+		}
+		// One navigation grid for the whole level, shared by every chicken
 		grid = new Grid(canvas.getWidth(), canvas.getHeight(), scale);
 		String wname = "wall";
 	    JsonValue walljv = constants.get("walls");
@@ -397,7 +530,9 @@ public class GameController implements ContactListener, Screen {
 			obj.setDrawScale(scale);
 			obj.setTexture(earthTile);
 			obj.setName(wname+ii);
+			obj.setEntityType(EntityType.WALL);
 			addObject(obj);
+			grid.setObstacle(walljv.get(ii).asFloatArray());
 	    }
 
 	    //put some other platforms in the world
@@ -413,8 +548,18 @@ public class GameController implements ContactListener, Screen {
 			obj.setDrawScale(scale);
 			obj.setTexture(earthTile);
 			obj.setName(pname+ii);
+			obj.setEntityType(EntityType.PLATFORM);
 			addObject(obj);
+			grid.setObstacle(platjv.get(ii).asFloatArray());
 	    }
+		// Levels with large hordes can have every chicken follow one flow field instead
+		JsonValue navjv = constants.get("navigation");
+		planner = new PathPlanner(new GridSearch(grid), navjv.getInt("replan_budget", 8), navjv.getInt("replan_distance", 2));
+		if (navjv.getString("mode", "astar").equals("flow")) {
+			flowField = new FlowField(grid);
+		} else {
+			flowField = null;
+		}
 		//TODO add stove to JSON
 
 		//trap places
@@ -445,6 +590,7 @@ public class GameController implements ContactListener, Screen {
 		stove.setDrawScale(scale);
 		stove.setTexture(stoveTexture);
 		addObject(stove);
+		bakeStatic(stove);
 
 		volume = constants.getFloat("volume", 1.0f);
 
@@ -482,6 +628,109 @@ public class GameController implements ContactListener, Screen {
 
 	}
 
+	/**
+	 * Returns true if the object is only drawn as part of the baked static geometry
+	 *
+	 * The walls, the platforms and the trap spots never move or change, so they are
+	 * baked once per level instead of drawn every frame.
+	 *
+	 * @param obj	The object to check
+	 *
+	 * @return true if the object is only drawn as part of the baked static geometry
+	 */
+	private static boolean isStatic(Obstacle obj) {
+		EntityType type = obj.getEntityType();
+		return type == EntityType.WALL || type == EntityType.PLATFORM || type == EntityType.TRAP_SPOT;
+	}
+
+	/**
+	 * Bakes the static geometry of the level into the canvas
+	 *
+	 * The base of the stove is baked with the walls, platforms and trap spots.  The
+	 * stove itself still draws its lit tint and its label every frame.  This must be
+	 * called once all of those objects are added.
+	 *
+	 * @param stove	The stove of the level
+	 */
+	private void bakeStatic(Stove stove) {
+		canvas.beginStatic();
+		for (Obstacle obj : statics) {
+			obj.draw(canvas);
+		}
+		stove.drawBase(canvas);
+		canvas.endStatic();
+	}
+
+	/**
+	 * Creates the (empty) pools of recycled chickens and traps
+	 */
+	private void createPools() {
+		final float cwidth  = chickenTexture.getRegionWidth()/scale.x;
+		final float cheight = chickenTexture.getRegionHeight()/scale.y;
+		chickenPool = new ObstaclePool<Chicken>() {
+			@Override
+			protected Chicken newObject() {
+				Chicken enemy = new Chicken(constants.get("chicken"), 0, 0, cwidth, cheight, chef, parameterList[1]);
+				enemy.setDrawScale(scale);
+				enemy.setTexture(nuggetTexture);
+				enemy.setBarTexture(enemyHealthBarTexture);
+				return enemy;
+			}
+		};
+
+		trapPools = new TrapPool[Trap.type.values().length];
+		for (Trap.type t : Trap.type.values()) {
+			trapPools[t.ordinal()] = new TrapPool(t);
+		}
+	}
+
+	/**
+	 * Returns a removed object to its pool, or deactivates it if it is not pooled
+	 *
+	 * @param obj	The removed object
+	 */
+	private void recycle(Obstacle obj) {
+		switch (obj.getEntityType()) {
+			case CHICKEN:
+				chickenPool.recycle((Chicken)obj, world);
+				break;
+			case TRAP:
+				Trap trap = (Trap)obj;
+				trapPools[trap.getTrapType().ordinal()].recycle(trap, world);
+				break;
+			default:
+				obj.deactivatePhysics(world);
+				break;
+		}
+	}
+
+	/**
+	 * A pool of traps of a single type
+	 */
+	private class TrapPool extends ObstaclePool<Trap> {
+		/** The type of every trap in this pool */
+		private final Trap.type type;
+
+		/**
+		 * Creates an empty pool of traps of the given type
+		 *
+		 * @param type	The type of every trap in this pool
+		 */
+		public TrapPool(Trap.type type) {
+			this.type = type;
+		}
+
+		@Override
+		protected Trap newObject() {
+			float twidth = trapTexture.getRegionWidth()/scale.x;
+			float theight = trapTexture.getRegionHeight()/scale.y;
+			Trap trap = new Trap(constants.get("trap"), 0, 0, twidth, theight, type, Trap.shape.CIRCLE);
+			trap.setDrawScale(scale);
+			trap.setTexture(trapTexture);
+			return trap;
+		}
+	}
+
 	/*******************************************************************************************
 	 * COLLISIONS
 	 ******************************************************************************************/
@@ -497,10 +746,28 @@ public class GameController implements ContactListener, Screen {
 	 * this method to test if it is the "right" kind of collision.  In particular, we
 	 * use it to test if we made it to the win door.
 	 *
+	 * During a physics step the contact is only recorded, and handled once the step
+	 * is done (see {@link #handleBeginContact}).  Contacts reported at any other time
+	 * (such as when a body is created) are handled right away.
+	 *
 	 * @param contact The two bodies that collided
 	 */
 	public void beginContact(Contact contact){
-		collisionController.beginContact(contact, damageCalc());
+		if (stepping) {
+			contactBuffer.add(contact.getFixtureA(), contact.getFixtureB(), true);
+		} else {
+			handleBeginContact(contact.getFixtureA(), contact.getFixtureB());
+		}
+	}
+
+	/**
+	 * Handles the start of a collision, outside of the physics step
+	 *
+	 * @param fix1 The first fixture that collided
+	 * @param fix2 The second fixture that collided
+	 */
+	public void handleBeginContact(Fixture fix1, Fixture fix2) {
+		collisionController.beginContact(fix1, fix2);
 	}/* {
 
 		//TODO: Detect if a collision is with an enemy and have an appropriate interaction
@@ -511,10 +778,29 @@ public class GameController implements ContactListener, Screen {
 	 * This method is called when two objects cease to touch.  The main use of this method
 	 * is to determine when the characer is NOT on the ground.  This is how we prevent
 	 * double jumping.
+	 *
+	 * As with {@link #beginContact}, contacts reported during a physics step are
+	 * handled once the step is done (see {@link #handleEndContact}).
+	 *
+	 * @param contact The two bodies that separated
 	 */
 	public void endContact(Contact contact) {
+		if (stepping) {
+			contactBuffer.add(contact.getFixtureA(), contact.getFixtureB(), false);
+		} else {
+			handleEndContact(contact.getFixtureA(), contact.getFixtureB());
+		}
+	}
+
+	/**
+	 * Handles the end of a collision, outside of the physics step
+	 *
+	 * @param fix1 The first fixture that separated
+	 * @param fix2 The second fixture that separated
+	 */
+	public void handleEndContact(Fixture fix1, Fixture fix2) {
 		//TODO: Detect if collision is with an enemy and give appropriate interaction (if any needed)
-		collisionController.endContact(contact, sensorFixtures);
+		collisionController.endContact(fix1, fix2, sensorFixtures);
 		/*Fixture fix1 = contact.getFixtureA();
 		Fixture fix2 = contact.getFixtureB();
 
@@ -630,9 +916,15 @@ public class GameController implements ContactListener, Screen {
 		if (InputController.getInstance().didPause()){
 			paused = !paused;
 		}
+		profiler.begin(FrameProfiler.Phase.NAVIGATION);
+		if (flowField != null) {
+			flowField.update(chef.getX(), chef.getY());
+		}
 		for (AIController enemyAI: ai.values()){
 			enemyAI.update(dt);
 		}
+		planner.update();
+		profiler.end(FrameProfiler.Phase.NAVIGATION);
 		return !paused;
 	}
 	/**
@@ -657,6 +949,12 @@ public class GameController implements ContactListener, Screen {
 		if (input.didDebug()) {
 			debug = !debug;
 		}
+		// Toggle the profiler overlay
+		if (input.didProfile()) {
+			profiling = !profiling;
+			profiler.setTracking(profiling || profileFile != null);
+			profileRefresh = 0;
+		}
 		// Toggle grid
 		if (input.didGridToggle()) {
 			grid_toggle = !grid_toggle;
@@ -773,22 +1071,15 @@ public class GameController implements ContactListener, Screen {
 		if ((int)(Math.random() * (parameterList[3] + 1)) == 0) {
 			spawnChicken();
 		}
-		for (Obstacle obj : objects) {
-			//Remove a bullet if slap is complete
-			if (obj.isBullet() && (obj.getAngle() > Math.PI/8 || obj.getAngle() < Math.PI/8*-1)) {
-				removeBullet(obj);
-			}
-			if (obj.getName().equals("chicken")){
-				Chicken chick = ((Chicken) obj);
-				if (chick.isAttacking() && chick.getSoundCheck()) {
-					chickAttack.stop();
-					chickAttack.play(volume*0.5f);
-				}
+		updateSlap(dt);
+		for (int ii = 0; ii < chickenIndex.size(); ii++) {
+			Chicken chick = chickenIndex.get(ii);
+			if (chick.isAttacking() && chick.getSoundCheck()) {
+				chickAttack.stop();
+				chickAttack.play(volume*0.5f);
 			}
 		}
 
-		chef.applyForce();
-
 		//update temperature
 		if (chef.canCook() && (chef.getMovement() == 0f
 						&& chef.getVertMovement() == 0f
@@ -821,18 +1112,14 @@ public class GameController implements ContactListener, Screen {
 	 */
 	public void killChickens(){
 		//chickens = 0;
-		for (Obstacle obstacle: objects){
-			if (obstacle.getName().equals("chicken")){
-				removeChicken(obstacle);
-			}
+		for (int ii = 0; ii < chickenIndex.size(); ii++) {
+			removeChicken(chickenIndex.get(ii));
 		}
 	}
 	/**
 	 * Spawn a chicken somewhere in the world, then increments the number of chickens
 	 */
 	private void spawnChicken(){
-		float dwidth  = chickenTexture.getRegionWidth()/scale.x;
-		float dheight = chickenTexture.getRegionHeight()/scale.y;
 		float x = ((float)Math.random() * (spawn_xmax - spawn_xmin) + spawn_xmin);
 		float y = ((float)Math.random() * (spawn_ymax - spawn_ymin) + spawn_ymin);
 		float rand = (float)Math.random();
@@ -850,86 +1137,110 @@ public class GameController implements ContactListener, Screen {
 			y = spawn_ymax;
 		}
 
-		Chicken enemy;
-		enemy = new Chicken(constants.get("chicken"), x, y, dwidth, dheight, chef, parameterList[1]);
-		enemy.setDrawScale(scale);
-		enemy.setTexture(nuggetTexture);
-		enemy.setBarTexture(enemyHealthBarTexture);
+		Chicken enemy = chickenPool.obtain();
+		enemy.setPosition(x, y);
+		// The max health can be tuned in game, so refill to the current value
+		enemy.setMaxHealth(parameterList[1]);
+		enemy.reset();
 		addObject(enemy);
-		Grid grid = new Grid(canvas.getWidth(), canvas.getHeight(), scale);
-		ai.put(enemy, new AIController(enemy, chef, grid));
+		chickenIndex.insert(enemy);
+		ai.put(enemy, new AIController(enemy, chef, grid, planner, flowField));
+		Telemetry.chickenSpawned(x, y, ai.size);
 		//chickens ++;
 	}
 
 	/**
-	 * Add a new bullet to the world and send it in the right direction.
+	 * Starts a slap in the given direction
+	 *
+	 * A slap has no body.  Instead, every frame it is active it looks up the chickens
+	 * in its arc (see updateSlap).
 	 *
+	 * @param direction	The slap direction (1: N, 2: E, 3: S, 4: W)
 	 */
 	private void createSlap(int direction) {
-		//TODO: Slap needs to go through multiple enemies, specific arc still needs to be tweaked, probably best if in-game changing of variables is added
 		if (temp.getTemperature() == 0){
 			return;
 		} else{
 			temp.reduceTemp(1);
 		}
 
-		float radius = 8*bulletTexture.getRegionWidth() / (2.0f * scale.x);
-		float offset = 1f;
-		float angvel = 6f;
-		float ofratio = 0.7f;
-		BoxObstacle slap;
-		if (direction == 2 || direction == 4) {
-			slap = new BoxObstacle(chef.getX(), chef.getY(), radius, 0.1f);
-			slap.setSensor(true);
-			offset *= (direction == 2 ? 1 : -1);
-			slap.setX(chef.getX() + offset);
-			slap.setY(chef.getY() - offset*ofratio);
-			slap.setAngle((float)(-1*Math.PI/24));
-			slap.setAngularVelocity(angvel);
-		} else {
-			slap = new BoxObstacle(chef.getX(), chef.getY(), 0.1f, radius);
-			slap.setSensor(true);
-			offset *= (direction == 1 ? 1 : -1);
-			slap.setY(chef.getY() + offset);
-			slap.setX(chef.getX() - offset*ofratio);
-			slap.setAngle((float)(1*Math.PI/24));
-			slap.setAngularVelocity(-1*angvel);
-		}
-
-
-	    slap.setName("bullet");
-		slap.setDensity(0);
-	    slap.setDrawScale(scale);
-	    slap.setTexture(bulletTexture);
-	    Filter bulletFilter = new Filter();
-	    bulletFilter.groupIndex = -1;
-	    bulletFilter.categoryBits = 0x0002;
-	    slap.setFilterData(bulletFilter);
-	    slap.setBullet(true);
-	    slap.setGravityScale(0);
-		
-		// Compute position and velocity
-		float speed = 175;
-		if (direction == 2 || direction == 4) {
-			speed *= (direction == 2 ? 0.1f : -0.1f);
-			slap.setVY(speed);
-		} else {
-			speed *= (direction == 1 ? 0.1f : -0.1f);
-			slap.setVX(speed);
+		switch (direction) {
+			case 1:
+				slapAngle = MathUtils.PI/2;
+				break;
+			case 3:
+				slapAngle = -MathUtils.PI/2;
+				break;
+			case 4:
+				slapAngle = MathUtils.PI;
+				break;
+			default:
+				slapAngle = 0;
+				break;
 		}
-		addQueuedObject(slap);
+		slapTime = slapDuration;
+		slapHits.clear();
 		emptySlap.play(volume);
+	}
+
+	/**
+	 * Hits every chicken in the arc of the current slap
+	 *
+	 * The arc is queried in the chicken index, which holds the chicken positions after
+	 * the last physics step.  A chicken is hit if its hitbox overlaps the arc, and all
+	 * the chickens found are hit in one batch.  A slap hits any number of chickens, but
+	 * each at most once.
+	 *
+	 * @param dt	Number of seconds since last animation frame
+	 */
+	private void updateSlap(float dt) {
+		if (slapTime <= 0) {
+			return;
+		}
+		slapQuery.clear();
+		chickenIndex.queryArc(chef.getX(), chef.getY(), slapReach, slapAngle, slapHalfArc,
+							  Chicken.CHICK_HIT_BOX, slapQuery);
+		for (int ii = 0; ii < slapQuery.size; ii++) {
+			Chicken chick = slapQuery.get(ii);
+			if (!chick.isRemoved() && !slapHits.contains(chick, true)) {
+				slapHits.add(chick);
+				slapChicken(chick);
+			}
+		}
+		slapTime -= dt;
+		if (slapTime <= 0) {
+			slapTime = 0;
+			slapHits.clear();
+		}
+	}
 
+	/**
+	 * Applies the damage of a slap to a chicken
+	 *
+	 * @param chick	The chicken that was slapped
+	 */
+	private void slapChicken(Chicken chick) {
+		chick.takeDamage(damageCalc());
+		if (!chick.isAlive()) {
+			chick.markRemoved(true);
+		}
 	}
-	
+
 	/**
-	 * Remove a new bullet from the world.
+	 * Draws the current slap, sweeping across its arc
 	 *
-	 * @param  bullet   the bullet to remove
+	 * This must be called in the world pass.
 	 */
-	public void removeBullet(Obstacle bullet) {
-		//TODO: may need to alter similar to createBullet()
-	    bullet.markRemoved(true);
+	private void drawSlap() {
+		if (slapTime <= 0) {
+			return;
+		}
+		float sweep = slapHalfArc*(1-2*slapTime/slapDuration);
+		float angle = slapAngle+sweep;
+		float x = chef.getX()+MathUtils.cos(angle)*slapReach/2;
+		float y = chef.getY()+MathUtils.sin(angle)*slapReach/2;
+		canvas.queue(GameCanvas.Layer.EFFECTS, bulletTexture, Color.WHITE, bulletTexture.getRegionWidth()/2.0f, bulletTexture.getRegionHeight()/2.0f,
+					x*scale.x, y*scale.y, angle, 2, 2);
 	}
 
 	public void createTrap() {
@@ -939,12 +1250,12 @@ public class GameController implements ContactListener, Screen {
 	}
 
 	public void trapHelper(float x, float y, Trap.type t){
-		float twidth = trapTexture.getRegionWidth()/scale.x;
-		float theight = trapTexture.getRegionHeight()/scale.y;
-		Trap trap = new Trap(constants.get("trap"), chef.getX(), chef.getY(), twidth, theight, trapTypeSelected, Trap.shape.CIRCLE);
-		trap.setDrawScale(scale);
-		trap.setTexture(trapTexture);
+		Trap trap = trapPools[t.ordinal()].obtain();
+		trap.setPosition(x, y);
 		addObject(trap);
+		// Steer the chickens around (or towards) the new trap
+		JsonValue costs = constants.get("navigation").get("trap_costs");
+		trap.stampCost(grid, costs.getFloat(t.name().toLowerCase(), 0));
 //		trap = new Trap(constants.get("trap"), 20, 4, twidth, theight, Trap.type.TRAP_ONE, Trap.shape.SQUARE);
 //		trap.setDrawScale(scale);
 //		trap.setTexture(trapTexture);
@@ -980,7 +1291,15 @@ public class GameController implements ContactListener, Screen {
 	protected void addObject(Obstacle obj) {
 		assert inBounds(obj) : "Object is not in bounds";
 		objects.add(obj);
+		if (obj.getEntityType() == EntityType.CHICKEN) {
+			chickens.add((Chicken)obj);
+		} else if (isStatic(obj)) {
+			statics.add(obj);
+		}
+		obj.setFilterData(collisions.getFilter(obj.getEntityType()));
+		obj.setSensorFilterData(collisions.getSensorFilter(obj.getEntityType()));
 		obj.activatePhysics(world);
+		obj.snapshot();
 	}
 
 	/**
@@ -1020,29 +1339,74 @@ public class GameController implements ContactListener, Screen {
 	 * Processes game
 	 *
 	 * Once the update phase is over, but before we draw, we are ready to handle
-	 * game.  The primary method is the step() method in world.  This implementation
-	 * works for all applications and should not need to be overwritten.
+	 * game.  The simulation advances in fixed steps, no matter the frame rate.  The
+	 * frame time is banked, and we take as many steps as fit into it (up to a limit,
+	 * so that a long stall does not snowball).  What is left over is used to
+	 * interpolate the drawing between the last two physics states.
 	 *
 	 * @param dt	Number of seconds since last animation frame
 	 */
 	public void postUpdate(float dt) {
+		accumulator += dt;
+		int substeps = 0;
+		while (accumulator >= stepSize && substeps < maxSubsteps) {
+			step(stepSize);
+			accumulator -= stepSize;
+			substeps++;
+		}
+		// Drop any time we could not catch up on
+		if (accumulator >= stepSize) {
+			accumulator %= stepSize;
+		}
+		alpha = accumulator/stepSize;
+	}
+
+	/**
+	 * Advances the simulation by a single physics step
+	 *
+	 * This adds any queued objects, steps the Box2D world, and then garbage collects
+	 * and updates every object.
+	 *
+	 * @param dt	The length of the physics step in seconds
+	 */
+	private void step(float dt) {
 		// Add any objects created by actions
 		while (!addQueue.isEmpty()) {
 			addObject(addQueue.poll());
 		}
 
+		// Remember where everything was, for render interpolation
+		for (Obstacle obj : objects) {
+			obj.snapshot();
+		}
+
 		// Turn the game engine crank.
-		world.step(WORLD_STEP,WORLD_VELOC,WORLD_POSIT);
+		chef.applyForce();
+		profiler.begin(FrameProfiler.Phase.PHYSICS);
+		Object span = Telemetry.beginStep();
+		stepping = true;
+		world.step(dt,WORLD_VELOC,WORLD_POSIT);
+		stepping = false;
+		if (span != null) {
+			Telemetry.endStep(span, dt, world.getBodyCount(), world.getContactCount());
+		}
+		profiler.end(FrameProfiler.Phase.PHYSICS);
+
+		// Handle the contacts of the step in one pass, now that the world is unlocked
+		profiler.begin(FrameProfiler.Phase.CONTACTS);
+		contactBuffer.dispatch(this);
+		profiler.end(FrameProfiler.Phase.CONTACTS);
 
 		// Garbage collect the deleted objects.
 		// Note how we use the linked list nodes to delete O(1) in place.
 		// This is O(n) without copying.
+		profiler.begin(FrameProfiler.Phase.OBJECTS);
 		Iterator<PooledList<Obstacle>.Entry> iterator = objects.entryIterator();
 		while (iterator.hasNext()) {
 			PooledList<Obstacle>.Entry entry = iterator.next();
 			Obstacle obj = entry.getValue();
 			if (obj.isRemoved()) {
-				obj.deactivatePhysics(world);
+				recycle(obj);
 				entry.remove();
 			} else {
 				if(obj.isDirty()){
@@ -1053,6 +1417,74 @@ public class GameController implements ContactListener, Screen {
 				obj.update(dt);
 			}
 		}
+
+		// Drop the dead chickens from the registry, and rebuild the index from the rest.
+		// A recycled chicken stays marked as removed until it is spawned again.
+		chickenIndex.clear();
+		Iterator<PooledList<Chicken>.Entry> chicks = chickens.entryIterator();
+		while (chicks.hasNext()) {
+			PooledList<Chicken>.Entry entry = chicks.next();
+			Chicken chick = entry.getValue();
+			if (chick.isRemoved()) {
+				entry.remove();
+				// Dead chickens no longer think
+				AIController controller = ai.remove(chick);
+				if (controller != null) {
+					planner.cancel(controller);
+				}
+				Telemetry.chickenDespawned(chick.getX(), chick.getY(), ai.size);
+			} else {
+				chickenIndex.insert(chick);
+			}
+		}
+		profiler.end(FrameProfiler.Phase.OBJECTS);
+	}
+
+	/**
+	 * Draws the profiler overlay, with the p50, p95 and p99 time of each phase
+	 *
+	 * When allocations are tracked, it also shows the average bytes allocated by each
+	 * phase per frame, and the garbage collections since tracking was turned on.
+	 *
+	 * The percentiles are only recomputed a few times a second, since they need a
+	 * sort of the history.  This must be called in the interface pass.
+	 */
+	private void drawProfile() {
+		if (profileRefresh <= 0) {
+			FrameProfiler.Phase[] phases = FrameProfiler.Phase.values();
+			for (int ii = 0; ii < phases.length; ii++) {
+				profileText.setLength(0);
+				FrameProfiler.appendMillis(profileText, profiler.getPercentile(phases[ii], 50));
+				profileText.append(" / ");
+				FrameProfiler.appendMillis(profileText, profiler.getPercentile(phases[ii], 95));
+				profileText.append(" / ");
+				FrameProfiler.appendMillis(profileText, profiler.getPercentile(phases[ii], 99));
+				profileText.append(" ms");
+				if (profiler.isTracking()) {
+					profileText.append(", ");
+					AllocationMeter.appendBytes(profileText, profiler.getAverageAllocated(phases[ii]));
+				}
+				profileLabels[ii].setValue(profileText);
+			}
+			GcMonitor monitor = profiler.getGcMonitor();
+			profileText.setLength(0);
+			if (profiler.isTracking()) {
+				profileText.append(monitor.getCollections()).append(" collections, ");
+				profileText.append(monitor.getTotalTime()).append(" ms (max ");
+				profileText.append(monitor.getMaxTime()).append(" ms) since start");
+			} else {
+				profileText.append("not tracked");
+			}
+			profileGcLabel.setValue(profileText);
+			profileRefresh = PROFILE_REFRESH;
+		}
+		profileRefresh--;
+
+		canvas.drawText(profileHeader, 640, 520);
+		for (int ii = 0; ii < profileLabels.length; ii++) {
+			canvas.drawText(profileLabels[ii], 640, 506 - 14 * ii);
+		}
+		canvas.drawText(profileGcLabel, 640, 506 - 14 * profileLabels.length);
 	}
 
 	/**
@@ -1061,12 +1493,16 @@ public class GameController implements ContactListener, Screen {
 	 * For simple worlds, this method is enough by itself.  It will need
 	 * to be overriden if the world needs fancy backgrounds or the like.
 	 *
-	 * The method draws all objects in the order that they were added.
+	 * The frame is drawn as a world pass, a debug pass (if debugging) and an
+	 * interface pass.  The game objects queue their sprites, which the canvas sorts
+	 * by layer, depth and texture when the world pass ends.  The level geometry was
+	 * baked when the level was populated, and is drawn under everything else.  Text
+	 * is still drawn directly, so it ends up under the queued sprites.
 	 *
 	 * @param dt	Number of seconds since last animation frame
 	 */
 	public void draw(float dt) {
-		canvas.clear();
+		canvas.beginFrame();
 
 		String s = "";
 		switch (trapTypeSelected ){
@@ -1081,24 +1517,19 @@ public class GameController implements ContactListener, Screen {
 				break;
 		}
 
-		canvas.begin();
-		canvas.drawText("Trap Selected: " + s, new BitmapFont(), 100, 540);
+		canvas.beginPass(GameCanvas.FramePass.WORLD);
+		trapLabel.setValue(s);
+		canvas.drawText(trapLabel, 100, 540);
 		// Draws out all the parameters and their values
-		String[] parameters = {"player max health: ", "chicken max health: ", "base damage (player): ", "spawn rate: ", "initial spawn: ",
-				"lure durability: ", "slow durability: ", "fire linger durability: ", "fire damage durability: ", "player speed: ",
-				"enemy speed: ", "invulnerability time: ", "invincibility: "};
-		BitmapFont pFont = new BitmapFont();
 		for (int i = 0; i < parameterList.length; i++) {
-			if (i == parameterSelected) {
-				pFont.setColor(Color.YELLOW);
-			} else {
-				pFont.setColor(Color.WHITE);
-			}
+			TextLabel label = parameterLabels[i];
+			label.setColor(i == parameterSelected ? Color.YELLOW : Color.WHITE);
 			if (i == 12) {
-				canvas.drawText(parameters[i] + (parameterList[i] == 1? "on":"off"), pFont, 40, 520-14*i);
+				label.setValue(parameterList[i] == 1 ? "on" : "off");
 			} else {
-				canvas.drawText(parameters[i] + parameterList[i], pFont, 40, 520 - 14 * i);
+				label.setValue(parameterList[i]);
 			}
+			canvas.drawText(label, 40, 520 - 14 * i);
 		}
 //		if ((chef.canCook() && (chef.getMovement() == 0f
 //				&& chef.getVertMovement() == 0f
@@ -1109,47 +1540,44 @@ public class GameController implements ContactListener, Screen {
 //		}
 
 		for(Obstacle obj : objects) {
+			if (isStatic(obj)) {
+				continue;
+			}
+			obj.interpolate(alpha);
 			obj.draw(canvas);
 		}
-
-		canvas.end();
+		drawSlap();
 
 		if (debug) {
-			canvas.beginDebug();
+			canvas.beginPass(GameCanvas.FramePass.DEBUG);
 			for(Obstacle obj : objects) {
 				obj.drawDebug(canvas);
 			}
 			if (grid_toggle) {
 				grid.drawDebug(canvas);
 			}
-			canvas.endDebug();
 		}
 
-		//TODO add section for UI
 		//draw temp bar
-		canvas.begin();
-
+		canvas.beginPass(GameCanvas.FramePass.UI);
 		temp.draw(canvas);
-		canvas.end();
+		if (profiling) {
+			drawProfile();
+		}
 
 		if (paused){
 			displayFont.setColor(Color.GREEN);
-			canvas.begin();
 			canvas.drawTextCentered("PAUSED!", displayFont, 0.0f);
-			canvas.end();
 		}
 		// Final message
 		if (complete && !failed) {
 			displayFont.setColor(Color.YELLOW);
-			canvas.begin(); // DO NOT SCALE
 			canvas.drawTextCentered("VICTORY!", displayFont, 0.0f);
-			canvas.end();
 		} else if (failed) {
 			displayFont.setColor(Color.RED);
-			canvas.begin(); // DO NOT SCALE
 			canvas.drawTextCentered("FAILURE!", displayFont, 0.0f);
-			canvas.end();
 		}
+		canvas.endFrame();
 	}
 
 	/**
@@ -1253,6 +1681,35 @@ public class GameController implements ContactListener, Screen {
 		return active;
 	}
 
+	/**
+	 * Returns the Box2D world of the current level
+	 *
+	 * @return the Box2D world of the current level
+	 */
+	public World getWorld() {
+		return world;
+	}
+
+	/**
+	 * Returns the length of a physics step in seconds
+	 *
+	 * A headless run can pass this to postUpdate to take exactly one step per tick.
+	 *
+	 * @return the length of a physics step in seconds
+	 */
+	public float getStepSize() {
+		return stepSize;
+	}
+
+	/**
+	 * Returns the number of chickens alive after the last physics step
+	 *
+	 * @return the number of chickens alive after the last physics step
+	 */
+	public int getChickenCount() {
+		return chickenIndex.size();
+	}
+
 	/**
 	 * Returns the canvas associated with this controller
 	 *
@@ -1276,6 +1733,29 @@ public class GameController implements ContactListener, Screen {
 		this.canvas = canvas;
 		this.scale.x = canvas.getWidth()/bounds.getWidth();
 		this.scale.y = canvas.getHeight()/bounds.getHeight();
+
+		BitmapFont font = canvas.getDefaultFont();
+		trapLabel = new TextLabel(font, "Trap Selected: ");
+		parameterLabels = new TextLabel[PARAMETER_NAMES.length];
+		for (int ii = 0; ii < parameterLabels.length; ii++) {
+			parameterLabels[ii] = new TextLabel(font, PARAMETER_NAMES[ii]);
+		}
+		FrameProfiler.Phase[] phases = FrameProfiler.Phase.values();
+		profileHeader = new TextLabel(font, "p50 / p95 / p99, avg alloc");
+		profileGcLabel = new TextLabel(font, "gc: ");
+		profileLabels = new TextLabel[phases.length];
+		for (int ii = 0; ii < profileLabels.length; ii++) {
+			profileLabels[ii] = new TextLabel(font, phases[ii].name().toLowerCase()+": ");
+		}
+	}
+
+	/**
+	 * Returns the timings of the last few frames
+	 *
+	 * @return the timings of the last few frames
+	 */
+	public FrameProfiler getProfiler() {
+		return profiler;
 	}
 
 	/**
@@ -1300,9 +1780,17 @@ public class GameController implements ContactListener, Screen {
 		}
 		objects.clear();
 		addQueue.clear();
+		chickens.clear();
+		statics.clear();
+		ai.clear();
+		chickenIndex.clear();
 		world.dispose();
+		// The sensor shapes are shared by every chicken, so they go with the mode
+		Chicken.disposeShapes();
 		objects = null;
 		addQueue = null;
+		chickens = null;
+		statics = null;
 		bounds = null;
 		scale  = null;
 		world  = null;
@@ -1319,11 +1807,34 @@ public class GameController implements ContactListener, Screen {
 	 */
 	public void render(float delta) {
 		if (active) {
-			if (preUpdate(delta)) {
-				update(delta); // This is the one that must be defined.
-				postUpdate(delta);
-			}
+			profiler.beginFrame();
+			simulate(delta);
+			profiler.begin(FrameProfiler.Phase.DRAW);
 			draw(delta);
+			profiler.end(FrameProfiler.Phase.DRAW);
+			profiler.endFrame();
+		}
+	}
+
+	/**
+	 * Advances the game by one frame without drawing it
+	 *
+	 * This calls preUpdate(), update() and postUpdate(), timing each with the
+	 * profiler.  The frame itself must be started and ended by the caller.
+	 *
+	 * @param delta Number of seconds since last animation frame
+	 */
+	public void simulate(float delta) {
+		profiler.begin(FrameProfiler.Phase.INPUT);
+		boolean proceed = preUpdate(delta);
+		profiler.end(FrameProfiler.Phase.INPUT);
+		if (proceed) {
+			profiler.begin(FrameProfiler.Phase.UPDATE);
+			update(delta); // This is the one that must be defined.
+			profiler.end(FrameProfiler.Phase.UPDATE);
+			profiler.begin(FrameProfiler.Phase.STEP);
+			postUpdate(delta);
+			profiler.end(FrameProfiler.Phase.STEP);
 		}
 	}
 
@@ -0,0 +1,131 @@
+package code.game.controllers;
+
+import code.game.models.GridSearch;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+/** This class decides which chickens get to search for a new path each frame.
+ *  A chicken keeps following its cached path until the path goes stale, and then
+ *  asks the planner for a new one.  The planner runs at most a fixed number of
+ *  A* searches per frame, so a large horde spreads its searches over several
+ *  frames instead of spiking a single one.
+ *
+ *  The chickens with the oldest paths go first, and a chicken with no path at all
+ *  goes before any of them.  Chickens with paths of the same age go in the order
+ *  that they asked.  A chicken that was just served has the newest path, so it
+ *  waits behind everyone else until the others have had their turn.
+ *  */
+public class PathPlanner {
+    /** The A* search (shared by every chicken) */
+    private GridSearch search;
+    /** How far (in tiles) the target may move before a path is found again */
+    private int distance;
+    /** The maximum number of searches per frame */
+    private int budget;
+    /** The chickens waiting for a new path, oldest path first */
+    private PriorityQueue<AIController> waiting;
+    /** The number of times the planner has run */
+    private int frame;
+    /** The number of requests so far */
+    private long requests;
+
+    /** Creates a new PathPlanner
+     *
+     * @param search    The search used to perform A* pathfinding
+     * @param budget    The maximum number of searches per frame
+     * @param distance  How far (in tiles) the target may move before a path is found again
+     * */
+    public PathPlanner(GridSearch search, int budget, int distance){
+        this.search = search;
+        this.budget = budget;
+        this.distance = distance;
+        waiting = new PriorityQueue<>(16, new Comparator<AIController>() {
+            @Override
+            public int compare(AIController a, AIController b) {
+                if (a.getPathFrame() != b.getPathFrame()) {
+                    return a.getPathFrame() < b.getPathFrame() ? -1 : 1;
+                }
+                return Long.compare(a.getRequestOrder(), b.getRequestOrder());
+            }
+        });
+    }
+
+    /**
+     * Returns the A* search shared by every chicken
+     *
+     * @return the A* search
+     */
+    public GridSearch getSearch() { return search; }
+
+    /**
+     * Returns how far (in tiles) the target may move before a path is found again
+     *
+     * @return how far the target may move before a path is found again
+     */
+    public int getDistance() { return distance; }
+
+    /**
+     * Returns the maximum number of searches per frame
+     *
+     * @return the maximum number of searches per frame
+     */
+    public int getBudget() { return budget; }
+
+    /**
+     * Returns the number of times the planner has run
+     *
+     * Paths are stamped with this, so that the oldest paths are found again first.
+     *
+     * @return the number of times the planner has run
+     */
+    public int getFrame() { return frame; }
+
+    /**
+     * Returns the number of chickens waiting for a new path
+     *
+     * @return the number of chickens waiting for a new path
+     */
+    public int getWaiting() { return waiting.size(); }
+
+    /**
+     * Asks for a new path for the given chicken. A chicken that is already waiting
+     * keeps its place.
+     *
+     * The age of the path of a waiting chicken cannot change, since only the planner
+     * finds it a new one, so its place in the queue stays valid.
+     *
+     * @param controller    The controller of the chicken
+     */
+    public void request(AIController controller) {
+        if (!controller.isWaiting()) {
+            controller.setWaiting(true);
+            controller.setRequestOrder(requests++);
+            waiting.add(controller);
+        }
+    }
+
+    /**
+     * Removes the given chicken from the queue (e.g. because it died)
+     *
+     * @param controller    The controller of the chicken
+     */
+    public void cancel(AIController controller) {
+        if (controller.isWaiting()) {
+            controller.setWaiting(false);
+            waiting.remove(controller);
+        }
+    }
+
+    /**
+     * Finds new paths for the chickens with the oldest paths, up to the budget
+     */
+    public void update() {
+        frame++;
+        for (int ii = 0; ii < budget && !waiting.isEmpty(); ii++) {
+            AIController controller = waiting.poll();
+            controller.setWaiting(false);
+            controller.AStar();
+        }
+    }
+}
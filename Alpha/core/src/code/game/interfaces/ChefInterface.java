@@ -1,6 +1,5 @@
 package code.game.interfaces;
 
-import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 
 public interface ChefInterface {
@@ -69,7 +68,7 @@ public interface ChefInterface {
      */
     void setTrap(boolean bln);
 
-    void setTexture(Texture texture);
+    void setTexture(TextureRegion texture);
 
     /**
      * Returns if the character is alive.
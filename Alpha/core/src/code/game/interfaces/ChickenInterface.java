@@ -2,7 +2,6 @@ package code.game.interfaces;
 
 import code.game.models.Chef;
 import code.game.models.Trap;
-import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.Vector2;
 
@@ -50,7 +49,7 @@ public interface ChickenInterface {
 
     public void setChaseSpeed(float spd);
 
-    public void setTexture(Texture texture);
+    public void setTexture(TextureRegion texture);
 
     public void setBarTexture(TextureRegion texture);
 
@@ -1,6 +1,5 @@
 package code.game.interfaces;
 
-import com.badlogic.gdx.physics.box2d.Contact;
 import com.badlogic.gdx.physics.box2d.Fixture;
 import com.badlogic.gdx.utils.ObjectSet;
 
@@ -12,9 +11,10 @@ public interface CollisionControllerInterface {
      * this method to test if it is the "right" kind of collision.  In particular, we
      * use it to test if we made it to the win door.
      *
-     * @param contact The two bodies that collided
+     * @param fix1 The first fixture that collided
+     * @param fix2 The second fixture that collided
      */
-    public void beginContact(Contact contact, float potential_dmg);
+    public void beginContact(Fixture fix1, Fixture fix2);
 
     /**
      * Callback method for the start of a collision
@@ -22,6 +22,10 @@ public interface CollisionControllerInterface {
      * This method is called when two objects cease to touch.  The main use of this method
      * is to determine when the characer is NOT on the ground.  This is how we prevent
      * double jumping.
+     *
+     * @param fix1 The first fixture that separated
+     * @param fix2 The second fixture that separated
+     * @param sensorFixtures The fixtures touching the chef sensor
      */
-    public void endContact(Contact contact, ObjectSet<Fixture> sensorFixtures);
+    public void endContact(Fixture fix1, Fixture fix2, ObjectSet<Fixture> sensorFixtures);
 }
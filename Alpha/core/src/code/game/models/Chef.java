@@ -2,8 +2,8 @@
 package code.game.models;
 
 import code.game.interfaces.ChefInterface;
+import code.game.models.obstacle.EntityType;
 import code.util.FilmStrip;
-import com.badlogic.gdx.graphics.g2d.BitmapFont;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.*;
 import com.badlogic.gdx.graphics.*;
@@ -71,8 +71,6 @@ public class Chef extends GameObject implements ChefInterface {
 
 	/**The current health of the player, >= 0*/
 	private int health;
-	/** The font used to draw text on the screen*/
-	private static final BitmapFont font = new BitmapFont();
 	/** X offset for health display */
 	private final float X_HEALTH = 935;
 	/** Y offset for health display */
@@ -133,6 +131,7 @@ public class Chef extends GameObject implements ChefInterface {
 		shootCooldown = 0;
 		trapCooldown = 0;
 		setName("chef");
+		setEntityType(EntityType.CHEF);
 		isTrap = false;
 		canCook = false;
 	}
@@ -233,8 +232,12 @@ public class Chef extends GameObject implements ChefInterface {
 	 */
 	public void setTrap(boolean bln) { isTrap = bln; }
 
-	//TODO: comment
-	public void setTexture(Texture texture) {
+	/**
+	 * Sets the animation filmstrip of the chef
+	 *
+	 * @param texture	The filmstrip image (a texture or an atlas region)
+	 */
+	public void setTexture(TextureRegion texture) {
 		animator = new FilmStrip(texture, 2, 5);
 		origin = new Vector2(animator.getRegionWidth()/2.0f + 10, animator.getRegionHeight()/2.0f + 10);
 	}
@@ -374,8 +377,7 @@ public class Chef extends GameObject implements ChefInterface {
 		FixtureDef sensorDef = new FixtureDef();
 		sensorDef.density = data.getFloat("density",0);
 		sensorDef.isSensor = true;
-		sensorDef.filter.groupIndex = -1;
-		sensorDef.filter.categoryBits =  0x0002;
+		applySensorFilter(sensorDef);
 		sensorShape = new PolygonShape();
 		JsonValue sensorjv = data.get("sensor");
 		sensorShape.setAsBox(sensorjv.getFloat("shrink",0)*getWidth()/2.0f,
@@ -459,21 +461,18 @@ public class Chef extends GameObject implements ChefInterface {
 	public void draw(GameCanvas canvas) {
 		float effect = faceRight ? 1.0f : -1.0f;
 		if (!isStunned() || ((int)(invuln_counter * 10)) % 2 == 0) {
-			canvas.draw(animator, Color.WHITE, origin.x, origin.y, getX() * drawScale.x, getY() * drawScale.y + 20, getAngle(), effect / 10, 0.1f);
+			canvas.queue(GameCanvas.Layer.ACTORS, animator, Color.WHITE, origin.x, origin.y, getDrawX() * drawScale.x, getDrawY() * drawScale.y + 20, getDrawAngle(), effect / 10, 0.1f);
 		}
 
 		//canvas.draw(animator,Color.WHITE,origin.x,origin.y,getX()*drawScale.x,getY()*drawScale.y+20,getAngle(),effect/10,0.1f);
 		//canvas.drawText("Health: " + health, font, XOFFSET, YOFFSET);
-		//draw health
+		//draw health (queued as an effect, so that no sprite covers it)
 		float x = X_HEALTH;
 		float y = Y_HEALTH;
 		for (int i = 1; i <= max_health; i++){
-			if(i <= health){
-				canvas.draw(healthTexture, Color.WHITE, x, y, HEART_SIZE, HEART_SIZE);
-			}
-			else {
-				canvas.draw(noHealthTexture, Color.WHITE, x, y, HEART_SIZE, HEART_SIZE);
-			}
+			TextureRegion heart = i <= health ? healthTexture : noHealthTexture;
+			canvas.queue(GameCanvas.Layer.EFFECTS, heart, Color.WHITE, 0, 0, x, y, 0,
+						 (float)HEART_SIZE/heart.getRegionWidth(), (float)HEART_SIZE/heart.getRegionHeight());
 			y -= HEART_SIZE + HEART_SIZE/3;
 		}
 	}
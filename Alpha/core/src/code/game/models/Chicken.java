@@ -4,26 +4,30 @@ import code.game.interfaces.ChickenInterface;
 import code.game.models.obstacle.CapsuleObstacle;
 import code.game.models.obstacle.Obstacle;
 import code.util.FilmStrip;
+import code.util.HordeBatch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.*;
 import com.badlogic.gdx.graphics.*;
 import com.badlogic.gdx.physics.box2d.*;
 
 import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.Pool;
 //import edu.cornell.gdiac.physics.*;
 import code.game.models.obstacle.*;
 import code.util.FilmStrip;
 import code.game.views.GameCanvas;
 
-public class Chicken extends GameObject implements ChickenInterface {
+public class Chicken extends GameObject implements ChickenInterface, Pool.Poolable {
     //TODO: Implement the Enemy Chicken and its methods, feel free to add or remove methods as needed
     ///////// Currently only dude methods which I thought were important are included, they will likely need to be
     ///////// altered or removed, but should provide a good base to start with.
 
     /** The initializing data (to avoid magic numbers) */
     private JsonValue data;
-    /** The physics shape of this object */
-    private CircleShape sensorShape;
+    /** The shape of the hitbox sensor, shared by every chicken */
+    private static CircleShape sensorShape;
+    /** The shape of the attack sensor, shared by every chicken */
+    private static CircleShape attackHit;
     /** The player character that the enemy will follow
      * We would probably want an AI Controller to handle this, but enemy movement is
      * pretty simple for the prototype */
@@ -77,9 +81,14 @@ public class Chicken extends GameObject implements ChickenInterface {
 
     private float ATTACK_DUR = 0.2f;
 
-    private CircleShape attackHit;
+    private static final float ATTACK_RADIUS = 1.5f;
 
-    private float ATTACK_RADIUS = 1.5f;
+    /** The attack sensor, created once and switched on and off by its filter */
+    private Fixture attackFixture;
+    /** The filter of the attack sensor (cached to avoid allocation) */
+    private Filter attackFilter = new Filter();
+    /** The mask of the attack sensor when it is switched on */
+    private short attackMask;
 
     protected FilmStrip animator;
     /** Reference to texture origin */
@@ -93,7 +102,14 @@ public class Chicken extends GameObject implements ChickenInterface {
     /** Texture for chicken healthbar */
     private TextureRegion healthBar;
 
-    private float CHICK_HIT_BOX = 0.8f;
+    /** The radius of the chicken hitbox (touched by the chef, and overlapped by slaps) */
+    public static final float CHICK_HIT_BOX = 0.8f;
+    /** The scale of the chicken sprite */
+    private static final float SPRITE_SCALE = 0.25f;
+    /** The offset of the health bar from the chicken (in pixels) */
+    private static final float BAR_OFFSET_X = -17, BAR_OFFSET_Y = 40;
+    /** The scale of the full health bar */
+    private static final float BAR_SCALE_X = 0.08f, BAR_SCALE_Y = 0.025f;
 
     /** Whether the chicken movement is beign controlled by a force (otherwise a velocity)*/
     private Boolean isBeingForced = false;
@@ -128,6 +144,7 @@ public class Chicken extends GameObject implements ChickenInterface {
         setFriction(data.getFloat("friction", 0));  /// IT WILL STICK TO WALLS IF YOU FORGET
         setFixedRotation(true);
         setName("chicken");
+        setEntityType(EntityType.CHICKEN);
         setSensorName("chickenSensor");
         this.target = player;
         this.player = player;
@@ -173,29 +190,100 @@ public class Chicken extends GameObject implements ChickenInterface {
      * @return true if object allocation succeeded
      */
     public boolean activatePhysics(World world) {
-        // create the box from our superclass
+        // create the box from our superclass (a reused body keeps its sensor)
+        boolean reused = isParked();
         if (!super.activatePhysics(world)) {
             return false;
+        } else if (reused) {
+            return true;
+        }
+        // Box2D copies the shape into each fixture, so every chicken can share one
+        if (sensorShape == null) {
+            sensorShape = new CircleShape();
+            sensorShape.setRadius(CHICK_HIT_BOX);
+            attackHit = new CircleShape();
+            attackHit.setRadius(ATTACK_RADIUS);
         }
-        // Ground Sensor
-        // -------------
-        // Previously used to detect double-jumps, but also allows us to see hitboxes
-        Vector2 sensorCenter = new Vector2(0, -getHeight() / 2);
+
+        // Hitbox sensor
         FixtureDef sensorDef = new FixtureDef();
         sensorDef.density = data.getFloat("density",0);
         sensorDef.isSensor = true;
-        sensorShape = new CircleShape();
-        sensorShape.setRadius(CHICK_HIT_BOX);
+        applySensorFilter(sensorDef);
         sensorDef.shape = sensorShape;
-
-        // Ground sensor to represent our feet
         Fixture sensorFixture = body.createFixture( sensorDef );
         sensorFixture.setUserData(getSensorName());
 
+        // Attack sensor, which starts switched off (it has no mass, so toggling it is cheap)
+        FixtureDef attack = new FixtureDef();
+        attack.isSensor = true;
+        applySensorFilter(attack);
+        attack.shape = attackHit;
+        attackFixture = body.createFixture(attack);
+        attackFixture.setUserData("nugAttack");
+        attackFilter.categoryBits = attack.filter.categoryBits;
+        attackFilter.groupIndex = attack.filter.groupIndex;
+        // Only the chef cares about an attack (walls and traps still see the hitbox)
+        attackMask = (short)(attack.filter.maskBits & EntityType.CHEF.getCategory());
+        setHitboxOut(false);
 
         return true;
     }
 
+    /**
+     * Destroys the physics Body(s) of this object if applicable,
+     * removing them from the world.
+     *
+     * The attack sensor is destroyed with the body, so it is forgotten here.
+     *
+     * @param world Box2D world that stores body
+     */
+    public void deactivatePhysics(World world) {
+        super.deactivatePhysics(world);
+        attackFixture = null;
+    }
+
+    /**
+     * Disposes the sensor shapes shared by every chicken.
+     *
+     * Box2D copies a shape into each fixture, so existing chickens are not affected.
+     * The next chicken to create its sensors makes the shapes again.
+     */
+    public static void disposeShapes() {
+        if (sensorShape != null) {
+            sensorShape.dispose();
+            sensorShape = null;
+            attackHit.dispose();
+            attackHit = null;
+        }
+    }
+
+    /**
+     * Restores this chicken to the state of a freshly spawned one.
+     *
+     * This is called when the chicken is returned to its pool.
+     */
+    public void reset() {
+        health = max_health;
+        target = player;
+        invuln_counter = INVULN_TIME;
+        sideways_counter = SIDEWAYS_TIME;
+        stop_counter = STOP_TIME;
+        hit = false;
+        finishA = false;
+        soundCheck = true;
+        attack_timer = -1f;
+        attack_charge = 0f;
+        setHitboxOut(false);
+        slow = 1f;
+        status_timer = -1.0f;
+        cookin = false;
+        isBeingForced = false;
+        isStunned = false;
+        isInvisible = false;
+        forceCache.setZero();
+    }
+
     /**
      * Applies the force to the body of this chicken
      *
@@ -265,23 +353,13 @@ public class Chicken extends GameObject implements ChickenInterface {
          if (attack_charge == ATTACK_CHARGE){
          attack_timer = MathUtils.clamp(attack_timer - dt, 0, ATTACK_DUR);
          if (!hitboxOut) {
-         FixtureDef attack = new FixtureDef();
-         attack.density = 0.1f;
-         attack.isSensor = true;
-         attackHit = new CircleShape();
-         attackHit.setRadius(ATTACK_RADIUS);
-         attack.shape = attackHit;
-
-         Fixture chickAttack = body.createFixture(attack);
-         chickAttack.setUserData("nugAttack");
-
-         hitboxOut = true;
+         setHitboxOut(true);
          }
          }
          if (attack_timer == 0f) {
          attack_charge = 0f;
          attack_timer = ATTACK_DUR;
-         hitboxOut = false;
+         setHitboxOut(false);
          soundCheck = true;
          if (finishA){
          attack_timer = -1f;
@@ -327,7 +405,7 @@ public class Chicken extends GameObject implements ChickenInterface {
     public void startAttack() {
         attack_timer = ATTACK_DUR;
         attack_charge = 0f;
-        hitboxOut = true;
+        setHitboxOut(true);
     }
     //TODO: comment
     public void stopAttack() {
@@ -337,14 +415,35 @@ public class Chicken extends GameObject implements ChickenInterface {
     public boolean isAttacking(){
         return hitboxOut;
     }
+
+    /**
+     * Switches the attack sensor on or off
+     *
+     * The sensor is never destroyed.  Instead, it is switched off by masking out every
+     * collision.  Box2D then just refilters its contacts, without creating or destroying
+     * a fixture or a broadphase proxy.
+     *
+     * @param value whether the attack sensor is on
+     */
+    private void setHitboxOut(boolean value) {
+        hitboxOut = value;
+        if (attackFixture != null) {
+            attackFilter.maskBits = value ? attackMask : 0;
+            attackFixture.setFilterData(attackFilter);
+        }
+    }
     //TODO: comment
     public boolean chasingPlayer(Chef p) { return target.equals(p); }
     //TODO: comment
     public void setChaseSpeed(float spd){
         chaseSpeed = spd;
     }
-    //TODO: comment
-    public void setTexture(Texture texture) {
+    /**
+     * Sets the animation filmstrip of the chicken
+     *
+     * @param texture   The filmstrip image (a texture or an atlas region)
+     */
+    public void setTexture(TextureRegion texture) {
         animator = new FilmStrip(texture, 3, 5);
         origin = new Vector2(animator.getRegionWidth()/2.0f, animator.getRegionHeight()/2.0f);
     }
@@ -356,13 +455,24 @@ public class Chicken extends GameObject implements ChickenInterface {
     /**
      * Draws the physics object.
      *
+     * The chicken is added to the horde of the canvas, which draws every chicken
+     * without a transform per sprite.  Every chicken has the same textures, so the
+     * first chicken added each pass also sets the look of the horde.  Chickens do
+     * not rotate, so the angle is ignored.
+     *
      * @param canvas Drawing context
      */
     public void draw(GameCanvas canvas) {
         if (!isInvisible) {
-            canvas.draw(healthBar, Color.FIREBRICK, 0, origin.y, getX() * drawScale.x-17, getY() * drawScale.y+40, getAngle(), 0.08f, 0.025f);
-            canvas.draw(healthBar, Color.GREEN,     0, origin.y, getX() * drawScale.x-17, getY() * drawScale.y+40, getAngle(), 0.08f*(health/max_health), 0.025f);
-            canvas.draw(animator, (status_timer >= 0) ? Color.FIREBRICK : Color.WHITE, origin.x, origin.y, getX() * drawScale.x, getY() * drawScale.y, getAngle(), 0.25f, 0.25f);
+            HordeBatch horde = canvas.getHorde();
+            if (horde.size() == 0) {
+                horde.setSprite(animator, -origin.x*SPRITE_SCALE, -origin.y*SPRITE_SCALE,
+                                animator.getRegionWidth()*SPRITE_SCALE, animator.getRegionHeight()*SPRITE_SCALE);
+                horde.setBar(healthBar, Color.FIREBRICK, Color.GREEN, BAR_OFFSET_X, BAR_OFFSET_Y-origin.y*BAR_SCALE_Y,
+                             healthBar.getRegionWidth()*BAR_SCALE_X, healthBar.getRegionHeight()*BAR_SCALE_Y);
+            }
+            horde.add(getDrawX() * drawScale.x, getDrawY() * drawScale.y, animator,
+                      (status_timer >= 0) ? Color.FIREBRICK : Color.WHITE, health/max_health);
         }
     }
 
@@ -377,7 +487,7 @@ public class Chicken extends GameObject implements ChickenInterface {
         super.drawDebug(canvas);
         if (sensorShape != null) {
             canvas.drawPhysics(sensorShape, Color.RED, getX(), getY(), drawScale.x, drawScale.y);
-            if (hitboxOut && attackHit != null) {
+            if (hitboxOut) {
                 canvas.drawPhysics(attackHit, Color.RED, getX(), getY(), drawScale.x, drawScale.y);
             }
         }
@@ -399,7 +509,7 @@ public class Chicken extends GameObject implements ChickenInterface {
             attack_timer = -1f;
             attack_charge = -1f;
             //invuln_counter = 0;
-            hitboxOut = false;
+            setHitboxOut(false);
             hit = true;
             isStunned = true;
         }
@@ -0,0 +1,64 @@
+package code.game.models;
+
+/**
+ * A field of directions towards a single tile of a {@link Grid}.
+ *
+ * Every chicken chasing the chef is headed for the same tile, so instead of one A*
+ * search per chicken, the field floods the grid once outwards from that tile.  The
+ * next step for any chicken is then a single lookup, however many chickens there
+ * are.  The field is only rebuilt when its goal moves to another tile, or when the
+ * trap costs on the grid change.
+ */
+public class FlowField {
+    /** The grid covered by this field */
+    private Grid grid;
+    /** The flood that stores the next step for every tile */
+    private GridSearch search;
+    /** The tile that the field leads to (null if the field is not built) */
+    private Grid.Tile goal;
+    /** The version of the grid when the field was built */
+    private int version;
+
+    /**
+     * Creates an empty flow field for the given grid
+     *
+     * @param grid  The grid to cover
+     */
+    public FlowField(Grid grid) {
+        this.grid = grid;
+        search = new GridSearch(grid);
+    }
+
+    /**
+     * Returns the tile that the field leads to
+     *
+     * @return the tile that the field leads to (null if the field is not built)
+     */
+    public Grid.Tile getGoal() { return goal; }
+
+    /**
+     * Points the field at the tile containing (x, y), rebuilding it if that tile (or the
+     * grid) changed
+     *
+     * @param x     X world coordinate of the goal
+     * @param y     Y world coordinate of the goal
+     */
+    public void update(float x, float y) {
+        Grid.Tile tile = grid.getTile(x, y);
+        if (tile != goal || version != grid.getVersion()) {
+            goal = tile;
+            version = grid.getVersion();
+            search.flood(goal);
+        }
+    }
+
+    /**
+     * Returns the next tile on the shortest path from the given tile to the goal
+     *
+     * @param tile  The tile in the grid
+     * @return      The next tile (or null at the goal or if the goal cannot be reached)
+     */
+    public Grid.Tile getNext(Grid.Tile tile) {
+        return goal == null ? null : search.getParent(tile);
+    }
+}
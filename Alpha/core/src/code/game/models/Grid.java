@@ -7,6 +7,16 @@ import code.game.views.GameCanvas;
 
 import java.util.ArrayList;
 
+/**
+ * The navigation grid shared by every chicken in a level.
+ *
+ * The grid is built once per level, when the walls and platforms are known, and is
+ * not changed by a search.  Traps stamp extra costs onto the tiles around them (see
+ * {@link #addCost}), making the tiles more or less expensive to walk through.  Each
+ * stamp changes the version of the grid, so that paths can tell they are out of
+ * date.  The costs of a search are kept in a {@link GridSearch}, so that any number
+ * of chickens can path over the same tiles.
+ */
 public class Grid {
 
     private final int ROWS = 30;
@@ -19,6 +29,19 @@ public class Grid {
     private float canvas_height;
 
     private Tile[][] grid;
+    /** The tiles in row-major order, by index */
+    private Tile[] tiles;
+
+    /** The lowest weight of a tile, however attractive */
+    private static final float MIN_WEIGHT = 0.25f;
+    /** The extra cost stamped on each tile, by index */
+    private float[] costs;
+    /** The number of times costs have been stamped */
+    private int version;
+    /** The lowest weight of any tile */
+    private float min_weight;
+    /** The version when min_weight was computed */
+    private int min_version;
 
     /**
      * Initializes the grid
@@ -34,36 +57,60 @@ public class Grid {
         canvas_height = height;
 
         grid = new Tile[ROWS][COLS];
+        tiles = new Tile[ROWS*COLS];
+        costs = new float[ROWS*COLS];
+        min_weight = 1;
         for (int i = 0; i < ROWS; i++) {
             for (int j = 0; j < COLS; j++) {
                 grid[i][j] = new Tile(i, j);
+                tiles[grid[i][j].index] = grid[i][j];
             }
         }
         populate();
     }
 
-    /** Resets all costs for every tile to the initial starting values */
-    public void clearCosts() {
-        for (int i = 0; i < ROWS; i++) {
-            for (int j = 0; j < COLS; j++) {
-                Tile tile = grid[i][j];
-                tile.setFcost(10000);
-                tile.setGcost(10000);
-                tile.setHcost(10000);
-                tile.setParent(null);
-            }
-        }
-    }
+    /**
+     * Returns the width of a tile in world coordinates
+     *
+     * @return the width of a tile
+     */
+    public float getCellWidth() { return cell_width; }
+
+    /**
+     * Returns the height of a tile in world coordinates
+     *
+     * @return the height of a tile
+     */
+    public float getCellHeight() { return cell_height; }
+
+    /**
+     * Returns the number of tiles in the grid
+     *
+     * @return the number of tiles in the grid
+     */
+    public int getSize() { return tiles.length; }
+
+    /**
+     * Returns the tile with the given index
+     *
+     * @param index The index of the tile (see {@link Tile#getIndex})
+     * @return      The tile with the given index
+     */
+    public Tile getTile(int index) { return tiles[index]; }
 
     /**
      * Transforms a tile's row and col into x and y world-coordinates
      *
-     * @param row   The row of the given tile
-     * @param col   The col of the given tile
-     * @return      X and Y coordinates of the tile at [row,col]
+     * The chickens steer by this every frame, so the result is written into the given
+     * vector rather than a new one.
+     *
+     * @param row       The row of the given tile
+     * @param col       The col of the given tile
+     * @param result    The vector to store the coordinates in
+     * @return          X and Y coordinates of the tile at [row,col] (the result vector)
      */
-    public Vector2 getPosition(float row, float col) {
-        return new Vector2((col*cell_width)+(0.5f*cell_width),(row*cell_height)+(0.5f*cell_height));
+    public Vector2 getPosition(float row, float col, Vector2 result) {
+        return result.set((col*cell_width)+(0.5f*cell_width),(row*cell_height)+(0.5f*cell_height));
     }
 
     /**
@@ -87,6 +134,121 @@ public class Grid {
      */
     public void setObstacle(float x, float y) { getTile(x,y).setObstacle(); }
 
+    /**
+     * Sets every tile whose center lies inside the polygon to be an obstacle
+     *
+     * The polygon is given in world coordinates, as the vertices of a wall or platform
+     * in the level JSON.  It may be concave.
+     *
+     * @param points    The polygon vertices as x,y pairs
+     */
+    public void setObstacle(float[] points) {
+        float minx = points[0];
+        float maxx = points[0];
+        float miny = points[1];
+        float maxy = points[1];
+        for (int ii = 2; ii < points.length; ii += 2) {
+            minx = Math.min(minx, points[ii]);
+            maxx = Math.max(maxx, points[ii]);
+            miny = Math.min(miny, points[ii+1]);
+            maxy = Math.max(maxy, points[ii+1]);
+        }
+
+        int row0 = MathUtils.clamp((int)(miny/cell_height),0,ROWS-1);
+        int row1 = MathUtils.clamp((int)(maxy/cell_height),0,ROWS-1);
+        int col0 = MathUtils.clamp((int)(minx/cell_width),0,COLS-1);
+        int col1 = MathUtils.clamp((int)(maxx/cell_width),0,COLS-1);
+        for (int i = row0; i <= row1; i++) {
+            float y = (i+0.5f)*cell_height;
+            for (int j = col0; j <= col1; j++) {
+                if (contains(points, (j+0.5f)*cell_width, y)) {
+                    grid[i][j].setObstacle();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns whether the point (x, y) is inside the polygon, by the even-odd rule
+     *
+     * @param points    The polygon vertices as x,y pairs
+     * @param x         X world coordinate of the point
+     * @param y         Y world coordinate of the point
+     * @return          Whether the point is inside the polygon
+     */
+    private static boolean contains(float[] points, float x, float y) {
+        boolean inside = false;
+        for (int ii = 0, jj = points.length-2; ii < points.length; jj = ii, ii += 2) {
+            float xi = points[ii];
+            float yi = points[ii+1];
+            float xj = points[jj];
+            float yj = points[jj+1];
+            if ((yi > y) != (yj > y) && x < (xj-xi)*(y-yi)/(yj-yi)+xi) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+
+    /**
+     * Adds cost to every tile whose center is within radius of (x, y)
+     *
+     * Positive costs make the tiles more expensive to walk through, and negative
+     * costs make them cheaper.  A stamp is removed by adding the negated cost.
+     *
+     * @param x         X world coordinate of the center
+     * @param y         Y world coordinate of the center
+     * @param radius    The radius of the stamp in world coordinates
+     * @param cost      The cost to add to each tile
+     */
+    public void addCost(float x, float y, float radius, float cost) {
+        int row0 = MathUtils.clamp((int)((y-radius)/cell_height),0,ROWS-1);
+        int row1 = MathUtils.clamp((int)((y+radius)/cell_height),0,ROWS-1);
+        int col0 = MathUtils.clamp((int)((x-radius)/cell_width),0,COLS-1);
+        int col1 = MathUtils.clamp((int)((x+radius)/cell_width),0,COLS-1);
+        for (int i = row0; i <= row1; i++) {
+            float dy = (i+0.5f)*cell_height-y;
+            for (int j = col0; j <= col1; j++) {
+                float dx = (j+0.5f)*cell_width-x;
+                if (dx*dx+dy*dy <= radius*radius) {
+                    costs[grid[i][j].index] += cost;
+                }
+            }
+        }
+        version++;
+    }
+
+    /**
+     * Returns the factor applied to the cost of stepping onto the tile
+     *
+     * @param tile  The tile in the grid
+     * @return      The weight of the tile (1 if no costs are stamped on it)
+     */
+    public float getWeight(Tile tile) { return Math.max(MIN_WEIGHT, 1+costs[tile.index]); }
+
+    /**
+     * Returns the lowest weight of any tile
+     *
+     * @return the lowest weight of any tile
+     */
+    public float getMinWeight() {
+        if (min_version != version) {
+            min_weight = 1;
+            for (int ii = 0; ii < tiles.length; ii++) {
+                min_weight = Math.min(min_weight, getWeight(tiles[ii]));
+            }
+            min_version = version;
+        }
+        return min_weight;
+    }
+
+    /**
+     * Returns the number of times costs have been stamped onto the grid
+     *
+     * @return the version of the grid
+     */
+    public int getVersion() { return version; }
+
     /** Whether the tile at grid[row][col] is in bounds
      *
      * @param row   The row of the tile in question
@@ -138,29 +300,22 @@ public class Grid {
         // canvas cell height (unscaled)
         float cch = canvas_height/ROWS;
         for (int i = 1; i < ROWS; i++) {
-            canvas.drawLine(new Vector2(0,cch*i), new Vector2(ccw*COLS,cch*i));
+            canvas.drawLine(0, cch*i, ccw*COLS, cch*i);
         }
         for (int j = 1; j < COLS; j++) {
-            canvas.drawLine(new Vector2(ccw*j,0), new Vector2(ccw*j, cch*ROWS));
+            canvas.drawLine(ccw*j, 0, ccw*j, cch*ROWS);
         }
     }
 
     public class Tile {
         public int row;
         public int col;
+        /** The position of the tile in row-major order */
+        private int index;
         private boolean obstacle;
 
         private ArrayList<Tile> neighbors;
 
-        // Distance from starting node
-        private float gcost;
-        // Distance from end node
-        private float hcost;
-        // GCost + HCost
-        private float fcost;
-
-        private Tile parent;
-
         /** Initializes a tile
          *
          * @param row   The row of the tile with respect to the grid
@@ -169,13 +324,9 @@ public class Grid {
         private Tile(int row, int col) {
             this.row = row;
             this.col = col;
+            this.index = row*COLS+col;
             obstacle = false;
 
-            this.gcost = 10000;
-            this.hcost = 10000;
-            this.fcost = 10000;
-            this.parent = null;
-
             neighbors = new ArrayList<>();
         }
 
@@ -196,32 +347,11 @@ public class Grid {
         public int getCol() { return col; }
 
         /**
-         * Returns the gcost of the tile
-         *
-         * @return gcost
-         */
-        public float getGcost() { return gcost; }
-
-        /**
-         * Returns the hcost of the tile
+         * Returns the index of the tile, used to look up its costs in a search
          *
-         * @return hcost
+         * @return index
          */
-        public float getHcost() { return hcost; }
-
-        /**
-         * Returns the fcost of the tile
-         *
-         * @return fcost
-         */
-        public float getFcost() { return fcost; }
-
-        /**
-         * Returns the parent of the tile
-         *
-         * @return parent
-         */
-        public Tile getParent() { return parent; }
+        public int getIndex() { return index; }
 
         /** Add tile to this tile's list of neighbors
          *
@@ -229,34 +359,6 @@ public class Grid {
          */
         public void addNeighbor(Tile tile) { neighbors.add(tile); }
 
-        /**
-         * Sets gcost to cost
-         *
-         * @param cost  Value to set gcost to
-         */
-        public void setGcost(float cost) { gcost = cost; }
-
-        /**
-         * Sets hcost to cost
-         *
-         * @param cost  Value to set hcost to
-         */
-        public void setHcost(float cost) { hcost = cost; }
-
-        /**
-         * Sets fcost to cost
-         *
-         * @param cost  Value to set fcost to
-         */
-        public void setFcost(float cost) { fcost = cost; }
-
-        /**
-         * Sets the parent of the tile to parent
-         *
-         * @param parent The tile to set as this tile's parent
-         */
-        public void setParent(Tile parent) { this.parent = parent; }
-
         /**
          * Set obstacle to true
          */
@@ -269,4 +371,4 @@ public class Grid {
          */
         public boolean isObstacle() { return obstacle; }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,335 @@
+package code.game.models;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * An A* search over a {@link Grid}.
+ *
+ * The search works on tile indices (see {@link Grid.Tile#getIndex}) and keeps all of
+ * its state in flat arrays that are allocated once, when the level is built.  The open
+ * list is a binary heap that knows where each tile is stored, so a tile can be found
+ * and re-prioritized without scanning the heap.  Instead of clearing the arrays before
+ * every search, each search gets a new generation number, and any tile not stamped
+ * with the current generation is treated as unreached.  A search therefore does not
+ * allocate and does not touch the tiles it never reaches.
+ *
+ * The cost of a step is the distance between the tile centers, times the weight of
+ * the tile stepped onto (see {@link Grid#getWeight}).
+ *
+ * Searches run one at a time on the game thread, so a single GridSearch is shared by
+ * every chicken in the level.  The same search can also flood the whole grid outwards
+ * from a goal, which is how a {@link FlowField} is built.
+ */
+public class GridSearch {
+    /** The parent of a tile with no parent */
+    private static final short NO_PARENT = -1;
+    /** The heap position of a tile that has been closed */
+    private static final short CLOSED = -1;
+
+    /** The grid being searched */
+    private final Grid grid;
+    /** The cost of a horizontal step */
+    private final float stepx;
+    /** The cost of a vertical step */
+    private final float stepy;
+    /** The cost of a diagonal step */
+    private final float stepxy;
+
+    /** The generation of the current search */
+    private int generation;
+    /** The generation in which each tile was last reached */
+    private final int[] stamp;
+    /** Distance from starting node, by tile index */
+    private final float[] gcost;
+    /** GCost + HCost, by tile index */
+    private final float[] fcost;
+    /** The index of the parent of each tile */
+    private final short[] parent;
+    /** The position of each tile in the heap (or CLOSED) */
+    private final short[] position;
+    /** The open tiles, as a binary heap ordered by fcost */
+    private final short[] heap;
+    /** The number of tiles in the heap */
+    private int size;
+
+    /** The target tile of the current search */
+    private int goalRow;
+    /** The target tile of the current search */
+    private int goalCol;
+    /** Whether the current search estimates the distance to the target */
+    private boolean directed;
+    /** The lowest tile weight when the current search started */
+    private float min_weight;
+    /** The number of tiles closed by the last search */
+    private int expanded;
+
+    /**
+     * Creates the search state for the given grid
+     *
+     * @param grid  The grid to search
+     */
+    public GridSearch(Grid grid) {
+        this.grid = grid;
+        stepx = grid.getCellWidth();
+        stepy = grid.getCellHeight();
+        stepxy = (float)Math.sqrt(stepx*stepx+stepy*stepy);
+
+        int count = grid.getSize();
+        stamp = new int[count];
+        gcost = new float[count];
+        fcost = new float[count];
+        parent = new short[count];
+        position = new short[count];
+        heap = new short[count];
+    }
+
+    /**
+     * Resets all costs for every tile to the initial starting values
+     *
+     * This only starts a new generation, so it takes constant time.
+     */
+    public void clearCosts() {
+        size = 0;
+        expanded = 0;
+        generation++;
+        if (generation == Integer.MAX_VALUE) {
+            Arrays.fill(stamp, 0);
+            generation = 1;
+        }
+    }
+
+    /**
+     * Finds the shortest path from start to goal.
+     *
+     * The search starts from the start tile even if it is an obstacle (e.g. a chicken
+     * spawned on the wall), and the goal may be entered even if it is an obstacle.  On
+     * success, the path can be read back from the goal with {@link #getParent}.
+     *
+     * @param start The tile that the chicken is on
+     * @param goal  The tile that the target is on
+     * @return      Whether the goal can be reached
+     */
+    public boolean search(Grid.Tile start, Grid.Tile goal) {
+        directed = true;
+        goalRow = goal.getRow();
+        goalCol = goal.getCol();
+        return run(start, goal.getIndex());
+    }
+
+    /**
+     * Finds the shortest path to goal from every tile that can reach it.
+     *
+     * This is a search outwards from the goal with no target.  As steps cost the same
+     * in both directions, the parent of each tile (see {@link #getParent}) is then the
+     * next tile on its shortest path to the goal.  To match {@link #search}, the flood
+     * starts from the goal even if it is an obstacle, and reaches (but does not pass
+     * through) the obstacles next to open tiles.
+     *
+     * @param goal  The tile that every path leads to
+     */
+    public void flood(Grid.Tile goal) {
+        directed = false;
+        run(goal, -1);
+    }
+
+    /**
+     * Runs a search from the start tile until the target is closed
+     *
+     * @param start     The tile to search from
+     * @param target    The index of the tile to search for (-1 to search everywhere)
+     * @return          Whether the target was reached
+     */
+    private boolean run(Grid.Tile start, int target) {
+        clearCosts();
+        min_weight = grid.getMinWeight();
+        int index = start.getIndex();
+        stamp[index] = generation;
+        gcost[index] = 0;
+        fcost[index] = heuristic(start.getRow(), start.getCol());
+        parent[index] = NO_PARENT;
+        push(index);
+
+        while (size > 0) {
+            int curr = pop();
+            if (curr == target) {
+                return true;
+            }
+            Grid.Tile tile = grid.getTile(curr);
+            if (target < 0 && tile.isObstacle() && curr != index) {
+                continue;
+            }
+            expanded++;
+            ArrayList<Grid.Tile> neighbors = tile.getNeighbors();
+            for (int ii = 0; ii < neighbors.size(); ii++) {
+                Grid.Tile neighbor = neighbors.get(ii);
+                int next = neighbor.getIndex();
+                if (neighbor.isObstacle() && next != target && target >= 0) {
+                    continue;
+                }
+                boolean reached = stamp[next] == generation;
+                if (reached && position[next] == CLOSED) {
+                    continue;
+                }
+
+                // A flood runs backwards, so the step is onto the current tile
+                float g = gcost[curr]+step(tile, neighbor)*grid.getWeight(directed ? neighbor : tile);
+                if (!reached) {
+                    stamp[next] = generation;
+                    gcost[next] = g;
+                    fcost[next] = g+heuristic(neighbor.getRow(), neighbor.getCol());
+                    parent[next] = (short)curr;
+                    push(next);
+                } else if (g < gcost[next]) {
+                    fcost[next] -= gcost[next]-g;
+                    gcost[next] = g;
+                    parent[next] = (short)curr;
+                    siftUp(position[next]);
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the gcost of the tile in the last search
+     *
+     * @param tile  The tile in the grid
+     * @return gcost (or infinity if the search did not reach the tile)
+     */
+    public float getGcost(Grid.Tile tile) {
+        int index = tile.getIndex();
+        return stamp[index] == generation ? gcost[index] : Float.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Returns the parent of the tile in the last search
+     *
+     * @param tile  The tile in the grid
+     * @return parent (or null if the tile has none)
+     */
+    public Grid.Tile getParent(Grid.Tile tile) {
+        int index = tile.getIndex();
+        if (stamp[index] != generation || parent[index] == NO_PARENT) {
+            return null;
+        }
+        return grid.getTile(parent[index]);
+    }
+
+    /**
+     * Returns the number of tiles closed by the last search
+     *
+     * @return the number of tiles closed by the last search
+     */
+    public int getExpanded() { return expanded; }
+
+    /**
+     * Returns the cost of moving between two neighboring tiles
+     *
+     * @param from  The tile being left
+     * @param to    The tile being entered
+     * @return      The distance between the tile centers
+     */
+    private float step(Grid.Tile from, Grid.Tile to) {
+        boolean horizontal = from.getCol() != to.getCol();
+        boolean vertical = from.getRow() != to.getRow();
+        return horizontal ? (vertical ? stepxy : stepx) : stepy;
+    }
+
+    /**
+     * Returns the octile distance from a tile to the goal
+     *
+     * This is the length of the shortest path on an empty grid (diagonal steps first,
+     * then straight ones), scaled by the lowest tile weight, so it never overestimates.
+     * A flood has no goal to head for, so its estimate is always 0.
+     *
+     * @param row   The row of the tile
+     * @param col   The col of the tile
+     * @return      The octile distance to the goal
+     */
+    private float heuristic(int row, int col) {
+        if (!directed) {
+            return 0;
+        }
+        int dx = Math.abs(col-goalCol);
+        int dy = Math.abs(row-goalRow);
+        int diagonal = Math.min(dx, dy);
+        return (diagonal*stepxy+(dx-diagonal)*stepx+(dy-diagonal)*stepy)*min_weight;
+    }
+
+    /**
+     * Adds a tile to the open heap
+     *
+     * @param index The tile index
+     */
+    private void push(int index) {
+        heap[size] = (short)index;
+        position[index] = (short)size;
+        siftUp(size++);
+    }
+
+    /**
+     * Removes the open tile with the lowest fcost and closes it
+     *
+     * @return the index of the removed tile
+     */
+    private int pop() {
+        int index = heap[0];
+        position[index] = CLOSED;
+        size--;
+        if (size > 0) {
+            heap[0] = heap[size];
+            position[heap[0]] = 0;
+            siftDown(0);
+        }
+        return index;
+    }
+
+    /**
+     * Moves the tile at the given heap slot up until its parent is no more costly
+     *
+     * @param slot  The heap slot
+     */
+    private void siftUp(int slot) {
+        short index = heap[slot];
+        float cost = fcost[index];
+        while (slot > 0) {
+            int above = (slot-1) >> 1;
+            short other = heap[above];
+            if (fcost[other] <= cost) {
+                break;
+            }
+            heap[slot] = other;
+            position[other] = (short)slot;
+            slot = above;
+        }
+        heap[slot] = index;
+        position[index] = (short)slot;
+    }
+
+    /**
+     * Moves the tile at the given heap slot down until its children are no less costly
+     *
+     * @param slot  The heap slot
+     */
+    private void siftDown(int slot) {
+        short index = heap[slot];
+        float cost = fcost[index];
+        int half = size >> 1;
+        while (slot < half) {
+            int below = 2*slot+1;
+            if (below+1 < size && fcost[heap[below+1]] < fcost[heap[below]]) {
+                below++;
+            }
+            short other = heap[below];
+            if (cost <= fcost[other]) {
+                break;
+            }
+            heap[slot] = other;
+            position[other] = (short)slot;
+            slot = below;
+        }
+        heap[slot] = index;
+        position[index] = (short)slot;
+    }
+}
@@ -1,11 +1,12 @@
 package code.game.models;
 
 import code.game.interfaces.StoveInterface;
-import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import code.game.models.obstacle.EntityType;
 import com.badlogic.gdx.graphics.*;
 import com.badlogic.gdx.physics.box2d.*;
 import com.badlogic.gdx.utils.JsonValue;
 import code.game.views.GameCanvas;
+import code.game.views.TextLabel;
 
 public class Stove extends GameObject implements StoveInterface {
 
@@ -20,8 +21,8 @@ public class Stove extends GameObject implements StoveInterface {
     /** Whether or not the stove is lit */
     private boolean lit = false;
 
-    /** The font used to draw text on the screen*/
-    private static final BitmapFont font = new BitmapFont();
+    /** The cached label shown while the stove is lit (created on the first draw) */
+    private TextLabel label;
 
     //TODO: add comment
     public Stove(JsonValue jv, float x, float y, float width, float height) {
@@ -32,6 +33,7 @@ public class Stove extends GameObject implements StoveInterface {
         setFixedRotation(true);
         data = jv;
         setName("stove");
+        setEntityType(EntityType.STOVE);
         name = "stove";
         sensorName = "cookRadius";
     }
@@ -53,6 +55,7 @@ public class Stove extends GameObject implements StoveInterface {
         // Previously used to detect double-jumps, but also allows us to see hitboxes
         FixtureDef sensorDef = new FixtureDef();
         sensorDef.isSensor = true;
+        applySensorFilter(sensorDef);
         sensorShape = new CircleShape();
         sensorShape.setRadius(3f);
         sensorDef.shape = sensorShape;
@@ -74,10 +77,31 @@ public class Stove extends GameObject implements StoveInterface {
     /**
      * Draws the unlit stove
      *
+     * The stove never moves, so this is baked into the static geometry of the level
+     * once, instead of drawn every frame.
+     *
+     * @param canvas Drawing context
+     */
+    public void drawBase(GameCanvas canvas) {
+        canvas.queue(GameCanvas.Layer.FLOOR, texture, Color.WHITE,origin.x,origin.y,getX()*drawScale.x,getY()*drawScale.y,getAngle(),.1f,.1f);
+    }
+
+    /**
+     * Draws the lit stove over its base, with its label
+     *
+     * Nothing is drawn while the stove is unlit, as the base is baked.
+     *
      * @param canvas Drawing context
      */
     public void draw(GameCanvas canvas) {
-        canvas.draw(texture, (lit ? Color.RED : Color.WHITE),origin.x,origin.y,getX()*drawScale.x,getY()*drawScale.y,getAngle(),.1f,.1f);
+        if (lit) {
+            canvas.queue(GameCanvas.Layer.ACTORS, texture, Color.RED,origin.x,origin.y,getX()*drawScale.x,getY()*drawScale.y,getAngle(),.1f,.1f);
+            if (label == null) {
+                label = new TextLabel(canvas.getDefaultFont(), "Cooking!");
+            }
+            // Centered just above the stove
+            canvas.drawText(label, getX()*drawScale.x-label.getWidth()/2, getY()*drawScale.y+origin.y*.1f+label.getHeight());
+        }
     }
 
     /**
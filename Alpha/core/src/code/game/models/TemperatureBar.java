@@ -1,10 +1,10 @@
 package code.game.models;
 
 import com.badlogic.gdx.graphics.Color;
-import com.badlogic.gdx.graphics.g2d.BitmapFont;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.MathUtils;
 import code.game.views.GameCanvas;
+import code.game.views.TextLabel;
 
 public class TemperatureBar {
     /**The max temperature the chicken can get to (when cooked) */
@@ -39,8 +39,8 @@ public class TemperatureBar {
     private final float COOLDOWN_RATE = 0.01f;
 
 
-    /**The font*/
-    private BitmapFont font = new BitmapFont();
+    /**The cached temperature label (created on the first draw)*/
+    private TextLabel label;
 
     /**Create a new temperature bar with temperature range 0 thru max*/
     public TemperatureBar(TextureRegion back, TextureRegion front, int max){
@@ -133,8 +133,11 @@ public class TemperatureBar {
                 tempForeground.getRegionWidth() / scale, tempForeground.getRegionHeight() / scale, 960f, 250f,
                 tempForeground.getRegionWidth() / scale, tempForeground.getRegionHeight() / scale);
         //tempBar.draw(canvas, temperature);
-        //canvas.drawText("Temp: "+tempBar.getValue(), font, 500,565);
-       // canvas.drawText("Temp: "+temperature, font, 575,565);
+        if (label == null) {
+            label = new TextLabel(canvas.getDefaultFont(), "Temp: ");
+        }
+        label.setValue((int)temperature);
+        canvas.drawText(label, 575,565);
 
     }
 }
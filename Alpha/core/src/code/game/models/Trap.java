@@ -2,14 +2,16 @@ package code.game.models;
 
 import code.game.interfaces.TrapInterface;
 import code.game.models.obstacle.BoxObstacle;
+import code.game.models.obstacle.EntityType;
 import com.badlogic.gdx.math.*;
 import com.badlogic.gdx.graphics.*;
 import com.badlogic.gdx.physics.box2d.*;
 
 import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.Pool;
 import code.game.views.GameCanvas;
 
-public class Trap extends GameObject implements TrapInterface {
+public class Trap extends GameObject implements TrapInterface, Pool.Poolable {
 
     /**
      *  Enumeration to encode the trap type
@@ -67,6 +69,8 @@ public class Trap extends GameObject implements TrapInterface {
     private static final Color slowColor = Color.CYAN;
     /** Colors of lure trap */
     private static final Color lureColor = Color.YELLOW;
+    /** The color to draw this trap with (cached to avoid a copy every frame) */
+    private final Color tint = new Color();
 
 
     private float lure_ammount=6;
@@ -79,6 +83,11 @@ public class Trap extends GameObject implements TrapInterface {
 
     private float FIRE_DAM_DUR = 5.0f;
 
+    /** The navigation grid that this trap has stamped its cost onto (null if none) */
+    private Grid costGrid;
+    /** The cost this trap stamped onto the grid */
+    private float cost;
+
     /**
      * Creates a new Trap model with the given game data
      *
@@ -102,6 +111,7 @@ public class Trap extends GameObject implements TrapInterface {
         setFixedRotation(true);
         this.data = data;
         setName("trap");
+        setEntityType(EntityType.TRAP);
         trapType = t;
         trapShape = s;
         setSensorName("trapSensor");
@@ -110,6 +120,18 @@ public class Trap extends GameObject implements TrapInterface {
         linger = false;
     }
 
+    /**
+     * Restores this trap to full durability so that it can be placed again.
+     *
+     * This is called when the trap is returned to its pool.  The type and shape
+     * of a pooled trap never change.
+     */
+    public void reset() {
+        clearCost();
+        durability = MAX_DURABILITY;
+        linger = false;
+    }
+
     /**
      * Gets the trap's effect. This is either a multiplier for the slow down effect or a duration for the fire effect.
      * -1 otherwise
@@ -126,6 +148,52 @@ public class Trap extends GameObject implements TrapInterface {
         return -1;
     }
 
+    /**
+     * Returns the radius of the trap's effect
+     *
+     * @return the radius in which the trap affects chickens
+     */
+    public float getRadius() {
+        switch (trapType) {
+            case LURE:
+                return LURE_RADIUS;
+            case SLOW:
+                return SLOW_RADIUS;
+            case FIRE:
+                return FIRE_TRIGGER_RADIUS;
+            default:
+                return FIRE_LINGER_RADIUS;
+        }
+    }
+
+    /**
+     * Stamps the cost of this trap onto the navigation grid, over its effect radius.
+     *
+     * Chickens path around traps with a positive cost, and towards traps with a
+     * negative one.  The cost is removed when the trap breaks or burns out.
+     *
+     * @param grid  The navigation grid
+     * @param cost  The cost of walking past this trap
+     */
+    public void stampCost(Grid grid, float cost) {
+        clearCost();
+        if (cost != 0) {
+            costGrid = grid;
+            this.cost = cost;
+            grid.addCost(getX(), getY(), getRadius(), cost);
+        }
+    }
+
+    /**
+     * Removes the cost of this trap from the navigation grid, if it was stamped.
+     */
+    public void clearCost() {
+        if (costGrid != null) {
+            costGrid.addCost(getX(), getY(), getRadius(), -cost);
+            costGrid = null;
+        }
+    }
+
     /**
      *  Returns the enum type that represents this trap
      *
@@ -150,6 +218,7 @@ public class Trap extends GameObject implements TrapInterface {
 
 
     /** Decrements the durability of the trap, and returns true if the durability is then zero.
+     *  A trap that breaks no longer costs anything to walk past.
      *
      *  @return true if durability is now zero
      */
@@ -165,6 +234,9 @@ public class Trap extends GameObject implements TrapInterface {
 
         }
 
+        if (durability == 0) {
+            clearCost();
+        }
         return durability == 0;
     }
     /**Whether the trap is still active or not*/
@@ -185,6 +257,7 @@ public class Trap extends GameObject implements TrapInterface {
         if (trapType == type.FIRE_LINGER) {
             durability = durability - (MAX_DURABILITY / FIRE_DUR * delta);
             if (durability <= 0) {
+                clearCost();
                 this.markRemoved(true);
             }
         }
@@ -198,18 +271,23 @@ public class Trap extends GameObject implements TrapInterface {
      * @return true if object allocation succeeded
      */
     public boolean activatePhysics(World world) {
-        // create the box from our superclass
+        // create the box from our superclass (a reused body keeps its sensors)
+        boolean reused = isParked();
         if (!super.activatePhysics(world)) {
             return false;
+        } else if (reused) {
+            return true;
         }
         FixtureDef sensorDef = new FixtureDef();
         sensorDef.isSensor = true;
+        applySensorFilter(sensorDef);
         sensorShape = new CircleShape();
         switch (trapType) {
             case LURE:
                 sensorShape.setRadius(LURE_RADIUS);
                 FixtureDef sensHurt = new FixtureDef();
                 sensHurt.isSensor = true;
+                applySensorFilter(sensHurt);
                 lHShape= new CircleShape();
                 lHShape.setRadius(LURE_HURT);
                 sensHurt.shape = lHShape;
@@ -239,23 +317,23 @@ public class Trap extends GameObject implements TrapInterface {
      * @param canvas Drawing context
      */
     public void draw(GameCanvas canvas) {
-        Color c = fireColor.cpy();
+        tint.set(fireColor);
         switch (trapType) {
             case FIRE:
-                c = fireColor.cpy();
+                tint.set(fireColor);
                 break;
             case LURE:
-                c = lureColor.cpy();
+                tint.set(lureColor);
                 break;
             case SLOW:
-                c = slowColor.cpy();
+                tint.set(slowColor);
                 break;
             case FIRE_LINGER:
-                c = Color.FIREBRICK.cpy();
+                tint.set(Color.FIREBRICK);
                 break;
         }
-        c.a = durability / MAX_DURABILITY;
-        canvas.draw(texture, c, origin.x, origin.y, getX() * drawScale.x, getY() * drawScale.y, getAngle(), .1f, .1f);
+        tint.a = durability / MAX_DURABILITY;
+        canvas.queue(GameCanvas.Layer.FLOOR, texture, tint, origin.x, origin.y, getX() * drawScale.x, getY() * drawScale.y, getAngle(), .1f, .1f);
     }
 
     /**
@@ -1,7 +1,7 @@
 package code.game.models;
 
 import code.game.models.obstacle.BoxObstacle;
-import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import code.game.models.obstacle.EntityType;
 import com.badlogic.gdx.graphics.*;
 import com.badlogic.gdx.physics.box2d.*;
 
@@ -28,6 +28,7 @@ public class TrapSpot extends GameObject {
         setSensor(true);
         //data = jv;
         setName("place");
+        setEntityType(EntityType.TRAP_SPOT);
         setSensorName("placeRadius");
         hasTrap = false;
         trap = null;
@@ -49,6 +50,7 @@ public class TrapSpot extends GameObject {
         // Previously used to detect double-jumps, but also allows us to see hitboxes
         FixtureDef sensorDef = new FixtureDef();
         sensorDef.isSensor = true;
+        applySensorFilter(sensorDef);
         sensorShape = new CircleShape();
         sensorShape.setRadius(1.55f);
         sensorDef.shape = sensorShape;
@@ -100,7 +102,7 @@ public class TrapSpot extends GameObject {
      * @param canvas Drawing context
      */
     public void draw(GameCanvas canvas) {
-        canvas.draw(texture, Color.WHITE,origin.x,origin.y,getX()*drawScale.x,getY()*drawScale.y,getAngle(),.35f,.35f);
+        canvas.queue(GameCanvas.Layer.FLOOR, texture, Color.WHITE,origin.x,origin.y,getX()*drawScale.x,getY()*drawScale.y,getAngle(),.35f,.35f);
         //canvas.drawShape(sensorShape,Color.RED,getX(),getY(),drawScale.x,drawScale.y);
     }
     /**
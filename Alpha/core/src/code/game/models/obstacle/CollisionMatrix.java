@@ -0,0 +1,212 @@
+/*
+ * CollisionMatrix.java
+ *
+ * Which entity types can touch which.  Without filtering, Box2D tests every pair of
+ * overlapping fixtures, and reports a contact for each, even pairs that no gameplay
+ * code cares about (a chicken sensor and another chicken, a trap spot and a wall, ...).
+ * Giving every fixture the collision category of its entity type, and a mask of the
+ * types it may touch, lets the broadphase cull those pairs before they ever become
+ * contacts.
+ *
+ * The matrix is data, read from the "collisions" entry of constants.json, so that a
+ * designer can turn a pair back on without touching the code.
+ */
+package code.game.models.obstacle;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.physics.box2d.Filter;
+import com.badlogic.gdx.utils.JsonValue;
+
+/**
+ * A symmetric table of the entity types that collide with each other.
+ *
+ * Box2D only lets two fixtures touch if each is in the mask of the other, so the
+ * matrix always keeps the body masks symmetric: listing a pair under either type turns
+ * it on for both.  The sensor fixtures of a type may have a narrower mask than its
+ * bodies, so that (say) two chickens still push each other apart while their sensors
+ * ignore each other.  A new matrix lets every pair collide, as Box2D does by default.
+ */
+public class CollisionMatrix {
+	/** The filter of the body fixtures of each entity type, by ordinal */
+	private final Filter[] filters;
+	/** The filter of the sensor fixtures of each entity type, by ordinal */
+	private final Filter[] sensorFilters;
+
+	/**
+	 * Creates a new matrix where every pair of types collides
+	 */
+	public CollisionMatrix() {
+		EntityType[] types = EntityType.values();
+		filters = new Filter[types.length];
+		sensorFilters = new Filter[types.length];
+		for (EntityType type : types) {
+			filters[type.ordinal()] = createFilter(type);
+			sensorFilters[type.ordinal()] = createFilter(type);
+		}
+	}
+
+	/**
+	 * Creates a new matrix from the given JSON
+	 *
+	 * The "bodies" entry maps each type name (in lower case) to the array of type names
+	 * it collides with.  A type without an entry collides with nothing except the types
+	 * that list it.  The optional "sensors" entry does the same for the sensor fixtures
+	 * of a type.  A sensor can only touch the types its body touches, and a type without
+	 * a sensor entry gives its sensors the mask of its body.  A null value gives a
+	 * matrix where every pair collides.
+	 *
+	 * @param json	The JSON of the matrix (may be null)
+	 */
+	public CollisionMatrix(JsonValue json) {
+		this();
+		if (json == null) {
+			return;
+		}
+		for (Filter filter : filters) {
+			filter.maskBits = 0;
+		}
+		JsonValue bodies = json.get("bodies");
+		for (JsonValue row = bodies == null ? null : bodies.child(); row != null; row = row.next()) {
+			EntityType type = parseType(row.name());
+			if (type == null) {
+				continue;
+			}
+			for (JsonValue entry = row.child(); entry != null; entry = entry.next()) {
+				EntityType other = parseType(entry.asString());
+				if (other != null) {
+					setCollides(type, other, true);
+				}
+			}
+		}
+
+		for (int ii = 0; ii < filters.length; ii++) {
+			sensorFilters[ii].maskBits = filters[ii].maskBits;
+		}
+		JsonValue sensors = json.get("sensors");
+		for (JsonValue row = sensors == null ? null : sensors.child(); row != null; row = row.next()) {
+			EntityType type = parseType(row.name());
+			if (type == null) {
+				continue;
+			}
+			short mask = 0;
+			for (JsonValue entry = row.child(); entry != null; entry = entry.next()) {
+				EntityType other = parseType(entry.asString());
+				if (other != null) {
+					mask |= other.getCategory();
+				}
+			}
+			setSensorMask(type, mask);
+		}
+	}
+
+	/**
+	 * Returns true if the bodies of the two types collide
+	 *
+	 * @param type1	The first entity type
+	 * @param type2	The second entity type
+	 *
+	 * @return true if the bodies of the two types collide
+	 */
+	public boolean collides(EntityType type1, EntityType type2) {
+		return (filters[type1.ordinal()].maskBits & type2.getCategory()) != 0;
+	}
+
+	/**
+	 * Sets whether the bodies of the two types collide (in both directions)
+	 *
+	 * Turning a pair off also turns it off for the sensors of both types.  Turning it
+	 * on leaves the sensor masks alone.  Objects already in the world keep their old
+	 * filter until they are re-added.
+	 *
+	 * @param type1		The first entity type
+	 * @param type2		The second entity type
+	 * @param value		Whether the two types collide
+	 */
+	public void setCollides(EntityType type1, EntityType type2, boolean value) {
+		Filter filter1 = filters[type1.ordinal()];
+		Filter filter2 = filters[type2.ordinal()];
+		if (value) {
+			filter1.maskBits |= type2.getCategory();
+			filter2.maskBits |= type1.getCategory();
+		} else {
+			filter1.maskBits &= ~type2.getCategory();
+			filter2.maskBits &= ~type1.getCategory();
+			sensorFilters[type1.ordinal()].maskBits &= ~type2.getCategory();
+			sensorFilters[type2.ordinal()].maskBits &= ~type1.getCategory();
+		}
+	}
+
+	/**
+	 * Sets the mask of the sensor fixtures of a type
+	 *
+	 * The mask is limited to the types that the body of the type collides with.
+	 * Objects already in the world keep their old filter until they are re-added.
+	 *
+	 * @param type	The entity type
+	 * @param mask	The category bits of the types the sensors may touch
+	 */
+	public void setSensorMask(EntityType type, short mask) {
+		sensorFilters[type.ordinal()].maskBits = (short)(mask & filters[type.ordinal()].maskBits);
+	}
+
+	/**
+	 * Returns the collision filter for the body fixtures of the given type
+	 *
+	 * This method returns a reference to the filter of the matrix.  Obstacles copy
+	 * the filter when it is set, so it should not be modified directly.
+	 *
+	 * @param type	The entity type
+	 *
+	 * @return the collision filter for the body fixtures of the given type
+	 */
+	public Filter getFilter(EntityType type) {
+		return filters[type.ordinal()];
+	}
+
+	/**
+	 * Returns the collision filter for the sensor fixtures of the given type
+	 *
+	 * This method returns a reference to the filter of the matrix.  Obstacles copy
+	 * the filter when it is set, so it should not be modified directly.
+	 *
+	 * @param type	The entity type
+	 *
+	 * @return the collision filter for the sensor fixtures of the given type
+	 */
+	public Filter getSensorFilter(EntityType type) {
+		return sensorFilters[type.ordinal()];
+	}
+
+	/**
+	 * Returns a filter in the category of the given type that collides with everything
+	 *
+	 * @param type	The entity type
+	 *
+	 * @return a filter in the category of the given type
+	 */
+	private static Filter createFilter(EntityType type) {
+		Filter filter = new Filter();
+		filter.categoryBits = type.getCategory();
+		filter.maskBits = -1;
+		filter.groupIndex = 0;
+		return filter;
+	}
+
+	/**
+	 * Returns the entity type with the given (lower case) name
+	 *
+	 * Unknown names are reported and ignored.
+	 *
+	 * @param name	The type name
+	 *
+	 * @return the entity type with the given name (null if unknown)
+	 */
+	private static EntityType parseType(String name) {
+		try {
+			return EntityType.valueOf(name.toUpperCase());
+		} catch (IllegalArgumentException e) {
+			Gdx.app.error("CollisionMatrix", "Unknown entity type: "+name);
+			return null;
+		}
+	}
+}
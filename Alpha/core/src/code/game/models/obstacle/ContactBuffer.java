@@ -0,0 +1,211 @@
+/*
+ * ContactBuffer.java
+ *
+ * A queue of contact events, to be handled after the physics step.  Box2D reports
+ * contacts from the middle of World.step, while the world is locked.  Game logic run
+ * there stalls the solver, cannot safely create or destroy bodies, and jumps between
+ * unrelated objects as the solver visits them.  Instead, the contact listener only
+ * records each event here, and the controller handles the whole batch at once when
+ * the step is done.
+ *
+ * The libGDX Contact passed to a listener is a single object that is reused for every
+ * callback, so the buffer keeps the two fixtures instead.  Those are stable until the
+ * body that owns them is destroyed, which never happens during a step.
+ */
+package code.game.models.obstacle;
+
+import com.badlogic.gdx.physics.box2d.Fixture;
+
+import java.util.Arrays;
+
+/**
+ * A growable buffer of begin and end contact events.
+ *
+ * The events are held in parallel arrays, with an open addressing hash table on the
+ * side that finds the latest event for each pair of fixtures.  An event is dropped
+ * as a repeat only if it is the same kind as that latest event, so a contact that
+ * begins, ends and begins again in one step still ends up begun.  Nothing is
+ * allocated once the buffer has grown to fit the biggest step.
+ */
+public class ContactBuffer {
+	/** The initial number of events */
+	private static final int INITIAL_CAPACITY = 64;
+
+	/**
+	 * A receiver of buffered contact events
+	 */
+	public interface Handler {
+		/**
+		 * Handles the start of a contact between two fixtures
+		 *
+		 * @param fix1	The first fixture
+		 * @param fix2	The second fixture
+		 */
+		public void handleBeginContact(Fixture fix1, Fixture fix2);
+
+		/**
+		 * Handles the end of a contact between two fixtures
+		 *
+		 * @param fix1	The first fixture
+		 * @param fix2	The second fixture
+		 */
+		public void handleEndContact(Fixture fix1, Fixture fix2);
+	}
+
+	/** The first fixture of each event */
+	private Fixture[] fixturesA;
+	/** The second fixture of each event */
+	private Fixture[] fixturesB;
+	/** Whether each event is the start (not the end) of a contact */
+	private boolean[] begins;
+	/** The number of events in the buffer */
+	private int size;
+
+	/** The hash table of fixture pairs (each slot is the index of the latest event for the pair plus one, or 0 if empty) */
+	private int[] table;
+	/** The number of events dropped as repeats since the last clear */
+	private int repeats;
+
+	/**
+	 * Creates a new, empty contact buffer
+	 */
+	public ContactBuffer() {
+		fixturesA = new Fixture[INITIAL_CAPACITY];
+		fixturesB = new Fixture[INITIAL_CAPACITY];
+		begins = new boolean[INITIAL_CAPACITY];
+		table = new int[2*INITIAL_CAPACITY];
+	}
+
+	/**
+	 * Returns the number of events in the buffer
+	 *
+	 * @return the number of events in the buffer
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the number of events dropped as repeats since the last clear
+	 *
+	 * @return the number of events dropped as repeats since the last clear
+	 */
+	public int getRepeats() {
+		return repeats;
+	}
+
+	/**
+	 * Adds an event to the buffer
+	 *
+	 * The event is dropped if the latest event in the buffer for the same pair of
+	 * fixtures (in either order) is the same kind of event.
+	 *
+	 * @param fix1	The first fixture
+	 * @param fix2	The second fixture
+	 * @param begin	Whether this is the start (not the end) of the contact
+	 *
+	 * @return true if the event was added
+	 */
+	public boolean add(Fixture fix1, Fixture fix2, boolean begin) {
+		int mask = table.length-1;
+		int slot = hash(fix1, fix2) & mask;
+		while (table[slot] != 0) {
+			int ii = table[slot]-1;
+			if ((fixturesA[ii] == fix1 && fixturesB[ii] == fix2) ||
+				(fixturesA[ii] == fix2 && fixturesB[ii] == fix1)) {
+				if (begins[ii] == begin) {
+					repeats++;
+					return false;
+				}
+				break;
+			}
+			slot = (slot+1) & mask;
+		}
+
+		if (size == fixturesA.length) {
+			grow();
+			return add(fix1, fix2, begin);
+		}
+		fixturesA[size] = fix1;
+		fixturesB[size] = fix2;
+		begins[size] = begin;
+		size++;
+		table[slot] = size;
+		return true;
+	}
+
+	/**
+	 * Sends every event to the given handler, in the order they were added, and then
+	 * clears the buffer
+	 *
+	 * The handler may safely add events to the buffer (if, say, it destroys a body
+	 * outside of a step); these are handled in the same pass.
+	 *
+	 * @param handler	The receiver of the events
+	 */
+	public void dispatch(Handler handler) {
+		for (int ii = 0; ii < size; ii++) {
+			if (begins[ii]) {
+				handler.handleBeginContact(fixturesA[ii], fixturesB[ii]);
+			} else {
+				handler.handleEndContact(fixturesA[ii], fixturesB[ii]);
+			}
+		}
+		clear();
+	}
+
+	/**
+	 * Removes every event from the buffer
+	 */
+	public void clear() {
+		Arrays.fill(fixturesA, 0, size, null);
+		Arrays.fill(fixturesB, 0, size, null);
+		Arrays.fill(table, 0);
+		size = 0;
+		repeats = 0;
+	}
+
+	/**
+	 * Returns the hash of a pair of fixtures, the same for either order
+	 *
+	 * @param fix1	The first fixture
+	 * @param fix2	The second fixture
+	 *
+	 * @return the hash of a pair of fixtures
+	 */
+	private static int hash(Fixture fix1, Fixture fix2) {
+		int h = System.identityHashCode(fix1) ^ System.identityHashCode(fix2);
+		// Spread the bits, as identity hashes are not very random in the low bits
+		h ^= h >>> 16;
+		h *= 0x85ebca6b;
+		h ^= h >>> 13;
+		return h;
+	}
+
+	/**
+	 * Doubles the capacity of the buffer, and rebuilds the hash table
+	 */
+	private void grow() {
+		int capacity = 2*fixturesA.length;
+		fixturesA = Arrays.copyOf(fixturesA, capacity);
+		fixturesB = Arrays.copyOf(fixturesB, capacity);
+		begins = Arrays.copyOf(begins, capacity);
+		table = new int[2*capacity];
+		int mask = table.length-1;
+		// Later events of a pair replace the earlier ones in the table
+		for (int ii = 0; ii < size; ii++) {
+			Fixture fix1 = fixturesA[ii];
+			Fixture fix2 = fixturesB[ii];
+			int slot = hash(fix1, fix2) & mask;
+			while (table[slot] != 0) {
+				int jj = table[slot]-1;
+				if ((fixturesA[jj] == fix1 && fixturesB[jj] == fix2) ||
+					(fixturesA[jj] == fix2 && fixturesB[jj] == fix1)) {
+					break;
+				}
+				slot = (slot+1) & mask;
+			}
+			table[slot] = ii+1;
+		}
+	}
+}
@@ -0,0 +1,341 @@
+/*
+ * ConvexDecomposition.java
+ *
+ * Splits a simple polygon into convex pieces for Box2D.  Ear clipping alone gives one
+ * triangle per vertex (less two), and every triangle becomes its own fixture, with its
+ * own broadphase proxy and its own contacts.  Most of those triangles can be glued
+ * back together: we greedily remove the diagonals between neighboring triangles (in
+ * the style of Hertel and Mehlhorn) whenever the result is still convex and still fits
+ * in a Box2D polygon.  A rectangular counter then becomes a single fixture instead of
+ * two, and an L-shaped wall two instead of four.
+ *
+ * The level geometry is rebuilt every time the level resets, so decompositions are
+ * cached by their outline.
+ */
+package code.game.models.obstacle;
+
+import com.badlogic.gdx.math.EarClippingTriangulator;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.ShortArray;
+
+import java.util.Arrays;
+
+/**
+ * The triangulation and the convex pieces of a polygon.
+ *
+ * A decomposition is immutable, and may be shared by any number of obstacles.  Use
+ * {@link #obtain} to get the (cached) decomposition of an outline.
+ */
+public class ConvexDecomposition {
+	/** The most vertices Box2D allows in a polygon (b2_maxPolygonVertices) */
+	public static final int MAX_VERTICES = 8;
+	/** The tolerance for a reflex angle, relative to the edge lengths */
+	private static final float EPSILON = 1.0e-5f;
+
+	/** An earclipping triangulator to break the polygon into convex shapes */
+	private static final EarClippingTriangulator TRIANGULATOR = new EarClippingTriangulator();
+	/** The decompositions computed so far, by outline */
+	private static final ObjectMap<Outline, ConvexDecomposition> CACHE = new ObjectMap<Outline, ConvexDecomposition>();
+
+	/** The triangle indices into the outline, used for drawing */
+	private final short[] triangles;
+	/** The vertices of every piece, one after another */
+	private final float[] vertices;
+	/** The offset of each piece in the vertices array (plus a final end offset) */
+	private final int[] offsets;
+
+	/**
+	 * A polygon outline, usable as a hash key
+	 */
+	private static class Outline {
+		/** The vertex coordinates */
+		private final float[] points;
+		/** The cached hash of the points */
+		private final int hash;
+
+		/**
+		 * Creates a key for the given outline (which is copied)
+		 *
+		 * @param points	The vertex coordinates
+		 */
+		Outline(float[] points) {
+			this.points = points.clone();
+			this.hash = Arrays.hashCode(points);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return other instanceof Outline && Arrays.equals(points, ((Outline)other).points);
+		}
+	}
+
+	/**
+	 * Returns the decomposition of the given polygon
+	 *
+	 * The decomposition is computed the first time an outline is seen, and cached after
+	 * that.  The points are not modified, and no reference is kept to them.
+	 *
+	 * @param points	The polygon vertices (a simple polygon, in either winding)
+	 *
+	 * @return the decomposition of the given polygon
+	 */
+	public static ConvexDecomposition obtain(float[] points) {
+		Outline key = new Outline(points);
+		ConvexDecomposition result = CACHE.get(key);
+		if (result == null) {
+			result = new ConvexDecomposition(points);
+			CACHE.put(key, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Empties the cache of decompositions
+	 */
+	public static void clearCache() {
+		CACHE.clear();
+	}
+
+	/**
+	 * Computes the decomposition of the given polygon
+	 *
+	 * @param points	The polygon vertices
+	 */
+	private ConvexDecomposition(float[] points) {
+		ShortArray array = TRIANGULATOR.computeTriangles(points);
+		trimColinear(points, array);
+		triangles = array.toArray();
+
+		Array<IntArray> pieces = merge(points, triangles);
+		int total = 0;
+		for (IntArray piece : pieces) {
+			total += piece.size;
+		}
+		vertices = new float[2*total];
+		offsets = new int[pieces.size+1];
+		int pos = 0;
+		for (int ii = 0; ii < pieces.size; ii++) {
+			offsets[ii] = pos;
+			IntArray piece = pieces.get(ii);
+			for (int jj = 0; jj < piece.size; jj++) {
+				vertices[pos++] = points[2*piece.get(jj)  ];
+				vertices[pos++] = points[2*piece.get(jj)+1];
+			}
+		}
+		offsets[pieces.size] = pos;
+	}
+
+	/**
+	 * Returns the triangle indices into the outline
+	 *
+	 * This method returns a reference to the internal array, which must not be modified.
+	 *
+	 * @return the triangle indices into the outline
+	 */
+	public short[] getTriangles() {
+		return triangles;
+	}
+
+	/**
+	 * Returns the number of convex pieces
+	 *
+	 * @return the number of convex pieces
+	 */
+	public int getPieceCount() {
+		return offsets.length-1;
+	}
+
+	/**
+	 * Returns the offset of the given piece in the vertices array
+	 *
+	 * @param piece	The piece index
+	 *
+	 * @return the offset of the given piece in the vertices array
+	 */
+	public int getOffset(int piece) {
+		return offsets[piece];
+	}
+
+	/**
+	 * Returns the number of floats (twice the vertices) of the given piece
+	 *
+	 * @param piece	The piece index
+	 *
+	 * @return the number of floats (twice the vertices) of the given piece
+	 */
+	public int getLength(int piece) {
+		return offsets[piece+1]-offsets[piece];
+	}
+
+	/**
+	 * Returns the vertices of every piece, one after another
+	 *
+	 * This method returns a reference to the internal array, which must not be modified.
+	 * Use {@link #getOffset} and {@link #getLength} to find a piece.
+	 *
+	 * @return the vertices of every piece
+	 */
+	public float[] getVertices() {
+		return vertices;
+	}
+
+	/**
+	 * Removes colinear vertices from the given triangulation.
+	 *
+	 * For some reason, the LibGDX triangulator will occasionally return colinear
+	 * vertices.
+	 *
+	 * @param points  The polygon vertices
+	 * @param indices The triangulation indices
+	 */
+	private static void trimColinear(float[] points, ShortArray indices) {
+		int colinear = 0;
+		for(int ii = 0; ii < indices.size/3-colinear; ii++) {
+			float t1 = points[2*indices.items[3*ii  ]]*(points[2*indices.items[3*ii+1]+1]-points[2*indices.items[3*ii+2]+1]);
+			float t2 = points[2*indices.items[3*ii+1]]*(points[2*indices.items[3*ii+2]+1]-points[2*indices.items[3*ii  ]+1]);
+			float t3 = points[2*indices.items[3*ii+2]]*(points[2*indices.items[3*ii  ]+1]-points[2*indices.items[3*ii+1]+1]);
+			if (Math.abs(t1+t2+t3) < 0.0000001f) {
+				indices.swap(3*ii  ,  indices.size-3*colinear-3);
+				indices.swap(3*ii+1,  indices.size-3*colinear-2);
+				indices.swap(3*ii+2,  indices.size-3*colinear-1);
+				colinear++;
+			 }
+		}
+		indices.size -= 3*colinear;
+		indices.shrink();
+	}
+
+	/**
+	 * Greedily merges the triangles into convex pieces
+	 *
+	 * Each piece is a counter-clockwise loop of outline indices.  Two pieces are merged
+	 * across a shared edge whenever the result is convex and has at most MAX_VERTICES
+	 * vertices.  This repeats until no more pieces can be merged.
+	 *
+	 * @param points	The polygon vertices
+	 * @param tris		The triangle indices
+	 *
+	 * @return the convex pieces
+	 */
+	private static Array<IntArray> merge(float[] points, short[] tris) {
+		Array<IntArray> pieces = new Array<IntArray>();
+		for (int ii = 0; ii+2 < tris.length; ii += 3) {
+			IntArray piece = new IntArray(MAX_VERTICES);
+			piece.add(tris[ii]);
+			if (cross(points, tris[ii], tris[ii+1], tris[ii+2]) >= 0) {
+				piece.add(tris[ii+1]);
+				piece.add(tris[ii+2]);
+			} else {
+				piece.add(tris[ii+2]);
+				piece.add(tris[ii+1]);
+			}
+			pieces.add(piece);
+		}
+
+		IntArray scratch = new IntArray(2*MAX_VERTICES);
+		boolean merged = true;
+		while (merged) {
+			merged = false;
+			for (int ii = 0; ii < pieces.size && !merged; ii++) {
+				for (int jj = ii+1; jj < pieces.size && !merged; jj++) {
+					if (join(points, pieces.get(ii), pieces.get(jj), scratch)) {
+						pieces.get(ii).clear();
+						pieces.get(ii).addAll(scratch);
+						pieces.removeIndex(jj);
+						merged = true;
+					}
+				}
+			}
+		}
+		return pieces;
+	}
+
+	/**
+	 * Joins two pieces across a shared edge, if the result is a valid piece
+	 *
+	 * @param points	The polygon vertices
+	 * @param a			The first piece
+	 * @param b			The second piece
+	 * @param result	The array to store the joined piece
+	 *
+	 * @return true if the pieces were joined
+	 */
+	private static boolean join(float[] points, IntArray a, IntArray b, IntArray result) {
+		if (a.size+b.size-2 > MAX_VERTICES) {
+			return false;
+		}
+		for (int ii = 0; ii < a.size; ii++) {
+			int u = a.get(ii);
+			int v = a.get((ii+1) % a.size);
+			// The shared edge runs the other way around the neighbor
+			for (int jj = 0; jj < b.size; jj++) {
+				if (b.get(jj) == v && b.get((jj+1) % b.size) == u) {
+					result.clear();
+					for (int kk = 0; kk < a.size; kk++) {
+						result.add(a.get((ii+1+kk) % a.size));
+					}
+					for (int kk = 2; kk < b.size; kk++) {
+						result.add(b.get((jj+kk) % b.size));
+					}
+					return isConvex(points, result);
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns true if the counter-clockwise loop has no reflex vertices
+	 *
+	 * Colinear vertices are allowed, as Box2D removes them.
+	 *
+	 * @param points	The polygon vertices
+	 * @param loop		The loop of outline indices
+	 *
+	 * @return true if the counter-clockwise loop has no reflex vertices
+	 */
+	private static boolean isConvex(float[] points, IntArray loop) {
+		int n = loop.size;
+		for (int ii = 0; ii < n; ii++) {
+			int p = loop.get(ii);
+			int q = loop.get((ii+1) % n);
+			int r = loop.get((ii+2) % n);
+			float ex = points[2*q]-points[2*p];
+			float ey = points[2*q+1]-points[2*p+1];
+			float fx = points[2*r]-points[2*q];
+			float fy = points[2*r+1]-points[2*q+1];
+			float scale = (Math.abs(ex)+Math.abs(ey))*(Math.abs(fx)+Math.abs(fy));
+			if (cross(points, p, q, r) < -EPSILON*scale) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the cross product of the edges p-q and q-r
+	 *
+	 * This is positive if the turn at q is counter-clockwise.
+	 *
+	 * @param points	The polygon vertices
+	 * @param p			The first outline index
+	 * @param q			The second outline index
+	 * @param r			The third outline index
+	 *
+	 * @return the cross product of the edges p-q and q-r
+	 */
+	private static float cross(float[] points, int p, int q, int r) {
+		float ex = points[2*q]-points[2*p];
+		float ey = points[2*q+1]-points[2*p+1];
+		float fx = points[2*r]-points[2*q];
+		float fy = points[2*r+1]-points[2*q+1];
+		return ex*fy-ey*fx;
+	}
+}
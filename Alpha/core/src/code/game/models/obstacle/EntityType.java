@@ -0,0 +1,42 @@
+/*
+ * EntityType.java
+ *
+ * What kind of gameplay object an obstacle is.  The collision controller used to
+ * tell objects apart by their name strings, so every contact paid for a few string
+ * comparisons, and a misspelled name quietly disabled an interaction.  The type tag
+ * lets the contact code switch on an enum instead.
+ */
+package code.game.models.obstacle;
+
+/**
+ * The category of a game object.
+ *
+ * Each category also has its own Box2D collision category bit.
+ */
+public enum EntityType {
+	/** An object with no gameplay role */
+	NONE,
+	/** A boundary wall */
+	WALL,
+	/** An interior platform (counter) */
+	PLATFORM,
+	/** The stove the chef cooks at */
+	STOVE,
+	/** The player character */
+	CHEF,
+	/** An enemy chicken */
+	CHICKEN,
+	/** A placed trap */
+	TRAP,
+	/** A spot where traps can be placed */
+	TRAP_SPOT;
+
+	/**
+	 * Returns the Box2D collision category bit for this type
+	 *
+	 * @return the Box2D collision category bit for this type
+	 */
+	public short getCategory() {
+		return (short)(1 << ordinal());
+	}
+}
@@ -42,15 +42,29 @@ public abstract class Obstacle {
 	protected BodyDef bodyinfo;
 	/** Stores the fixture information for this shape */
 	protected FixtureDef fixture;
+	/** The filter of the sensor fixtures (null to use the fixture filter) */
+	private Filter sensorFilter;
 	/** The mass data of this shape (which may override the fixture) */
 	protected MassData massdata;
 	/** Whether or not to use the custom mass data */
 	protected boolean masseffect;
     /** A tag for debugging purposes */
     private String nametag;
+    /** The gameplay category of this object */
+    private EntityType entityType = EntityType.NONE;
 	/** Drawing scale to convert game units to pixels */
 	protected Vector2 drawScale;
 
+	/// Render interpolation
+	/** The position at the start of the latest physics step */
+	private final Vector2 prevPosition = new Vector2();
+	/** The angle at the start of the latest physics step */
+	private float prevAngle;
+	/** The position to draw at (between the last two physics states) */
+	private final Vector2 drawPosition = new Vector2();
+	/** The angle to draw at (between the last two physics states) */
+	private float drawAngle;
+
 	/// Track garbage collection status
 	/** Whether the object should be removed from the world on next pass */
 	private boolean toRemove;
@@ -677,6 +691,50 @@ public abstract class Obstacle {
 		}
 	}
 
+	/**
+	 * Returns the filter data for the sensors of this object (or null if there is none)
+	 *
+	 * Sensor fixtures without their own filter are filtered the same as the object.
+	 *
+	 * @return the filter data for the sensors of this object (or null if there is none)
+	 */
+	public Filter getSensorFilterData() {
+		return sensorFilter;
+	}
+
+	/**
+	 * Sets the filter data for the sensors of this object
+	 *
+	 * Subclasses that attach sensor fixtures apply this filter to them in
+	 * activatePhysics (see {@link #applySensorFilter}).  A value of null filters the
+	 * sensors the same as the object.
+	 *
+	 * @param value  the filter data for the sensors of this object
+	 */
+	public void setSensorFilterData(Filter value) {
+		if (value == null) {
+			sensorFilter = null;
+			return;
+		} else if (sensorFilter == null) {
+			sensorFilter = new Filter();
+		}
+		sensorFilter.categoryBits = value.categoryBits;
+		sensorFilter.groupIndex = value.groupIndex;
+		sensorFilter.maskBits   = value.maskBits;
+	}
+
+	/**
+	 * Copies the sensor filter data of this object to the given fixture definition
+	 *
+	 * @param def	The definition of a sensor fixture
+	 */
+	protected void applySensorFilter(FixtureDef def) {
+		Filter filter = sensorFilter == null ? fixture.filter : sensorFilter;
+		def.filter.categoryBits = filter.categoryBits;
+		def.filter.groupIndex = filter.groupIndex;
+		def.filter.maskBits   = filter.maskBits;
+	}
+
 	/// MassData Methods
 	/**
 	 * Returns the center of mass of this body
@@ -909,7 +967,82 @@ public abstract class Obstacle {
     public void setName(String value) {
      	nametag = value; 
 	}
-	
+
+    /// RENDER INTERPOLATION
+    /**
+     * Records the current position and angle as the start of the next physics step.
+     *
+     * This should be called before every physics step, and whenever the object is
+     * teleported, so that drawing can interpolate between the last two states.
+     */
+    public void snapshot() {
+    	prevPosition.set(getX(),getY());
+    	prevAngle = getAngle();
+    	drawPosition.set(prevPosition);
+    	drawAngle = prevAngle;
+    }
+
+    /**
+     * Computes the drawing position between the last two physics states.
+     *
+     * An alpha of 0 is the state before the latest physics step, while an alpha of
+     * 1 is the current state.
+     *
+     * @param alpha	The fraction of a physics step to interpolate by
+     */
+    public void interpolate(float alpha) {
+    	drawPosition.set(prevPosition.x + (getX()-prevPosition.x)*alpha,
+    					 prevPosition.y + (getY()-prevPosition.y)*alpha);
+    	drawAngle = prevAngle + (getAngle()-prevAngle)*alpha;
+    }
+
+    /**
+     * Returns the x-coordinate to draw this object at
+     *
+     * @return the x-coordinate to draw this object at
+     */
+    public float getDrawX() {
+    	return drawPosition.x;
+    }
+
+    /**
+     * Returns the y-coordinate to draw this object at
+     *
+     * @return the y-coordinate to draw this object at
+     */
+    public float getDrawY() {
+    	return drawPosition.y;
+    }
+
+    /**
+     * Returns the angle to draw this object at
+     *
+     * @return the angle to draw this object at
+     */
+    public float getDrawAngle() {
+    	return drawAngle;
+    }
+
+    /**
+     * Returns the gameplay category of this object.
+     *
+     * Collision handling uses this (not the name) to decide what kind of object this is.
+     *
+     * @return the gameplay category of this object.
+     */
+    public EntityType getEntityType() {
+    	return entityType;
+    }
+
+    /**
+     * Sets the gameplay category of this object.
+     *
+     * @param  type    the gameplay category of this object
+     */
+    public void setEntityType(EntityType type) {
+    	entityType = type;
+    }
+
 	/**
 	 * Create a new game object at the origin.
 	 */
@@ -970,6 +1103,28 @@ public abstract class Obstacle {
 	 */
 	public abstract void deactivatePhysics(World world);
 
+	/**
+	 * Returns true if this object has a parked body waiting to be reused.
+	 *
+	 * @return true if this object has a parked body waiting to be reused.
+	 */
+	public boolean isParked() {
+		return false;
+	}
+
+	/**
+	 * Removes this object from the simulation, keeping its body for reuse if possible.
+	 *
+	 * A parked object behaves as if it were deactivated, but the next call to
+	 * activatePhysics() reuses the old body instead of creating a new one.  By
+	 * default there is nothing to keep, and this simply deactivates the object.
+	 *
+	 * @param world Box2D world that stores body
+	 */
+	public void park(World world) {
+		deactivatePhysics(world);
+	}
+
 	/**
 	 * Updates the object's game state (NOT GAME LOGIC).
 	 *
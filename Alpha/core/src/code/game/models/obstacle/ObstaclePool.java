@@ -0,0 +1,76 @@
+/*
+ * ObstaclePool.java
+ *
+ * Every chicken and trap used to be a new Java object with a new Box2D body and
+ * fixtures, and every removal destroyed them again.  At high spawn rates that churn
+ * shows up as garbage collection pauses and Box2D body creation stalls.  A pool
+ * keeps removed objects, along with their parked bodies, for the next spawn.
+ *
+ * This is the same LibGDX memory pool that PooledList uses for its entries.
+ */
+package code.game.models.obstacle;
+
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Pool;
+
+/**
+ * A memory pool of obstacles whose bodies are reused.
+ *
+ * Objects must be parked (see Obstacle.park) before they are freed.  If the object
+ * type implements Pool.Poolable, its reset() method is called when it is freed, and
+ * should restore the gameplay state of a freshly constructed object.
+ *
+ * Parked bodies belong to a specific World, so a pool must be thrown away whenever
+ * the world is.
+ */
+public abstract class ObstaclePool<T extends Obstacle> extends Pool<T> {
+
+	/**
+	 * Creates a pool with the default capacity and no maximum
+	 */
+	public ObstaclePool() {
+		super();
+	}
+
+	/**
+	 * Creates a pool with the given capacity and maximum
+	 *
+	 * @param initialCapacity	The initial number of free objects to hold
+	 * @param max				The maximum number of free objects to hold
+	 */
+	public ObstaclePool(int initialCapacity, int max) {
+		super(initialCapacity, max);
+	}
+
+	/**
+	 * Returns an object from the pool, creating one if necessary.
+	 *
+	 * The object is no longer marked as removed, and is ready to be positioned and
+	 * added to the world.
+	 *
+	 * @return an object from the pool
+	 */
+	@Override
+	public T obtain() {
+		T obj = super.obtain();
+		obj.markRemoved(false);
+		return obj;
+	}
+
+	/**
+	 * Parks the body of a removed object and returns it to the pool
+	 *
+	 * If the pool is already full, the object is deactivated instead.
+	 *
+	 * @param obj	The object to recycle
+	 * @param world	Box2D world that stores the body
+	 */
+	public void recycle(T obj, World world) {
+		if (getFree() >= max) {
+			obj.deactivatePhysics(world);
+			return;
+		}
+		obj.park(world);
+		free(obj);
+	}
+}
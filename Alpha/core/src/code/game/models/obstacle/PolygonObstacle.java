@@ -32,10 +32,7 @@ import code.game.views.GameCanvas;
  * from the texture size, using the same policy as PolygonSpriteBatch.
  */
 public class PolygonObstacle extends SimpleObstacle {
-	/** An earclipping triangular to make sure we work with convex shapes */
-	private static final EarClippingTriangulator TRIANGULATOR = new EarClippingTriangulator();
-	
-	/** Shape information for this game object */
+	/** Shape information for this game object (one per convex piece) */
 	protected PolygonShape[] shapes;
 	/** Texture information for this object */
 	protected PolygonRegion region;
@@ -44,6 +41,8 @@ public class PolygonObstacle extends SimpleObstacle {
 	private float[] scaled;
 	/** The triangle indices, used for drawing */
 	private short[] tridx;
+	/** The convex pieces of the polygon (shared, so never modified) */
+	private ConvexDecomposition pieces;
 
 	/** A cache value for the fixtures (for resizing) */
 	private Fixture[] geoms;
@@ -51,7 +50,7 @@ public class PolygonObstacle extends SimpleObstacle {
 	private Vector2 dimension;
 	/** A cache value for when the user wants to access the dimensions */
 	private Vector2 sizeCache;
-	/** Cache of the polygon vertices (for resizing) */
+	/** Cache of the vertices of every piece (for resizing) */
 	private float[] vertices;
 	
 	/** 
@@ -190,6 +189,10 @@ public class PolygonObstacle extends SimpleObstacle {
 	/**
 	 * Initializes the Box2d shapes for this polygon
 	 *
+	 * The polygon is triangulated, and the triangles merged into convex pieces of
+	 * at most 8 vertices, each of which gets its own shape.  The decomposition is
+	 * cached, so rebuilding the same outline (say, on a level reset) is cheap.
+	 *
 	 * If the texture is not null, this method also allocates the PolygonRegion 
 	 * for drawing.  However, the points in the polygon region may be rescaled 
 	 * later.
@@ -197,25 +200,17 @@ public class PolygonObstacle extends SimpleObstacle {
 	 * @param points   The polygon vertices
 	 */
 	private void initShapes(float[] points) {
-		// Triangulate
-		ShortArray array = TRIANGULATOR.computeTriangles(points);
-		trimColinear(points,array);
+		pieces = ConvexDecomposition.obtain(points);
+		tridx = pieces.getTriangles();
 		
-		tridx = new short[array.items.length];
-		System.arraycopy(array.items, 0, tridx, 0, tridx.length);
-		
-		// Allocate space for game triangles.
-		int tris = array.items.length / 3;
-		vertices = new float[tris*6];
-		shapes = new PolygonShape[tris];
-		geoms  = new Fixture[tris];
-		for(int ii = 0; ii < tris; ii++) {
-			for(int jj = 0; jj < 3; jj++) {
-				vertices[6*ii+2*jj  ] = points[2*array.items[3*ii+jj]  ];
-				vertices[6*ii+2*jj+1] = points[2*array.items[3*ii+jj]+1];
-			}
+		// Allocate space for game pieces.
+		int count = pieces.getPieceCount();
+		vertices = pieces.getVertices().clone();
+		shapes = new PolygonShape[count];
+		geoms  = new Fixture[count];
+		for(int ii = 0; ii < count; ii++) {
 			shapes[ii] = new PolygonShape();
-			shapes[ii].set(vertices,6*ii,6);
+			shapes[ii].set(vertices,pieces.getOffset(ii),pieces.getLength(ii));
 		}
 		
 		// Draw the shape with the appropriate scaling factor
@@ -231,32 +226,6 @@ public class PolygonObstacle extends SimpleObstacle {
 
 	}
 	
-	/**
-	 * Removes colinear vertices from the given triangulation.
-	 *
-	 * For some reason, the LibGDX triangulator will occasionally return colinear
-	 * vertices.
-	 *
-	 * @param points  The polygon vertices
-	 * @param indices The triangulation indices
-	 */
-	private void trimColinear(float[] points, ShortArray indices) {
-		int colinear = 0;
-		for(int ii = 0; ii < indices.size/3-colinear; ii++) {
-			float t1 = points[2*indices.items[3*ii  ]]*(points[2*indices.items[3*ii+1]+1]-points[2*indices.items[3*ii+2]+1]);
-			float t2 = points[2*indices.items[3*ii+1]]*(points[2*indices.items[3*ii+2]+1]-points[2*indices.items[3*ii  ]+1]);
-			float t3 = points[2*indices.items[3*ii+2]]*(points[2*indices.items[3*ii  ]+1]-points[2*indices.items[3*ii+1]+1]);
-			if (Math.abs(t1+t2+t3) < 0.0000001f) {
-				indices.swap(3*ii  ,  indices.size-3*colinear-3);
-				indices.swap(3*ii+1,  indices.size-3*colinear-2);
-				indices.swap(3*ii+2,  indices.size-3*colinear-1);
-				colinear++;
-			 }
-		}
-		indices.size -= 3*colinear;
-		indices.shrink();
-	}
-	
 	/**
 	 * Resize this polygon (stretching uniformly out from origin)
 	 *
@@ -267,12 +236,12 @@ public class PolygonObstacle extends SimpleObstacle {
 		float scalex = width/dimension.x;
 		float scaley = height/dimension.y;
 		
+		for(int ii = 0; ii < vertices.length; ii+= 2) {
+			vertices[ii  ] *= scalex;
+			vertices[ii+1] *= scaley;
+		}
 		for(int ii = 0; ii < shapes.length; ii++) {
-			for(int jj = 0; jj < 3; jj++) {
-				vertices[6*ii+2*jj  ] *= scalex;
-				vertices[6*ii+2*jj+1] *= scaley;
-			}
-			shapes[ii].set(vertices,6*ii,6);
+			shapes[ii].set(vertices,pieces.getOffset(ii),pieces.getLength(ii));
 		}
 		
 		// Reset the drawing shape as well
@@ -377,8 +346,8 @@ public class PolygonObstacle extends SimpleObstacle {
 	 * @param canvas Drawing context
 	 */
 	public void drawDebug(GameCanvas canvas) {
-		for(PolygonShape tri : shapes) {
-			canvas.drawPhysics(tri,Color.YELLOW,getX(),getY(),getAngle(),drawScale.x,drawScale.y);
+		for(PolygonShape piece : shapes) {
+			canvas.drawPhysics(piece,Color.YELLOW,getX(),getY(),getAngle(),drawScale.x,drawScale.y);
 		}
 	}
 	
@@ -35,6 +35,8 @@ import code.game.views.GameCanvas;
 public abstract class SimpleObstacle extends Obstacle {
 	/** The game body for Box2D. */
 	protected Body body;
+	/** An inactive body kept in the world for reuse (null if none) */
+	private Body parked;
 
 	/** The texture for the shape. */
 	protected TextureRegion texture;
@@ -776,7 +778,7 @@ public abstract class SimpleObstacle extends Obstacle {
 	 */
 	public void draw(GameCanvas canvas) {
 		if (texture != null) {
-			canvas.draw(texture,Color.WHITE,origin.x,origin.y,getX()*drawScale.x,getY()*drawScale.x,getAngle(),1,1);
+			canvas.draw(texture,Color.WHITE,origin.x,origin.y,getDrawX()*drawScale.x,getDrawY()*drawScale.x,getDrawAngle(),1,1);
 		}
 	}
 	
@@ -823,6 +825,19 @@ public abstract class SimpleObstacle extends Obstacle {
 	 * @return true if object allocation succeeded
 	 */
 	public boolean activatePhysics(World world) {
+		// Reuse a parked body, moving it to where we are now
+		if (parked != null) {
+			body = parked;
+			parked = null;
+			body.setTransform(bodyinfo.position, bodyinfo.angle);
+			body.setLinearVelocity(bodyinfo.linearVelocity);
+			body.setAngularVelocity(bodyinfo.angularVelocity);
+			body.setAwake(true);
+			body.setActive(true);
+			bodyinfo.active = true;
+			return true;
+		}
+
 		// Make a body, if possible
 		bodyinfo.active = true;
 		body = world.createBody(bodyinfo);
@@ -845,6 +860,10 @@ public abstract class SimpleObstacle extends Obstacle {
 	 * @param world Box2D world that stores body
 	 */
 	public void deactivatePhysics(World world) {
+		if (parked != null) {
+			world.destroyBody(parked);
+			parked = null;
+		}
 		// Should be good for most (simple) applications.
 		if (body != null) {
 			// Snapshot the values
@@ -855,6 +874,39 @@ public abstract class SimpleObstacle extends Obstacle {
 		}
 	}
 
+	/**
+	 * Returns true if this object has a parked body waiting to be reused.
+	 *
+	 * Subclasses that add fixtures in activatePhysics() should check this first,
+	 * as a reused body already has them.
+	 *
+	 * @return true if this object has a parked body waiting to be reused.
+	 */
+	public boolean isParked() {
+		return parked != null;
+	}
+
+	/**
+	 * Removes this object from the simulation, keeping its body for reuse.
+	 *
+	 * The body is made inactive, so it takes no part in collisions, and the object
+	 * behaves as if it were deactivated.  The body comes back (at rest) on the next
+	 * call to activatePhysics().
+	 *
+	 * @param world Box2D world that stores body
+	 */
+	public void park(World world) {
+		if (body != null) {
+			setBodyState(body);
+			body.setActive(false);
+			parked = body;
+			body = null;
+			bodyinfo.active = false;
+			bodyinfo.linearVelocity.setZero();
+			bodyinfo.angularVelocity = 0;
+		}
+	}
+
 	/**
 	 * Create new fixtures for this body, defining the shape
 	 *
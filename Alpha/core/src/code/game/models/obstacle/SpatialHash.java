@@ -0,0 +1,303 @@
+/*
+ * SpatialHash.java
+ *
+ * A broadphase for gameplay queries like "which chickens are in the slap arc" or
+ * "which chickens are near this lure".  Box2D can answer these with sensors, but only
+ * one step late and at the cost of extra fixtures.  Scanning every object instead is
+ * O(n) per query.  This index buckets objects by position on a uniform grid, so a
+ * query only looks at the buckets it overlaps.
+ *
+ * The index is a snapshot.  It is meant to be cleared and refilled once per frame,
+ * after the physics step, and never allocates once it has grown to fit the level.
+ */
+package code.game.models.obstacle;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+
+import java.util.Arrays;
+
+/**
+ * A uniform grid index of obstacle positions.
+ *
+ * The index is typed by the obstacles it holds (e.g. only chickens), so that query
+ * results need no casts.  Each bucket is a singly linked list threaded through primitive arrays, so the
+ * index holds no per-entry objects.  Objects outside of the bounds are clamped to
+ * the border buckets, which keeps queries correct (if slower) for strays.
+ */
+public class SpatialHash<T extends Obstacle> {
+	/** The initial number of entries */
+	private static final int INITIAL_CAPACITY = 64;
+
+	/** The width and height of a bucket in Box2D units */
+	private final float cellSize;
+	/** The x-coordinate of the bottom left corner of the index */
+	private final float originX;
+	/** The y-coordinate of the bottom left corner of the index */
+	private final float originY;
+	/** The number of bucket columns */
+	private final int cols;
+	/** The number of bucket rows */
+	private final int rows;
+	/** The first entry of each bucket (-1 if empty) */
+	private final int[] heads;
+
+	/** The next entry in the same bucket (-1 if last) */
+	private int[] next;
+	/** The object of each entry */
+	private T[] items;
+	/** The x-coordinate of each entry */
+	private float[] xs;
+	/** The y-coordinate of each entry */
+	private float[] ys;
+	/** The number of entries */
+	private int size;
+
+	/**
+	 * Creates a new, empty index over the given bounds
+	 *
+	 * @param bounds	The level bounds in Box2D coordinates
+	 * @param cellSize	The width and height of a bucket in Box2D units
+	 */
+	public SpatialHash(Rectangle bounds, float cellSize) {
+		assert cellSize > 0 : "Cell size must be positive";
+		this.cellSize = cellSize;
+		originX = bounds.x;
+		originY = bounds.y;
+		cols = Math.max(1, (int)Math.ceil(bounds.width/cellSize));
+		rows = Math.max(1, (int)Math.ceil(bounds.height/cellSize));
+		heads = new int[cols*rows];
+		Arrays.fill(heads, -1);
+
+		next  = new int[INITIAL_CAPACITY];
+		items = newArray(INITIAL_CAPACITY);
+		xs = new float[INITIAL_CAPACITY];
+		ys = new float[INITIAL_CAPACITY];
+		size = 0;
+	}
+
+	/**
+	 * Returns the number of objects in the index
+	 *
+	 * @return the number of objects in the index
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the object at the given position in the index
+	 *
+	 * Objects are in the order they were inserted.
+	 *
+	 * @param index	The insertion position
+	 *
+	 * @return the object at the given position in the index
+	 */
+	public T get(int index) {
+		return items[index];
+	}
+
+	/**
+	 * Removes all objects from the index
+	 */
+	public void clear() {
+		Arrays.fill(heads, -1);
+		Arrays.fill(items, 0, size, null);
+		size = 0;
+	}
+
+	/**
+	 * Adds an object to the index at its current position
+	 *
+	 * @param obj	The object to add
+	 */
+	public void insert(T obj) {
+		if (size == items.length) {
+			grow();
+		}
+		float x = obj.getX();
+		float y = obj.getY();
+		int bucket = row(y)*cols + col(x);
+		items[size] = obj;
+		xs[size] = x;
+		ys[size] = y;
+		next[size] = heads[bucket];
+		heads[bucket] = size;
+		size++;
+	}
+
+	/**
+	 * Adds every object within the given radius of a point to out
+	 *
+	 * @param x			The x-coordinate of the center
+	 * @param y			The y-coordinate of the center
+	 * @param radius	The query radius
+	 * @param out		The array to add the results to
+	 *
+	 * @return out, for chaining
+	 */
+	public Array<T> queryRadius(float x, float y, float radius, Array<T> out) {
+		float r2 = radius*radius;
+		int col1 = col(x+radius);
+		int row1 = row(y+radius);
+		for (int row = row(y-radius); row <= row1; row++) {
+			for (int col = col(x-radius); col <= col1; col++) {
+				for (int ii = heads[row*cols+col]; ii >= 0; ii = next[ii]) {
+					float dx = xs[ii]-x;
+					float dy = ys[ii]-y;
+					if (dx*dx + dy*dy <= r2) {
+						out.add(items[ii]);
+					}
+				}
+			}
+		}
+		return out;
+	}
+
+	/**
+	 * Adds every object inside the given axis-aligned box to out
+	 *
+	 * @param x0	The left edge of the box
+	 * @param y0	The bottom edge of the box
+	 * @param x1	The right edge of the box
+	 * @param y1	The top edge of the box
+	 * @param out	The array to add the results to
+	 *
+	 * @return out, for chaining
+	 */
+	public Array<T> queryAABB(float x0, float y0, float x1, float y1, Array<T> out) {
+		int col1 = col(x1);
+		int row1 = row(y1);
+		for (int row = row(y0); row <= row1; row++) {
+			for (int col = col(x0); col <= col1; col++) {
+				for (int ii = heads[row*cols+col]; ii >= 0; ii = next[ii]) {
+					if (xs[ii] >= x0 && xs[ii] <= x1 && ys[ii] >= y0 && ys[ii] <= y1) {
+						out.add(items[ii]);
+					}
+				}
+			}
+		}
+		return out;
+	}
+
+	/**
+	 * Adds every object that touches the given circular sector to out
+	 *
+	 * The sector is centered on the given angle, and extends halfAngle to either
+	 * side of it.  Each object is treated as a circle of the given radius around its
+	 * position, and is included if that circle overlaps the sector, so an object can
+	 * be hit by its edge rather than only at its center.  An object within its radius
+	 * of the center is always included.
+	 *
+	 * @param x			The x-coordinate of the center
+	 * @param y			The y-coordinate of the center
+	 * @param radius	The sector radius
+	 * @param angle		The direction of the sector in radians
+	 * @param halfAngle	Half the angular width of the sector in radians
+	 * @param size		The radius of each object
+	 * @param out		The array to add the results to
+	 *
+	 * @return out, for chaining
+	 */
+	public Array<T> queryArc(float x, float y, float radius, float angle, float halfAngle, float size,
+							 Array<T> out) {
+		float reach = radius+size;
+		float reach2 = reach*reach;
+		float size2 = size*size;
+		float dirx = MathUtils.cos(angle);
+		float diry = MathUtils.sin(angle);
+		float cosHalf = MathUtils.cos(halfAngle);
+		// The unit vectors along the two straight edges of the sector
+		float leftx  = MathUtils.cos(angle+halfAngle);
+		float lefty  = MathUtils.sin(angle+halfAngle);
+		float rightx = MathUtils.cos(angle-halfAngle);
+		float righty = MathUtils.sin(angle-halfAngle);
+		int col1 = col(x+reach);
+		int row1 = row(y+reach);
+		for (int row = row(y-reach); row <= row1; row++) {
+			for (int col = col(x-reach); col <= col1; col++) {
+				for (int ii = heads[row*cols+col]; ii >= 0; ii = next[ii]) {
+					float dx = xs[ii]-x;
+					float dy = ys[ii]-y;
+					float d2 = dx*dx + dy*dy;
+					if (d2 > reach2) {
+						continue;
+					}
+					// Inside the angle, the circle only has to reach the arc.  Outside
+					// of it, the circle must cross one of the straight edges.
+					if (d2 <= size2 || dx*dirx + dy*diry >= (float)Math.sqrt(d2)*cosHalf ||
+						edgeDistance2(dx, dy, leftx, lefty, radius) <= size2 ||
+						edgeDistance2(dx, dy, rightx, righty, radius) <= size2) {
+						out.add(items[ii]);
+					}
+				}
+			}
+		}
+		return out;
+	}
+
+	/**
+	 * Returns the squared distance from a point to a segment starting at the origin
+	 *
+	 * @param dx		The x-coordinate of the point
+	 * @param dy		The y-coordinate of the point
+	 * @param ux		The x-coordinate of the segment direction (a unit vector)
+	 * @param uy		The y-coordinate of the segment direction (a unit vector)
+	 * @param length	The length of the segment
+	 *
+	 * @return the squared distance from a point to the segment
+	 */
+	private static float edgeDistance2(float dx, float dy, float ux, float uy, float length) {
+		float t = MathUtils.clamp(dx*ux + dy*uy, 0, length);
+		float ex = dx-t*ux;
+		float ey = dy-t*uy;
+		return ex*ex + ey*ey;
+	}
+
+	/**
+	 * Returns the bucket column containing the given x-coordinate (clamped)
+	 *
+	 * @param x	The x-coordinate in Box2D units
+	 *
+	 * @return the bucket column containing the given x-coordinate
+	 */
+	private int col(float x) {
+		return MathUtils.clamp((int)Math.floor((x-originX)/cellSize), 0, cols-1);
+	}
+
+	/**
+	 * Returns the bucket row containing the given y-coordinate (clamped)
+	 *
+	 * @param y	The y-coordinate in Box2D units
+	 *
+	 * @return the bucket row containing the given y-coordinate
+	 */
+	private int row(float y) {
+		return MathUtils.clamp((int)Math.floor((y-originY)/cellSize), 0, rows-1);
+	}
+
+	/**
+	 * Returns a new array of entry objects
+	 *
+	 * @param capacity	The array length
+	 *
+	 * @return a new array of entry objects
+	 */
+	@SuppressWarnings("unchecked")
+	private T[] newArray(int capacity) {
+		return (T[])new Obstacle[capacity];
+	}
+
+	/**
+	 * Doubles the capacity of the entry arrays
+	 */
+	private void grow() {
+		int capacity = items.length*2;
+		next  = Arrays.copyOf(next, capacity);
+		items = Arrays.copyOf(items, capacity);
+		xs = Arrays.copyOf(xs, capacity);
+		ys = Arrays.copyOf(ys, capacity);
+	}
+}
@@ -0,0 +1,131 @@
+/*
+ * AllocationMeter.java
+ *
+ * Counts the bytes allocated by the game thread.  Garbage in the hot path only shows
+ * up as the occasional GC stutter, long after the code that made it has run.  The
+ * HotSpot ThreadMXBean keeps a running total of the bytes each thread has allocated,
+ * so sampling it around a phase of the frame tells us exactly how much garbage that
+ * phase made.
+ *
+ * The bean is a HotSpot extension (com.sun.management), so it is looked up at run
+ * time.  On any other VM the meter simply reports that it is not supported.
+ */
+package code.game.profile;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * A counter of the bytes allocated by the current thread.
+ *
+ * On JDKs before 14, reading the counter for a single thread allocates a couple of
+ * small arrays of its own.  The meter measures this once, and subtracts it from every
+ * reading, so that the meter does not see itself.  A meter should therefore only be
+ * read from one thread.
+ */
+public class AllocationMeter {
+	/** The HotSpot thread bean (null if not supported) */
+	private static final com.sun.management.ThreadMXBean BEAN = lookup();
+	/** The bytes allocated by a single reading of the bean */
+	private static final long OVERHEAD = calibrate();
+
+	/** The number of readings taken by this meter */
+	private long readings;
+
+	/**
+	 * Returns the HotSpot thread bean, with allocation counting enabled
+	 *
+	 * @return the HotSpot thread bean (null if not supported)
+	 */
+	private static com.sun.management.ThreadMXBean lookup() {
+		try {
+			java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+			if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+				return null;
+			}
+			com.sun.management.ThreadMXBean hotspot = (com.sun.management.ThreadMXBean)bean;
+			if (!hotspot.isThreadAllocatedMemorySupported()) {
+				return null;
+			}
+			if (!hotspot.isThreadAllocatedMemoryEnabled()) {
+				hotspot.setThreadAllocatedMemoryEnabled(true);
+			}
+			return hotspot;
+		} catch (LinkageError e) {
+			return null;
+		} catch (UnsupportedOperationException e) {
+			return null;
+		} catch (SecurityException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the bytes allocated by a single reading of the bean
+	 *
+	 * We take the smallest of a few back-to-back readings, since the first few may
+	 * include class loading.
+	 *
+	 * @return the bytes allocated by a single reading of the bean
+	 */
+	private static long calibrate() {
+		if (BEAN == null) {
+			return 0;
+		}
+		long id = Thread.currentThread().getId();
+		long best = Long.MAX_VALUE;
+		for (int ii = 0; ii < 16; ii++) {
+			long first  = BEAN.getThreadAllocatedBytes(id);
+			long second = BEAN.getThreadAllocatedBytes(id);
+			best = Math.min(best, second-first);
+		}
+		return Math.max(0, best);
+	}
+
+	/**
+	 * Returns true if this VM can count the bytes allocated by a thread
+	 *
+	 * @return true if this VM can count the bytes allocated by a thread
+	 */
+	public static boolean isSupported() {
+		return BEAN != null;
+	}
+
+	/**
+	 * Returns the bytes allocated by the current thread so far
+	 *
+	 * Only differences between two readings are meaningful.  The garbage made by the
+	 * readings of this meter is not counted.
+	 *
+	 * @return the bytes allocated by the current thread (0 if not supported)
+	 */
+	public long getAllocatedBytes() {
+		if (BEAN == null) {
+			return 0;
+		}
+		long bytes = BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+		return bytes-OVERHEAD*(readings++);
+	}
+
+	/**
+	 * Appends a number of bytes, in B, KB or MB, to the given builder
+	 *
+	 * This avoids the garbage of String.format, so the overlay can use it every frame.
+	 *
+	 * @param builder	The builder to append to
+	 * @param bytes		The number of bytes
+	 *
+	 * @return the builder, for chaining
+	 */
+	public static StringBuilder appendBytes(StringBuilder builder, long bytes) {
+		if (bytes < 1024) {
+			return builder.append(bytes).append(" B");
+		}
+		long tenths = bytes*10/1024;
+		String unit = " KB";
+		if (tenths >= 10240) {
+			tenths /= 1024;
+			unit = " MB";
+		}
+		return builder.append(tenths/10).append('.').append(tenths%10).append(unit);
+	}
+}
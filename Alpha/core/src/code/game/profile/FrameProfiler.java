@@ -0,0 +1,492 @@
+/*
+ * FrameProfiler.java
+ *
+ * Timing for the phases of the game loop.  A slow frame can come from reading the
+ * input, the gameplay update, the Box2D step, the contact callbacks, the chicken AI
+ * or the drawing, and the frame rate alone cannot tell them apart.  The profiler
+ * timestamps each phase with System.nanoTime and keeps the last few hundred frames,
+ * so that the overlay can show percentiles and the history can be saved for a
+ * spreadsheet at the end of a level.
+ *
+ * It can also count the bytes allocated by each phase and the garbage collections
+ * in each frame.  This costs a little more per phase, so it is off by default.
+ *
+ * While a Flight Recorder recording is running, every frame and phase is also sent
+ * to the recording as a Telemetry event.
+ */
+package code.game.profile;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import code.telemetry.Telemetry;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * A ring buffer of per-phase frame timings.
+ *
+ * The history is a fixed block of primitive arrays, written by the game thread alone,
+ * so recording a frame takes no locks and allocates nothing.  Phases may nest: INPUT
+ * includes NAVIGATION, and STEP includes PHYSICS, CONTACTS and OBJECTS.  A phase may
+ * also be entered several times in one frame (once per physics step), in which case
+ * its times are added up, as are its bytes allocated when allocation tracking is on.
+ */
+public class FrameProfiler {
+	/** The phases of a frame */
+	public enum Phase {
+		/** The whole frame */
+		FRAME,
+		/** Reading the input and steering the chickens (preUpdate) */
+		INPUT,
+		/** The gameplay update (update) */
+		UPDATE,
+		/** Every physics step of the frame (postUpdate) */
+		STEP,
+		/** The Box2D world step */
+		PHYSICS,
+		/** Handling the contacts buffered during the world step */
+		CONTACTS,
+		/** The flow field, the chicken AI and the path planner */
+		NAVIGATION,
+		/** Garbage collecting and updating the objects */
+		OBJECTS,
+		/** Drawing the frame */
+		DRAW
+	}
+
+	/** The number of frames kept by default */
+	public static final int DEFAULT_FRAMES = 256;
+	/** The phases, cached to avoid copying the values array */
+	private static final Phase[] PHASES = Phase.values();
+	/** The name of each phase, as used in the Telemetry events */
+	private static final String[] NAMES = new String[PHASES.length];
+	static {
+		for (int ii = 0; ii < PHASES.length; ii++) {
+			NAMES[ii] = PHASES[ii].name().toLowerCase();
+		}
+	}
+	/** Nanoseconds per millisecond */
+	private static final long NANOS_PER_MILLI = 1000000L;
+
+	/** The time of each phase in the frames kept (in nanoseconds, indexed by phase then frame) */
+	private final long[][] history;
+	/** The time of each phase so far this frame */
+	private final long[] current;
+	/** The time each phase was last entered */
+	private final long[] started;
+	/** Scratch space for sorting a phase when computing percentiles */
+	private final long[] sorted;
+	/** The number of frames kept (a power of two) */
+	private final int capacity;
+	/** The total number of frames recorded since the last clear */
+	private long frames;
+	/** Whether a frame is currently being recorded */
+	private boolean recording;
+
+	/** The bytes allocated by each phase in the frames kept (indexed by phase then frame) */
+	private final long[][] allocated;
+	/** The bytes allocated by each phase so far this frame */
+	private final long[] currentBytes;
+	/** The allocation counter when each phase was last entered */
+	private final long[] startedBytes;
+	/** The garbage collections that ended during each frame kept */
+	private final long[] collected;
+	/** The garbage collections seen when the current frame started */
+	private long startedCollections;
+	/** The counter of bytes allocated by the game thread */
+	private final AllocationMeter meter;
+	/** The counter of garbage collections */
+	private final GcMonitor monitor;
+	/** Whether the current frame is tracking allocations */
+	private boolean tracking;
+	/** Whether the next frame should track allocations */
+	private boolean trackingRequested;
+
+	/** The open Telemetry span of each phase (null if none) */
+	private final Object[] spans;
+
+	/**
+	 * Creates a profiler that keeps the default number of frames
+	 */
+	public FrameProfiler() {
+		this(DEFAULT_FRAMES);
+	}
+
+	/**
+	 * Creates a profiler that keeps the given number of frames
+	 *
+	 * The capacity is rounded up to a power of two.
+	 *
+	 * @param frames	The number of frames to keep
+	 */
+	public FrameProfiler(int frames) {
+		if (frames <= 0) {
+			throw new GdxRuntimeException("Profiler needs at least one frame, not "+frames);
+		}
+		capacity = MathUtils.nextPowerOfTwo(frames);
+		history = new long[PHASES.length][capacity];
+		current = new long[PHASES.length];
+		started = new long[PHASES.length];
+		sorted  = new long[capacity];
+		allocated = new long[PHASES.length][capacity];
+		currentBytes = new long[PHASES.length];
+		startedBytes = new long[PHASES.length];
+		collected = new long[capacity];
+		meter = new AllocationMeter();
+		monitor = new GcMonitor();
+		spans = new Object[PHASES.length];
+	}
+
+	/**
+	 * Returns true if this profiler counts allocations and garbage collections
+	 *
+	 * @return true if this profiler counts allocations and garbage collections
+	 */
+	public boolean isTracking() {
+		return trackingRequested;
+	}
+
+	/**
+	 * Sets whether this profiler counts allocations and garbage collections
+	 *
+	 * The change takes effect at the start of the next frame, so that no phase is
+	 * left half measured.  Tracking is quietly ignored on VMs that cannot count
+	 * allocations.
+	 *
+	 * @param value	whether this profiler counts allocations and garbage collections
+	 */
+	public void setTracking(boolean value) {
+		trackingRequested = value && AllocationMeter.isSupported();
+		if (trackingRequested) {
+			monitor.start();
+		} else {
+			monitor.stop();
+		}
+	}
+
+	/**
+	 * Returns the garbage collections seen since tracking was first turned on
+	 *
+	 * @return the garbage collections seen since tracking was first turned on
+	 */
+	public GcMonitor getGcMonitor() {
+		return monitor;
+	}
+
+	/**
+	 * Returns the number of frames kept
+	 *
+	 * @return the number of frames kept
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Returns the number of frames currently in the history
+	 *
+	 * @return the number of frames currently in the history
+	 */
+	public int getFrames() {
+		return (int)Math.min(frames, capacity);
+	}
+
+	/**
+	 * Returns the total number of frames recorded since the last clear
+	 *
+	 * @return the total number of frames recorded since the last clear
+	 */
+	public long getTotalFrames() {
+		return frames;
+	}
+
+	/**
+	 * Starts recording a new frame
+	 */
+	public void beginFrame() {
+		Arrays.fill(current, 0);
+		Arrays.fill(currentBytes, 0);
+		recording = true;
+		spans[Phase.FRAME.ordinal()] = Telemetry.beginFrame();
+		tracking = trackingRequested;
+		if (tracking) {
+			startedCollections = monitor.getCollections();
+			startedBytes[Phase.FRAME.ordinal()] = meter.getAllocatedBytes();
+		}
+		started[Phase.FRAME.ordinal()] = System.nanoTime();
+	}
+
+	/**
+	 * Finishes the current frame and adds it to the history
+	 *
+	 * This does nothing if no frame was started.
+	 */
+	public void endFrame() {
+		if (!recording) {
+			return;
+		}
+		int frame = Phase.FRAME.ordinal();
+		current[frame] = System.nanoTime()-started[frame];
+		if (tracking) {
+			currentBytes[frame] = meter.getAllocatedBytes()-startedBytes[frame];
+		}
+		int slot = (int)(frames & (capacity-1));
+		for (int ii = 0; ii < current.length; ii++) {
+			history[ii][slot] = current[ii];
+			allocated[ii][slot] = currentBytes[ii];
+		}
+		collected[slot] = tracking ? monitor.getCollections()-startedCollections : 0;
+		Telemetry.endFrame(spans[frame], frames);
+		spans[frame] = null;
+		frames++;
+		recording = false;
+	}
+
+	/**
+	 * Enters the given phase of the current frame
+	 *
+	 * @param phase	The phase to time
+	 */
+	public void begin(Phase phase) {
+		int ii = phase.ordinal();
+		if (Telemetry.isActive()) {
+			spans[ii] = phase == Phase.CONTACTS ? Telemetry.beginContact() : Telemetry.beginPhase();
+		}
+		if (tracking) {
+			startedBytes[ii] = meter.getAllocatedBytes();
+		}
+		started[ii] = System.nanoTime();
+	}
+
+	/**
+	 * Leaves the given phase, adding its time to the current frame
+	 *
+	 * @param phase	The phase being timed
+	 */
+	public void end(Phase phase) {
+		int ii = phase.ordinal();
+		current[ii] += System.nanoTime()-started[ii];
+		if (tracking) {
+			currentBytes[ii] += meter.getAllocatedBytes()-startedBytes[ii];
+		}
+		if (spans[ii] != null) {
+			if (phase == Phase.CONTACTS) {
+				Telemetry.endContact(spans[ii]);
+			} else {
+				Telemetry.endPhase(spans[ii], NAMES[ii]);
+			}
+			spans[ii] = null;
+		}
+	}
+
+	/**
+	 * Removes every frame from the history
+	 */
+	public void clear() {
+		frames = 0;
+		recording = false;
+	}
+
+	/**
+	 * Returns the time of a phase in the given frame of the history
+	 *
+	 * Frame 0 is the oldest frame kept.
+	 *
+	 * @param phase	The phase
+	 * @param frame	The frame, from 0 to getFrames()-1
+	 *
+	 * @return the time of a phase in the given frame (in nanoseconds)
+	 */
+	public long getTime(Phase phase, int frame) {
+		long first = frames-getFrames();
+		return history[phase.ordinal()][(int)((first+frame) & (capacity-1))];
+	}
+
+	/**
+	 * Returns the bytes allocated by a phase in the given frame of the history
+	 *
+	 * Frame 0 is the oldest frame kept.  This is 0 for frames recorded without
+	 * allocation tracking.
+	 *
+	 * @param phase	The phase
+	 * @param frame	The frame, from 0 to getFrames()-1
+	 *
+	 * @return the bytes allocated by a phase in the given frame
+	 */
+	public long getAllocated(Phase phase, int frame) {
+		long first = frames-getFrames();
+		return allocated[phase.ordinal()][(int)((first+frame) & (capacity-1))];
+	}
+
+	/**
+	 * Returns the average bytes allocated by a phase per frame over the frames kept
+	 *
+	 * @param phase	The phase
+	 *
+	 * @return the average bytes allocated by a phase per frame (0 if there is no history)
+	 */
+	public long getAverageAllocated(Phase phase) {
+		int size = getFrames();
+		if (size == 0) {
+			return 0;
+		}
+		long[] bytes = allocated[phase.ordinal()];
+		long total = 0;
+		for (int ii = 0; ii < size; ii++) {
+			total += bytes[ii];
+		}
+		return total/size;
+	}
+
+	/**
+	 * Returns the most bytes allocated by a phase in any one of the frames kept
+	 *
+	 * @param phase	The phase
+	 *
+	 * @return the most bytes allocated by a phase in one frame (0 if there is no history)
+	 */
+	public long getMaxAllocated(Phase phase) {
+		int size = getFrames();
+		long[] bytes = allocated[phase.ordinal()];
+		long max = 0;
+		for (int ii = 0; ii < size; ii++) {
+			max = Math.max(max, bytes[ii]);
+		}
+		return max;
+	}
+
+	/**
+	 * Returns the garbage collections that ended during the given frame of the history
+	 *
+	 * @param frame	The frame, from 0 to getFrames()-1
+	 *
+	 * @return the garbage collections that ended during the given frame
+	 */
+	public long getCollections(int frame) {
+		long first = frames-getFrames();
+		return collected[(int)((first+frame) & (capacity-1))];
+	}
+
+	/**
+	 * Returns the given percentile of a phase over the frames kept
+	 *
+	 * This uses the nearest rank method, so the result is always one of the recorded
+	 * times.  It sorts a copy of the history, so it is meant for a few calls a second,
+	 * not one per phase per frame.
+	 *
+	 * @param phase			The phase
+	 * @param percentile	The percentile, from 0 to 100
+	 *
+	 * @return the given percentile of a phase (in nanoseconds, 0 if there is no history)
+	 */
+	public long getPercentile(Phase phase, float percentile) {
+		int size = getFrames();
+		if (size == 0) {
+			return 0;
+		}
+		System.arraycopy(history[phase.ordinal()], 0, sorted, 0, size);
+		Arrays.sort(sorted, 0, size);
+		int rank = (int)Math.ceil(percentile/100.0f*size)-1;
+		return sorted[Math.max(0, Math.min(size-1, rank))];
+	}
+
+	/**
+	 * Appends a time in milliseconds, with two decimals, to the given builder
+	 *
+	 * This avoids the garbage of String.format, so the overlay can use it every frame.
+	 *
+	 * @param builder	The builder to append to
+	 * @param nanos		The time in nanoseconds
+	 *
+	 * @return the builder, for chaining
+	 */
+	public static StringBuilder appendMillis(StringBuilder builder, long nanos) {
+		long hundredths = (nanos+NANOS_PER_MILLI/200)/(NANOS_PER_MILLI/100);
+		builder.append(hundredths/100).append('.');
+		long fraction = hundredths % 100;
+		if (fraction < 10) {
+			builder.append('0');
+		}
+		return builder.append(fraction);
+	}
+
+	/**
+	 * Writes the history as CSV, one row per frame, oldest first
+	 *
+	 * The first column is the given label (such as the level number), the second is
+	 * the frame number, and then there is one column per phase in milliseconds.  These
+	 * are followed by one column per phase in bytes allocated, and the number of
+	 * garbage collections in the frame.
+	 *
+	 * @param writer	The writer to write to
+	 * @param label		The value of the first column
+	 * @param header	Whether to write the header row first
+	 *
+	 * @throws IOException if the writer fails
+	 */
+	public void writeCsv(Writer writer, String label, boolean header) throws IOException {
+		StringBuilder line = new StringBuilder();
+		if (header) {
+			line.append("label,frame");
+			for (Phase phase : PHASES) {
+				line.append(',').append(phase.name().toLowerCase()).append("_ms");
+			}
+			for (Phase phase : PHASES) {
+				line.append(',').append(phase.name().toLowerCase()).append("_bytes");
+			}
+			line.append(",gc");
+			writer.write(line.append('\n').toString());
+		}
+		int size = getFrames();
+		long first = frames-size;
+		for (int ii = 0; ii < size; ii++) {
+			line.setLength(0);
+			line.append(label).append(',').append(first+ii);
+			for (Phase phase : PHASES) {
+				appendMillis(line.append(','), getTime(phase, ii));
+			}
+			for (Phase phase : PHASES) {
+				line.append(',').append(getAllocated(phase, ii));
+			}
+			line.append(',').append(getCollections(ii));
+			writer.write(line.append('\n').toString());
+		}
+	}
+
+	/**
+	 * Appends the history to the given CSV file
+	 *
+	 * The header is only written if the file does not exist yet.  Errors are logged
+	 * rather than thrown, since losing a profile should never stop the game.
+	 *
+	 * @param file	The file to append to
+	 * @param label	The value of the first column
+	 */
+	public void dump(FileHandle file, String label) {
+		if (getFrames() == 0) {
+			return;
+		}
+		boolean header = !file.exists();
+		Writer writer = null;
+		try {
+			writer = file.writer(true, "UTF-8");
+			writeCsv(writer, label, header);
+		} catch (IOException e) {
+			Gdx.app.error("FrameProfiler", "Could not write "+file.path(), e);
+		} catch (GdxRuntimeException e) {
+			Gdx.app.error("FrameProfiler", "Could not write "+file.path(), e);
+		} finally {
+			if (writer != null) {
+				try {
+					writer.close();
+				} catch (IOException e) {
+					// Nothing more we can do
+				}
+			}
+		}
+	}
+}
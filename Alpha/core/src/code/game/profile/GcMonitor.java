@@ -0,0 +1,141 @@
+/*
+ * GcMonitor.java
+ *
+ * Counts the garbage collections while the game runs.  Every GarbageCollectorMXBean
+ * sends a notification at the end of each collection, with its duration.  These
+ * arrive on a JMX thread, not the game thread, so the totals are kept in atomics
+ * that the game can read at any time without a lock.
+ */
+package code.game.profile;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A listener for garbage collection notifications.
+ *
+ * The monitor counts nothing until it is started.  The notifications are a HotSpot
+ * extension, so on other VMs the monitor stays at zero.
+ */
+public class GcMonitor implements NotificationListener {
+	/** The number of collections seen */
+	private final AtomicLong collections;
+	/** The total duration of the collections seen, in milliseconds */
+	private final AtomicLong totalTime;
+	/** The longest collection seen, in milliseconds */
+	private final AtomicLong maxTime;
+	/** Whether the monitor is listening */
+	private boolean started;
+
+	/**
+	 * Creates a new, stopped monitor
+	 */
+	public GcMonitor() {
+		collections = new AtomicLong();
+		totalTime = new AtomicLong();
+		maxTime = new AtomicLong();
+	}
+
+	/**
+	 * Starts listening to every garbage collector
+	 */
+	public void start() {
+		if (started) {
+			return;
+		}
+		try {
+			for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+				if (bean instanceof NotificationEmitter) {
+					((NotificationEmitter)bean).addNotificationListener(this, null, null);
+				}
+			}
+			started = true;
+		} catch (LinkageError e) {
+			// Not a HotSpot VM
+		}
+	}
+
+	/**
+	 * Stops listening to the garbage collectors
+	 */
+	public void stop() {
+		if (!started) {
+			return;
+		}
+		for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+			if (bean instanceof NotificationEmitter) {
+				try {
+					((NotificationEmitter)bean).removeNotificationListener(this);
+				} catch (ListenerNotFoundException e) {
+					// Already gone
+				}
+			}
+		}
+		started = false;
+	}
+
+	/**
+	 * Resets the counts to zero
+	 */
+	public void clear() {
+		collections.set(0);
+		totalTime.set(0);
+		maxTime.set(0);
+	}
+
+	/**
+	 * Returns the number of collections seen
+	 *
+	 * @return the number of collections seen
+	 */
+	public long getCollections() {
+		return collections.get();
+	}
+
+	/**
+	 * Returns the total duration of the collections seen, in milliseconds
+	 *
+	 * @return the total duration of the collections seen, in milliseconds
+	 */
+	public long getTotalTime() {
+		return totalTime.get();
+	}
+
+	/**
+	 * Returns the longest collection seen, in milliseconds
+	 *
+	 * @return the longest collection seen, in milliseconds
+	 */
+	public long getMaxTime() {
+		return maxTime.get();
+	}
+
+	/**
+	 * Records a collection (called on a JMX thread)
+	 *
+	 * @param notification	The notification from a garbage collector
+	 * @param handback		Unused
+	 */
+	public void handleNotification(Notification notification, Object handback) {
+		if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+			return;
+		}
+		GarbageCollectionNotificationInfo info =
+				GarbageCollectionNotificationInfo.from((CompositeData)notification.getUserData());
+		long duration = info.getGcInfo().getDuration();
+		collections.incrementAndGet();
+		totalTime.addAndGet(duration);
+		long max = maxTime.get();
+		while (duration > max && !maxTime.compareAndSet(max, duration)) {
+			max = maxTime.get();
+		}
+	}
+}
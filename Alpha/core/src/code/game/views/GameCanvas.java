@@ -17,6 +17,8 @@
  */
 package code.game.views;
 
+import code.util.HordeBatch;
+import code.util.RenderQueue;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.math.*;
 import com.badlogic.gdx.graphics.*;
@@ -24,6 +26,8 @@ import com.badlogic.gdx.graphics.g2d.*;
 import com.badlogic.gdx.graphics.glutils.*;
 import com.badlogic.gdx.physics.box2d.*;
 import com.badlogic.gdx.scenes.scene2d.ui.ProgressBar;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.ObjectMap;
 
 /**
  * Primary view class for the game, abstracting the basic graphics calls.
@@ -42,7 +46,9 @@ public class GameCanvas {
 		/** We are drawing sprites */
 		STANDARD,
 		/** We are drawing outlines */
-		DEBUG
+		DEBUG,
+		/** We are baking static geometry */
+		BAKING
 	}
 	
 	/**
@@ -63,20 +69,77 @@ public class GameCanvas {
 		OPAQUE
 	}	
 
+	/**
+	 * Enumeration of the passes of a frame.
+	 *
+	 * A frame is composed of these passes, in this order.  The debug pass is optional.
+	 */
+	public enum FramePass {
+		/** The game world, with its queued sprites */
+		WORLD,
+		/** The physics outlines over the world */
+		DEBUG,
+		/** The interface over everything else */
+		UI
+	}
+
+	/**
+	 * Enumeration of the layers of the render queue.
+	 *
+	 * Queued sprites are drawn layer by layer, in this order.  In a depth sorted layer
+	 * the sprites higher on the screen are drawn first, so that the sprites in front
+	 * of them cover them.  The other layers are only sorted by texture.
+	 */
+	public enum Layer {
+		/** Things lying on the floor, like traps and trap spots */
+		FLOOR(false),
+		/** Things standing on the floor, like the chef and the chickens */
+		ACTORS(true),
+		/** Effects over everything else, like health bars and slaps */
+		EFFECTS(false);
+
+		/** Whether the sprites in this layer are sorted back to front */
+		private final boolean depthSorted;
+
+		/**
+		 * Creates a layer
+		 *
+		 * @param depthSorted	Whether the sprites are sorted back to front
+		 */
+		Layer(boolean depthSorted) {
+			this.depthSorted = depthSorted;
+		}
+
+		/**
+		 * Returns true if the sprites in this layer are sorted back to front
+		 *
+		 * @return true if the sprites in this layer are sorted back to front
+		 */
+		public boolean isDepthSorted() {
+			return depthSorted;
+		}
+	}
+
+	/** The blend states, by ordinal (to decode the render queue) */
+	private static final BlendState[] BLENDS = BlendState.values();
+
 	
+	/** The floats in a baked quad (four vertices of x, y, color, u and v) */
+	private static final int QUAD_SIZE = 20;
+
 	/** Drawing context to handle textures AND POLYGONS as sprites */
 	private PolygonSpriteBatch spriteBatch;
 	
-	/** Rendering context for the debug outlines */
+	/** Rendering context for the debug outlines (created on the first debug pass) */
 	private ShapeRenderer debugRender;
-	//TODO: delete after technical
-	private ShapeRenderer debugRenderTry;
 	
 	/** Track whether or not we are active (for error checking) */
 	private DrawPass active;
 	
 	/** The current color blending mode */
 	private BlendState blend;
+	/** The current pass of the frame (null if there is no frame) */
+	private FramePass pass;
 	
 	/** Camera for the underlying SpriteBatch */
 	private OrthographicCamera camera;
@@ -94,6 +157,24 @@ public class GameCanvas {
 	private Vector2 vertex;
 	/** Cache object to handle raw textures */
 	private TextureRegion holder;
+	/** Cache object to lay out plain strings */
+	private GlyphLayout layout;
+	/** The built-in font, shared by every HUD that does not load its own */
+	private BitmapFont defaultFont;
+
+	/** The sprites queued this pass, drawn at end() */
+	private RenderQueue queue;
+	/** The horde queued this pass, drawn with the actors and effects of the queue */
+	private HordeBatch horde;
+
+	/** The baked static geometry (created on the first bake) */
+	private SpriteCache staticCache;
+	/** The number of quads the static cache has room for */
+	private int staticCapacity;
+	/** The cache id of the static geometry (-1 if nothing is baked) */
+	private int staticId = -1;
+	/** The vertices being baked, by texture */
+	private ObjectMap<Texture, FloatArray> staticVertices;
 
 	/**
 	 * Creates a new GameCanvas determined by the application configuration.
@@ -103,23 +184,39 @@ public class GameCanvas {
 	 * of the necessary graphics objects.
 	 */
 	public GameCanvas() {
+		this(true);
+	}
+
+	/**
+	 * Creates a new GameCanvas, optionally without any drawing contexts.
+	 *
+	 * A canvas without drawing contexts cannot draw, and does not need an OpenGL
+	 * context to be created.  It is for subclasses like HeadlessCanvas that run the
+	 * game simulation without a window.
+	 *
+	 * @param contexts	Whether to create the sprite batch
+	 */
+	protected GameCanvas(boolean contexts) {
 		active = DrawPass.INACTIVE;
-		spriteBatch = new PolygonSpriteBatch();
-		debugRender = new ShapeRenderer();
-		debugRenderTry = new ShapeRenderer();
-		
-		// Set the projection matrix (for proper scaling)
 		camera = new OrthographicCamera(getWidth(),getHeight());
 		camera.setToOrtho(false);
-		spriteBatch.setProjectionMatrix(camera.combined);
-		debugRender.setProjectionMatrix(camera.combined);
-		debugRenderTry.setProjectionMatrix(camera.combined);
+		if (contexts) {
+			spriteBatch = new PolygonSpriteBatch();
+
+			// Set the projection matrix (for proper scaling)
+			spriteBatch.setProjectionMatrix(camera.combined);
+		}
 
 		// Initialize the cache objects
 		holder = new TextureRegion();
 		local  = new Affine2();
 		global = new Matrix4();
 		vertex = new Vector2();
+		layout = new GlyphLayout();
+		defaultFont = new BitmapFont();
+		queue  = new RenderQueue(256);
+		horde  = new HordeBatch(256);
+		staticVertices = new ObjectMap<Texture, FloatArray>();
 	}
 		
     /**
@@ -130,12 +227,27 @@ public class GameCanvas {
 			Gdx.app.error("GameCanvas", "Cannot dispose while drawing active", new IllegalStateException());
 			return;
 		}
-		spriteBatch.dispose();
+		if (spriteBatch != null) {
+			spriteBatch.dispose();
+		}
+		if (debugRender != null) {
+			debugRender.dispose();
+		}
+		if (staticCache != null) {
+			staticCache.dispose();
+		}
+		defaultFont.dispose();
     	spriteBatch = null;
+    	debugRender = null;
+    	staticCache = null;
+    	defaultFont = null;
     	local  = null;
     	global = null;
     	vertex = null;
     	holder = null;
+    	layout = null;
+    	queue  = null;
+    	horde  = null;
     }
 
 	/**
@@ -373,21 +485,267 @@ public class GameCanvas {
     public void begin() {
 		spriteBatch.setProjectionMatrix(camera.combined);
     	spriteBatch.begin();
-    	//TODO:remove after technical
-		debugRenderTry.setProjectionMatrix(camera.combined);
-		debugRenderTry.begin(ShapeRenderer.ShapeType.Line);
     	active = DrawPass.STANDARD;
     }
 
 	/**
 	 * Ends a drawing sequence, flushing textures to the graphics card.
+	 *
+	 * The queued sprites are drawn first, on top of anything drawn directly.
 	 */
     public void end() {
+    	drawQueue();
     	spriteBatch.end();
-    	debugRenderTry.end();
     	active = DrawPass.INACTIVE;
     }
 
+	/**
+	 * Starts a new frame, clearing the screen.
+	 *
+	 * The frame is drawn in passes (see {@link #beginPass}), and must be finished
+	 * with {@link #endFrame}.  Do not call begin() or beginDebug() inside a frame.
+	 */
+	public void beginFrame() {
+		if (active != DrawPass.INACTIVE) {
+			Gdx.app.error("GameCanvas", "Cannot begin a frame while drawing active", new IllegalStateException());
+			return;
+		}
+		clear();
+		pass = null;
+	}
+
+	/**
+	 * Moves the frame on to the given pass.
+	 *
+	 * The world pass starts with the baked static geometry (see {@link #beginStatic}).
+	 * The world and interface passes share the sprite batch, so moving from one to
+	 * the other only draws the queued sprites, and keeps the batch open.  The batch
+	 * is only ended (and the shape renderer only used) for the debug pass.  Passes
+	 * may be skipped, but not repeated or taken out of order.
+	 *
+	 * @param next	The pass to move on to
+	 */
+	public void beginPass(FramePass next) {
+		if (pass != null && pass.ordinal() >= next.ordinal()) {
+			Gdx.app.error("GameCanvas", "Cannot move from pass "+pass+" to "+next, new IllegalStateException());
+			return;
+		}
+		if (next == FramePass.DEBUG) {
+			if (active == DrawPass.STANDARD) {
+				end();
+			}
+			beginDebug();
+		} else if (active == DrawPass.STANDARD) {
+			drawQueue();
+		} else {
+			if (active == DrawPass.DEBUG) {
+				endDebug();
+			}
+			if (next == FramePass.WORLD) {
+				drawStatic();
+			}
+			begin();
+		}
+		pass = next;
+	}
+
+	/**
+	 * Ends the frame, flushing the current pass to the graphics card.
+	 */
+	public void endFrame() {
+		if (active == DrawPass.STANDARD) {
+			end();
+		} else if (active == DrawPass.DEBUG) {
+			endDebug();
+		}
+		pass = null;
+	}
+
+	/**
+	 * Starts baking static geometry.
+	 *
+	 * Until {@link #endStatic}, queued sprites and transformed polygon regions are
+	 * not drawn, but baked into a cache.  The cache is drawn at the start of every
+	 * world pass with a single call, so things that never move (or change color)
+	 * do not have to be drawn again every frame.  Baking replaces whatever was baked
+	 * before.
+	 */
+	public void beginStatic() {
+		if (active != DrawPass.INACTIVE) {
+			Gdx.app.error("GameCanvas", "Cannot bake while drawing active", new IllegalStateException());
+			return;
+		}
+		for (FloatArray vertices : staticVertices.values()) {
+			vertices.clear();
+		}
+		active = DrawPass.BAKING;
+	}
+
+	/**
+	 * Ends baking static geometry, sending it to the graphics card.
+	 *
+	 * The vertices are grouped by texture, so the cache binds each texture once.
+	 * A canvas without drawing contexts (like HeadlessCanvas) has no graphics card
+	 * to send them to, so it drops them instead.  That way a level may be baked as
+	 * soon as it is populated, whether or not anything will ever be drawn.
+	 */
+	public void endStatic() {
+		if (active != DrawPass.BAKING) {
+			Gdx.app.error("GameCanvas", "Cannot end baking without beginStatic()", new IllegalStateException());
+			return;
+		}
+		active = DrawPass.INACTIVE;
+
+		int quads = 0;
+		for (FloatArray vertices : staticVertices.values()) {
+			quads += vertices.size/QUAD_SIZE;
+		}
+		if (quads == 0 || spriteBatch == null) {
+			staticId = -1;
+			return;
+		}
+		if (staticCache == null || quads > staticCapacity) {
+			if (staticCache != null) {
+				staticCache.dispose();
+			}
+			staticCapacity = Math.max(quads, 64);
+			staticCache = new SpriteCache(staticCapacity, true);
+		} else {
+			staticCache.clear();
+		}
+		staticCache.beginCache();
+		for (ObjectMap.Entry<Texture, FloatArray> entry : staticVertices.entries()) {
+			if (entry.value.size > 0) {
+				staticCache.add(entry.key, entry.value.items, 0, entry.value.size);
+			}
+		}
+		staticId = staticCache.endCache();
+	}
+
+	/**
+	 * Forgets the baked static geometry.
+	 */
+	public void clearStatic() {
+		staticId = -1;
+	}
+
+	/**
+	 * Draws the baked static geometry, if there is any.
+	 *
+	 * This must be called outside of any drawing pass.
+	 */
+	private void drawStatic() {
+		if (staticId == -1) {
+			return;
+		}
+		Gdx.gl.glEnable(GL20.GL_BLEND);
+		Gdx.gl.glBlendFunc(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
+		staticCache.setProjectionMatrix(camera.combined);
+		staticCache.begin();
+		staticCache.draw(staticId);
+		staticCache.end();
+		Gdx.gl.glDisable(GL20.GL_BLEND);
+	}
+
+	/**
+	 * Returns the baking vertices for the given texture
+	 *
+	 * @param texture	The texture of the vertices
+	 *
+	 * @return the baking vertices for the given texture
+	 */
+	private FloatArray getStaticVertices(Texture texture) {
+		FloatArray vertices = staticVertices.get(texture);
+		if (vertices == null) {
+			vertices = new FloatArray();
+			staticVertices.put(texture, vertices);
+		}
+		return vertices;
+	}
+
+	/**
+	 * Adds the transformed texture region to the static geometry as a quad
+	 *
+	 * The corners are those that {@link #draw(TextureRegion, Color, float, float, float, float, float, float, float)}
+	 * would draw.
+	 *
+	 * @param region The texture to bake
+	 * @param tint  The color tint
+	 * @param ox 	The x-coordinate of texture origin (in pixels)
+	 * @param oy 	The y-coordinate of texture origin (in pixels)
+	 * @param x 	The x-coordinate of the texture origin (on screen)
+	 * @param y 	The y-coordinate of the texture origin (on screen)
+	 * @param angle The rotation angle (in radians) about the origin.
+	 * @param sx 	The x-axis scaling factor
+	 * @param sy 	The y-axis scaling factor
+	 */
+	private void bakeRegion(TextureRegion region, Color tint, float ox, float oy,
+							float x, float y, float angle, float sx, float sy) {
+		computeTransform(ox,oy,x,y,angle,sx,sy);
+		float width  = region.getRegionWidth();
+		float height = region.getRegionHeight();
+		float color = tint.toFloatBits();
+		FloatArray vertices = getStaticVertices(region.getTexture());
+		bakeVertex(vertices, 0,     0,      color, region.getU(),  region.getV2());
+		bakeVertex(vertices, 0,     height, color, region.getU(),  region.getV());
+		bakeVertex(vertices, width, height, color, region.getU2(), region.getV());
+		bakeVertex(vertices, width, 0,      color, region.getU2(), region.getV2());
+	}
+
+	/**
+	 * Adds the transformed polygon region to the static geometry
+	 *
+	 * The cache only holds quads, so each triangle is baked as a quad with its last
+	 * corner repeated.  The vertices are those that
+	 * {@link #draw(PolygonRegion, Color, float, float, float, float, float, float, float)}
+	 * would draw.
+	 *
+	 * @param region The polygon to bake
+	 * @param tint  The color tint
+	 * @param ox 	The x-coordinate of texture origin (in pixels)
+	 * @param oy 	The y-coordinate of texture origin (in pixels)
+	 * @param x 	The x-coordinate of the texture origin (on screen)
+	 * @param y 	The y-coordinate of the texture origin (on screen)
+	 * @param angle The rotation angle (in radians) about the origin.
+	 * @param sx 	The x-axis scaling factor
+	 * @param sy 	The y-axis scaling factor
+	 */
+	private void bakePolygon(PolygonRegion region, Color tint, float ox, float oy,
+							 float x, float y, float angle, float sx, float sy) {
+		local.setToTranslation(x+ox,y+oy);
+		local.rotate(180.0f*angle/(float)Math.PI);
+		local.scale(sx,sy);
+		local.translate(-ox,-oy);
+		float[] points = region.getVertices();
+		float[] coords = region.getTextureCoords();
+		short[] triangles = region.getTriangles();
+		float color = tint.toFloatBits();
+		FloatArray vertices = getStaticVertices(region.getRegion().getTexture());
+		for (int ii = 0; ii < triangles.length; ii += 3) {
+			for (int jj = 0; jj < 4; jj++) {
+				int index = 2*triangles[ii+Math.min(jj,2)];
+				bakeVertex(vertices, points[index], points[index+1], color, coords[index], coords[index+1]);
+			}
+		}
+	}
+
+	/**
+	 * Adds a vertex, transformed by the local transform, to the static geometry
+	 *
+	 * @param vertices	The vertices to add to
+	 * @param x			The x-coordinate of the vertex (before the transform)
+	 * @param y			The y-coordinate of the vertex (before the transform)
+	 * @param color		The packed vertex color
+	 * @param u			The texture u-coordinate
+	 * @param v			The texture v-coordinate
+	 */
+	private void bakeVertex(FloatArray vertices, float x, float y, float color, float u, float v) {
+		vertex.set(x,y);
+		local.applyTo(vertex);
+		vertices.add(vertex.x, vertex.y, color);
+		vertices.add(u, v);
+	}
+
 	/**
 	 * Draws the tinted texture at the given position.
 	 *
@@ -858,7 +1216,10 @@ public class GameCanvas {
 	 */	
 	public void draw(PolygonRegion region, Color tint, float ox, float oy, 
 					 float x, float y, float angle, float sx, float sy) {
-		if (active != DrawPass.STANDARD) {
+		if (active == DrawPass.BAKING) {
+			bakePolygon(region,tint,ox,oy,x,y,angle,sx,sy);
+			return;
+		} else if (active != DrawPass.STANDARD) {
 			Gdx.app.error("GameCanvas", "Cannot draw without active begin()", new IllegalStateException());
 			return;
 		}
@@ -922,6 +1283,17 @@ public class GameCanvas {
 		}
 	}
 
+    /**
+     * Returns the built-in font, shared by every HUD that does not load its own
+     *
+     * The font belongs to the canvas and is disposed with it.
+     *
+     * @return the built-in font
+     */
+    public BitmapFont getDefaultFont() {
+		return defaultFont;
+    }
+
     /**
      * Draws text on the screen.
      *
@@ -935,10 +1307,27 @@ public class GameCanvas {
 			Gdx.app.error("GameCanvas", "Cannot draw without active begin()", new IllegalStateException());
 			return;
 		}
-		GlyphLayout layout = new GlyphLayout(font,text);
+		layout.setText(font,text);
 		font.draw(spriteBatch, layout, x, y);
     }
 
+    /**
+     * Draws a cached label on the screen.
+     *
+     * The label is only laid out again if it has changed since it was last drawn.
+     *
+     * @param label The label to draw
+     * @param x The x-coordinate of the lower-left corner
+     * @param y The y-coordinate of the lower-left corner
+     */
+    public void drawText(TextLabel label, float x, float y) {
+		if (active != DrawPass.STANDARD) {
+			Gdx.app.error("GameCanvas", "Cannot draw without active begin()", new IllegalStateException());
+			return;
+		}
+		label.getFont().draw(spriteBatch, label.getLayout(), x, y);
+    }
+
     /**
      * Draws text centered on the screen.
      *
@@ -952,7 +1341,7 @@ public class GameCanvas {
 			return;
 		}
 		
-		GlyphLayout layout = new GlyphLayout(font,text);
+		layout.setText(font,text);
 		float x = (getWidth()  - layout.width) / 2.0f;
 		float y = (getHeight() + layout.height) / 2.0f;
 		font.draw(spriteBatch, layout, x, y+offset);
@@ -966,6 +1355,7 @@ public class GameCanvas {
 	 * @param affine the global transform apply to the camera
 	 */
     public void beginDebug(Affine2 affine) {
+		createDebugRender();
 		global.setAsAffine(affine);
     	global.mulLeft(camera.combined);
     	debugRender.setProjectionMatrix(global);
@@ -983,6 +1373,7 @@ public class GameCanvas {
 	 * @param sy the amount to scale the y-axis
 	 */    
     public void beginDebug(float sx, float sy) {
+		createDebugRender();
 		global.idt();
 		global.scl(sx,sy,1.0f);
     	global.mulLeft(camera.combined);
@@ -998,6 +1389,7 @@ public class GameCanvas {
 	 * Nothing is flushed to the graphics card until the method end() is called.
 	 */
     public void beginDebug() {
+		createDebugRender();
     	debugRender.setProjectionMatrix(camera.combined);
     	debugRender.begin(ShapeRenderer.ShapeType.Filled);
     	debugRender.setColor(Color.RED);
@@ -1015,6 +1407,18 @@ public class GameCanvas {
     	debugRender.end();
     	active = DrawPass.INACTIVE;
     }
+
+	/**
+	 * Creates the debug renderer, if it does not exist yet.
+	 *
+	 * Most frames have no debug pass, so the renderer (and its mesh) are only
+	 * created once one is needed.
+	 */
+	private void createDebugRender() {
+		if (debugRender == null) {
+			debugRender = new ShapeRenderer();
+		}
+	}
     
     /**
      * Draws the outline of the given shape in the specified color
@@ -1151,23 +1555,6 @@ public class GameCanvas {
     	debugRender.circle(x, y, shape.getRadius(),12);
     }
 
-	public void drawPhysicsCircle(CircleShape shape, Color color, float x, float y, float sx, float sy) {
-		if (active != DrawPass.STANDARD) {
-			if (active == DrawPass.INACTIVE){
-				Gdx.app.error("GameCanvas", "ACK", new IllegalStateException());
-			}
-			Gdx.app.error("GameCanvas", "Cannot draw without active begin()", new IllegalStateException());
-			return;
-		}
-
-		float x0 = x*sx;
-		float y0 = y*sy;
-		float w = shape.getRadius()*sx;
-		float h = shape.getRadius()*sy;
-		debugRenderTry.setColor(color);
-		debugRenderTry.ellipse(x0-w, y0-h, 2*w, 2*h, 12);
-	}
-    
     /** 
      * Draws the outline of the given shape in the specified color
      *
@@ -1217,6 +1604,130 @@ public class GameCanvas {
 		//debugRender.ellipse(x0-w, y0-h, 2*w, 2*h, 12);
 	}*/
     
+	/**
+	 * Queues the tinted texture with the given transformations
+	 *
+	 * The texture is drawn as by {@link #draw(Texture, Color, float, float, float, float, float, float, float)},
+	 * but not until end(), in the order of the render queue.  It uses the current
+	 * blend state.
+	 *
+	 * @param layer The layer to draw in
+	 * @param image The texture to draw
+	 * @param tint  The color tint
+	 * @param ox 	The x-coordinate of texture origin (in pixels)
+	 * @param oy 	The y-coordinate of texture origin (in pixels)
+	 * @param x 	The x-coordinate of the texture origin (on screen)
+	 * @param y 	The y-coordinate of the texture origin (on screen)
+	 * @param angle The rotation angle (in radians) about the origin.
+	 * @param sx 	The x-axis scaling factor
+	 * @param sy 	The y-axis scaling factor
+	 */
+	public void queue(Layer layer, Texture image, Color tint, float ox, float oy,
+					  float x, float y, float angle, float sx, float sy) {
+		holder.setRegion(image);
+		queue(layer,holder,tint,ox,oy,x,y,angle,sx,sy);
+	}
+
+	/**
+	 * Queues the tinted texture region (filmstrip) with the given transformations
+	 *
+	 * The region is drawn as by {@link #draw(TextureRegion, Color, float, float, float, float, float, float, float)},
+	 * but not until end(), in the order of the render queue.  It uses the current
+	 * blend state.  The current frame of a filmstrip is copied, so it is safe to
+	 * change the frame afterwards.
+	 *
+	 * @param layer  The layer to draw in
+	 * @param region The texture to draw
+	 * @param tint  The color tint
+	 * @param ox 	The x-coordinate of texture origin (in pixels)
+	 * @param oy 	The y-coordinate of texture origin (in pixels)
+	 * @param x 	The x-coordinate of the texture origin (on screen)
+	 * @param y 	The y-coordinate of the texture origin (on screen)
+	 * @param angle The rotation angle (in radians) about the origin.
+	 * @param sx 	The x-axis scaling factor
+	 * @param sy 	The y-axis scaling factor
+	 */
+	public void queue(Layer layer, TextureRegion region, Color tint, float ox, float oy,
+					  float x, float y, float angle, float sx, float sy) {
+		if (active == DrawPass.BAKING) {
+			bakeRegion(region,tint,ox,oy,x,y,angle,sx,sy);
+			return;
+		} else if (active != DrawPass.STANDARD) {
+			Gdx.app.error("GameCanvas", "Cannot draw without active begin()", new IllegalStateException());
+			return;
+		}
+		BlendState state = blend == null ? BlendState.NO_PREMULT : blend;
+		queue.add(layer.ordinal(),layer.isDepthSorted(),state.ordinal(),region,tint,ox,oy,x,y,angle,sx,sy);
+	}
+
+	/**
+	 * Returns the horde of this pass
+	 *
+	 * The horde is for many copies of the same unrotated sprite, each with a health
+	 * bar, like the chickens.  It is drawn at end(), without a transform per sprite.
+	 * The sprites are depth sorted with the {@link Layer#ACTORS} of the render queue,
+	 * and the health bars are drawn at the start of the {@link Layer#EFFECTS}.  The
+	 * horde uses the blend state of the canvas when the pass ends.
+	 *
+	 * @return the horde of this pass
+	 */
+	public HordeBatch getHorde() {
+		return horde;
+	}
+
+	/**
+	 * Draws the queued sprites in sorted order, and empties the queue
+	 *
+	 * The horde is merged into the queue as it is drawn.  The blend state is
+	 * restored afterwards.
+	 */
+	private void drawQueue() {
+		if (queue.size() == 0 && horde.size() == 0) {
+			return;
+		}
+		queue.sort();
+		horde.sort();
+		BlendState previous = blend;
+		BlendState hordeState = blend == null ? BlendState.NO_PREMULT : blend;
+		int actors = Layer.ACTORS.ordinal();
+		int next = 0;
+		boolean bars = false;
+		float[] data = queue.getData();
+		for (int ii = 0; ii < queue.size(); ii++) {
+			int index = queue.get(ii);
+			int pos = index*RenderQueue.STRIDE;
+			int layer = queue.getLayer(index);
+			if (layer == actors && next < horde.size()) {
+				setBlendState(hordeState);
+				next = horde.drawSprites(spriteBatch, next, data[pos+RenderQueue.Y]);
+			} else if (layer > actors && !bars) {
+				setBlendState(hordeState);
+				horde.drawSprites(spriteBatch, next, Float.NEGATIVE_INFINITY);
+				horde.drawBars(spriteBatch);
+				bars = true;
+			}
+			setBlendState(BLENDS[queue.getBlend(index)]);
+			holder.setTexture(queue.getTexture(index));
+			holder.setRegion(data[pos+RenderQueue.U],  data[pos+RenderQueue.V],
+							 data[pos+RenderQueue.U2], data[pos+RenderQueue.V2]);
+			computeTransform(data[pos+RenderQueue.OX], data[pos+RenderQueue.OY],
+							 data[pos+RenderQueue.X],  data[pos+RenderQueue.Y], data[pos+RenderQueue.ANGLE],
+							 data[pos+RenderQueue.SX], data[pos+RenderQueue.SY]);
+			spriteBatch.setPackedColor(data[pos+RenderQueue.COLOR]);
+			spriteBatch.draw(holder, data[pos+RenderQueue.WIDTH], data[pos+RenderQueue.HEIGHT], local);
+		}
+		if (!bars) {
+			setBlendState(hordeState);
+			horde.drawSprites(spriteBatch, next, Float.NEGATIVE_INFINITY);
+			horde.drawBars(spriteBatch);
+		}
+		if (previous != null) {
+			setBlendState(previous);
+		}
+		queue.clear();
+		horde.clear();
+	}
+
 	/**
 	 * Compute the affine transform (and store it in local) for this image.
 	 * 
@@ -1241,9 +1752,20 @@ public class GameCanvas {
 	 * @param end	The point where the line will end
 	 */
 	public void drawLine(Vector2 start, Vector2 end) {
+		drawLine(start.x, start.y, end.x, end.y);
+	}
+
+	/**	Draws a line from (x1, y1) to (x2, y2)
+	 *
+	 * @param x1	The x-coordinate where the line will begin
+	 * @param y1	The y-coordinate where the line will begin
+	 * @param x2	The x-coordinate where the line will end
+	 * @param y2	The y-coordinate where the line will end
+	 */
+	public void drawLine(float x1, float y1, float x2, float y2) {
 		Gdx.gl.glLineWidth(1);
 		debugRender.setProjectionMatrix(camera.combined);
 		debugRender.setColor(Color.WHITE);
-		debugRender.line(start, end);
+		debugRender.line(x1, y1, x2, y2);
 	}
 }
\ No newline at end of file
@@ -0,0 +1,129 @@
+/*
+ * HeadlessCanvas.java
+ *
+ * The game controllers need a canvas even when nothing is drawn: it sets the drawing
+ * scale that converts input to world coordinates, and supplies the HUD font.  This
+ * canvas has a fixed size and no drawing contexts, so the simulation can be run on
+ * a machine without a window or GPU.
+ */
+package code.game.views;
+
+import com.badlogic.gdx.math.Vector2;
+
+/**
+ * A canvas of a fixed size that never draws.
+ *
+ * The canvas has no sprite batch or shape renderers, so the begin/end and draw
+ * methods must not be called.  Controllers should be stepped with preUpdate,
+ * update and postUpdate instead of render.
+ */
+public class HeadlessCanvas extends GameCanvas {
+
+	/**
+	 * Creates a new headless canvas of the given size
+	 *
+	 * @param width		The canvas width
+	 * @param height	The canvas height
+	 */
+	public HeadlessCanvas(int width, int height) {
+		super(false);
+		this.width = width;
+		this.height = height;
+	}
+
+	/**
+	 * Returns the width of this canvas
+	 *
+	 * @return the width of this canvas
+	 */
+	@Override
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * Changes the width of this canvas
+	 *
+	 * @param width the canvas width
+	 */
+	@Override
+	public void setWidth(int width) {
+		this.width = width;
+	}
+
+	/**
+	 * Returns the height of this canvas
+	 *
+	 * @return the height of this canvas
+	 */
+	@Override
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Changes the height of this canvas
+	 *
+	 * @param height the canvas height
+	 */
+	@Override
+	public void setHeight(int height) {
+		this.height = height;
+	}
+
+	/**
+	 * Returns the dimensions of this canvas
+	 *
+	 * @return the dimensions of this canvas
+	 */
+	@Override
+	public Vector2 getSize() {
+		return new Vector2(width,height);
+	}
+
+	/**
+	 * Changes the width and height of this canvas
+	 *
+	 * @param width the canvas width
+	 * @param height the canvas height
+	 */
+	@Override
+	public void setSize(int width, int height) {
+		this.width = width;
+		this.height = height;
+	}
+
+	/**
+	 * Returns false, as a headless canvas has no window
+	 *
+	 * @return false
+	 */
+	@Override
+	public boolean isFullscreen() {
+		return false;
+	}
+
+	/**
+	 * Does nothing, as a headless canvas has no window
+	 *
+	 * @param value 	Ignored
+	 * @param desktop 	Ignored
+	 */
+	@Override
+	public void setFullscreen(boolean value, boolean desktop) {
+	}
+
+	/**
+	 * Does nothing, as a headless canvas has no projection to reset
+	 */
+	@Override
+	public void resize() {
+	}
+
+	/**
+	 * Does nothing, as a headless canvas has no screen to clear
+	 */
+	@Override
+	public void clear() {
+	}
+}
@@ -0,0 +1,161 @@
+/*
+ * TextLabel.java
+ *
+ * A line of HUD text that only lays itself out again when it changes.  Drawing a
+ * String through a fresh GlyphLayout every frame creates garbage for the layout, its
+ * glyph runs and any string concatenation.  A label keeps its text in a StringBuilder
+ * and its glyphs in a GlyphLayout that it owns, and compares each new value with the
+ * old one first.  A HUD that rarely changes therefore costs nothing but the draw.
+ */
+package code.game.views;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.GlyphLayout;
+import com.badlogic.gdx.utils.Align;
+
+/**
+ * A cached label made of a fixed prefix and a changing value.
+ *
+ * The label is laid out lazily, the first time it is drawn after a change to its
+ * value, font or color.
+ */
+public class TextLabel {
+	/** The font to draw with */
+	private BitmapFont font;
+	/** The color to draw with */
+	private final Color color;
+	/** The fixed text in front of the value */
+	private final String prefix;
+	/** The full text (prefix and value) */
+	private final StringBuilder text;
+	/** The cached glyphs for the text */
+	private final GlyphLayout layout;
+
+	/** The integer value (only valid if numeric is true) */
+	private int number;
+	/** Whether the value is currently an integer */
+	private boolean numeric;
+	/** Whether the label must be laid out again before drawing */
+	private boolean dirty;
+
+	/**
+	 * Creates a new, empty label with the given prefix
+	 *
+	 * @param font		The font to draw with
+	 * @param prefix	The fixed text in front of the value
+	 */
+	public TextLabel(BitmapFont font, String prefix) {
+		this.font = font;
+		this.prefix = prefix;
+		color = new Color(Color.WHITE);
+		text = new StringBuilder(prefix.length()+16);
+		text.append(prefix);
+		layout = new GlyphLayout();
+		dirty = true;
+	}
+
+	/**
+	 * Returns the font to draw with
+	 *
+	 * @return the font to draw with
+	 */
+	public BitmapFont getFont() {
+		return font;
+	}
+
+	/**
+	 * Sets the font to draw with
+	 *
+	 * @param font	The font to draw with
+	 */
+	public void setFont(BitmapFont font) {
+		if (this.font != font) {
+			this.font = font;
+			dirty = true;
+		}
+	}
+
+	/**
+	 * Sets the color to draw with
+	 *
+	 * The color is copied, so the argument may be reused.
+	 *
+	 * @param value	The color to draw with
+	 */
+	public void setColor(Color value) {
+		if (!color.equals(value)) {
+			color.set(value);
+			dirty = true;
+		}
+	}
+
+	/**
+	 * Sets the value after the prefix to an integer
+	 *
+	 * @param value	The new value
+	 */
+	public void setValue(int value) {
+		if (numeric && number == value) {
+			return;
+		}
+		numeric = true;
+		number = value;
+		text.setLength(prefix.length());
+		text.append(value);
+		dirty = true;
+	}
+
+	/**
+	 * Sets the value after the prefix to a string
+	 *
+	 * @param value	The new value
+	 */
+	public void setValue(CharSequence value) {
+		int length = prefix.length();
+		if (!numeric && text.length() == length+value.length()) {
+			boolean same = true;
+			for (int ii = 0; same && ii < value.length(); ii++) {
+				same = text.charAt(length+ii) == value.charAt(ii);
+			}
+			if (same) {
+				return;
+			}
+		}
+		numeric = false;
+		text.setLength(length);
+		text.append(value);
+		dirty = true;
+	}
+
+	/**
+	 * Returns the glyphs for this label, laying them out first if necessary
+	 *
+	 * @return the glyphs for this label
+	 */
+	public GlyphLayout getLayout() {
+		if (dirty) {
+			layout.setText(font, text, color, 0, Align.left, false);
+			dirty = false;
+		}
+		return layout;
+	}
+
+	/**
+	 * Returns the width of this label in pixels
+	 *
+	 * @return the width of this label in pixels
+	 */
+	public float getWidth() {
+		return getLayout().width;
+	}
+
+	/**
+	 * Returns the height of this label in pixels
+	 *
+	 * @return the height of this label in pixels
+	 */
+	public float getHeight() {
+		return getLayout().height;
+	}
+}
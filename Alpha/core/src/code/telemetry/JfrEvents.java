@@ -0,0 +1,306 @@
+/*
+ * JfrEvents.java
+ *
+ * The Flight Recorder side of the telemetry.  This is the only class that touches
+ * jdk.jfr, and it is only loaded once Telemetry knows that the API is there.  The
+ * event types all live in the "WhatTheFlock" category, so that they can be found
+ * (and enabled or disabled together) in JDK Mission Control.
+ */
+package code.telemetry;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import jdk.jfr.StackTrace;
+
+/**
+ * The custom event types, and the glue between them and the Telemetry facade.
+ *
+ * The begin and end methods mirror those of Telemetry, which documents them.  A span
+ * is simply the event itself, already begun.
+ */
+final class JfrEvents {
+	/** The prefix of every event name */
+	private static final String PREFIX = "code.game.";
+
+	/** An animation frame */
+	@Name(PREFIX+"Frame")
+	@Label("Frame")
+	@Category({"WhatTheFlock", "Frame"})
+	@StackTrace(false)
+	static class FrameEvent extends Event {
+		@Label("Frame Number")
+		long frame;
+	}
+
+	/** A phase of an animation frame (input, update, physics, drawing, ...) */
+	@Name(PREFIX+"Phase")
+	@Label("Frame Phase")
+	@Category({"WhatTheFlock", "Frame"})
+	@StackTrace(false)
+	static class PhaseEvent extends Event {
+		@Label("Phase")
+		String phase;
+	}
+
+	/** A single contact callback */
+	@Name(PREFIX+"Contact")
+	@Label("Contact Callback")
+	@Description("A beginContact or endContact callback from Box2D")
+	@Category({"WhatTheFlock", "Physics"})
+	@StackTrace(false)
+	@Enabled(false)
+	static class ContactEvent extends Event {
+	}
+
+	/** A Box2D world step */
+	@Name(PREFIX+"WorldStep")
+	@Label("World Step")
+	@Category({"WhatTheFlock", "Physics"})
+	@StackTrace(false)
+	static class StepEvent extends Event {
+		@Label("Step Length (s)")
+		float dt;
+		@Label("Bodies")
+		int bodies;
+		@Label("Contacts")
+		int contacts;
+	}
+
+	/** An A* search on the navigation grid */
+	@Name(PREFIX+"PathSearch")
+	@Label("Path Search")
+	@Category({"WhatTheFlock", "AI"})
+	@StackTrace(false)
+	static class SearchEvent extends Event {
+		@Label("Start Cell")
+		int start;
+		@Label("Goal Cell")
+		int goal;
+		@Label("Cells Expanded")
+		int expanded;
+		@Label("Path Length")
+		int length;
+		@Label("Found")
+		boolean found;
+	}
+
+	/** A chicken added to the world */
+	@Name(PREFIX+"ChickenSpawn")
+	@Label("Chicken Spawn")
+	@Category({"WhatTheFlock", "Gameplay"})
+	@StackTrace(false)
+	static class SpawnEvent extends Event {
+		@Label("X")
+		float x;
+		@Label("Y")
+		float y;
+		@Label("Chickens")
+		int chickens;
+	}
+
+	/** A chicken removed from the world */
+	@Name(PREFIX+"ChickenDespawn")
+	@Label("Chicken Despawn")
+	@Category({"WhatTheFlock", "Gameplay"})
+	@StackTrace(false)
+	static class DespawnEvent extends Event {
+		@Label("X")
+		float x;
+		@Label("Y")
+		float y;
+		@Label("Chickens")
+		int chickens;
+	}
+
+	/** An OpenAL source claimed for a sound */
+	@Name(PREFIX+"AudioSource")
+	@Label("Audio Source")
+	@Category({"WhatTheFlock", "Audio"})
+	static class AudioEvent extends Event {
+		@Label("Source")
+		int source;
+		@Label("Evicted")
+		@Description("Whether another sound was stopped to free the source")
+		boolean evicted;
+	}
+
+	/** An asset loaded by an asset directory */
+	@Name(PREFIX+"AssetLoad")
+	@Label("Asset Load")
+	@Description("The time since the previous asset of the same directory finished loading")
+	@Category({"WhatTheFlock", "Assets"})
+	@StackTrace(false)
+	static class AssetEvent extends Event {
+		@Label("File")
+		String file;
+		@Label("Type")
+		Class<?> type;
+	}
+
+	/**
+	 * Keeps the Telemetry facade informed of whether a recording is running
+	 */
+	private static class Listener implements FlightRecorderListener {
+		@Override
+		public void recorderInitialized(FlightRecorder recorder) {
+			update(recorder);
+		}
+
+		@Override
+		public void recordingStateChanged(Recording recording) {
+			update(FlightRecorder.getFlightRecorder());
+		}
+	}
+
+	/**
+	 * This class only has static methods
+	 */
+	private JfrEvents() {
+	}
+
+	/**
+	 * Registers the event types, and starts listening for recordings
+	 */
+	static void install() {
+		FlightRecorder.register(FrameEvent.class);
+		FlightRecorder.register(PhaseEvent.class);
+		FlightRecorder.register(ContactEvent.class);
+		FlightRecorder.register(StepEvent.class);
+		FlightRecorder.register(SearchEvent.class);
+		FlightRecorder.register(SpawnEvent.class);
+		FlightRecorder.register(DespawnEvent.class);
+		FlightRecorder.register(AudioEvent.class);
+		FlightRecorder.register(AssetEvent.class);
+		FlightRecorder.addListener(new Listener());
+		if (FlightRecorder.isInitialized()) {
+			update(FlightRecorder.getFlightRecorder());
+		}
+	}
+
+	/**
+	 * Marks the telemetry active if any recording is running
+	 *
+	 * @param recorder	The flight recorder
+	 */
+	private static void update(FlightRecorder recorder) {
+		boolean running = false;
+		for (Recording recording : recorder.getRecordings()) {
+			running = running || recording.getState() == RecordingState.RUNNING;
+		}
+		Telemetry.setActive(running);
+	}
+
+	static Object beginFrame() {
+		FrameEvent event = new FrameEvent();
+		event.begin();
+		return event;
+	}
+
+	static void endFrame(Object span, long frame) {
+		FrameEvent event = (FrameEvent)span;
+		event.frame = frame;
+		event.commit();
+	}
+
+	static Object beginPhase() {
+		PhaseEvent event = new PhaseEvent();
+		event.begin();
+		return event;
+	}
+
+	static void endPhase(Object span, String phase) {
+		PhaseEvent event = (PhaseEvent)span;
+		event.phase = phase;
+		event.commit();
+	}
+
+	static Object beginContact() {
+		ContactEvent event = new ContactEvent();
+		event.begin();
+		return event;
+	}
+
+	static void endContact(Object span) {
+		((ContactEvent)span).commit();
+	}
+
+	static Object beginStep() {
+		StepEvent event = new StepEvent();
+		event.begin();
+		return event;
+	}
+
+	static void endStep(Object span, float dt, int bodies, int contacts) {
+		StepEvent event = (StepEvent)span;
+		event.dt = dt;
+		event.bodies = bodies;
+		event.contacts = contacts;
+		event.commit();
+	}
+
+	static Object beginSearch() {
+		SearchEvent event = new SearchEvent();
+		event.begin();
+		return event;
+	}
+
+	static void endSearch(Object span, int start, int goal, int expanded, int length, boolean found) {
+		SearchEvent event = (SearchEvent)span;
+		event.start = start;
+		event.goal = goal;
+		event.expanded = expanded;
+		event.length = length;
+		event.found = found;
+		event.commit();
+	}
+
+	static void chickenSpawned(float x, float y, int chickens) {
+		SpawnEvent event = new SpawnEvent();
+		event.x = x;
+		event.y = y;
+		event.chickens = chickens;
+		event.commit();
+	}
+
+	static void chickenDespawned(float x, float y, int chickens) {
+		DespawnEvent event = new DespawnEvent();
+		event.x = x;
+		event.y = y;
+		event.chickens = chickens;
+		event.commit();
+	}
+
+	static Object beginAudioSource() {
+		AudioEvent event = new AudioEvent();
+		event.begin();
+		return event;
+	}
+
+	static void endAudioSource(Object span, int source, boolean evicted) {
+		AudioEvent event = (AudioEvent)span;
+		event.source = source;
+		event.evicted = evicted;
+		event.commit();
+	}
+
+	static Object beginAsset() {
+		AssetEvent event = new AssetEvent();
+		event.begin();
+		return event;
+	}
+
+	static void endAsset(Object span, String file, Class<?> type) {
+		AssetEvent event = (AssetEvent)span;
+		event.file = file;
+		event.type = type;
+		event.commit();
+	}
+}
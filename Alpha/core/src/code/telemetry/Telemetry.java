@@ -0,0 +1,258 @@
+/*
+ * Telemetry.java
+ *
+ * Game-level events for Java Flight Recorder.  A JFR recording shows us JVM stacks,
+ * GC pauses and lock contention, but not what the game was doing at the time.  The
+ * methods here emit custom events for the frame phases, the Box2D steps, the path
+ * searches, the chicken spawns, the audio sources and the asset loads, so that a
+ * single recording can tie a stutter to its cause.
+ *
+ * The events are only created while a recording is running.  Otherwise every method
+ * here is a single volatile read, and nothing is allocated.  On VMs without JFR (such
+ * as Java 8 or Android) the methods do nothing at all.
+ */
+package code.telemetry;
+
+/**
+ * Static facade for the custom JFR events.
+ *
+ * A timed event is started with one of the begin methods, which returns an opaque
+ * span (null when no recording is running), and committed by passing that span to
+ * the matching end method.  Spans must not be shared between threads.  The facade
+ * never refers to the jdk.jfr classes itself, so it can be loaded on any VM.
+ */
+public final class Telemetry {
+	/** Whether this VM has Flight Recorder */
+	private static final boolean AVAILABLE = detect();
+	/** Whether a recording is currently running */
+	private static volatile boolean active;
+
+	static {
+		if (AVAILABLE) {
+			JfrEvents.install();
+		}
+	}
+
+	/**
+	 * Returns true if this VM has the Flight Recorder API
+	 *
+	 * @return true if this VM has the Flight Recorder API
+	 */
+	private static boolean detect() {
+		try {
+			Class.forName("jdk.jfr.FlightRecorder");
+			return true;
+		} catch (ClassNotFoundException e) {
+			return false;
+		} catch (LinkageError e) {
+			return false;
+		}
+	}
+
+	/**
+	 * This class only has static methods
+	 */
+	private Telemetry() {
+	}
+
+	/**
+	 * Returns true if events are currently being recorded
+	 *
+	 * @return true if events are currently being recorded
+	 */
+	public static boolean isActive() {
+		return active;
+	}
+
+	/**
+	 * Sets whether events are currently being recorded (called by the JFR listener)
+	 *
+	 * @param value	whether events are currently being recorded
+	 */
+	static void setActive(boolean value) {
+		active = value;
+	}
+
+	/**
+	 * Starts the event for an animation frame
+	 *
+	 * @return the span of the event (null if not recording)
+	 */
+	public static Object beginFrame() {
+		return active ? JfrEvents.beginFrame() : null;
+	}
+
+	/**
+	 * Commits the event for an animation frame
+	 *
+	 * @param span	The span from beginFrame
+	 * @param frame	The number of the frame
+	 */
+	public static void endFrame(Object span, long frame) {
+		if (span != null) {
+			JfrEvents.endFrame(span, frame);
+		}
+	}
+
+	/**
+	 * Starts the event for a phase of a frame
+	 *
+	 * @return the span of the event (null if not recording)
+	 */
+	public static Object beginPhase() {
+		return active ? JfrEvents.beginPhase() : null;
+	}
+
+	/**
+	 * Commits the event for a phase of a frame
+	 *
+	 * @param span	The span from beginPhase
+	 * @param phase	The name of the phase
+	 */
+	public static void endPhase(Object span, String phase) {
+		if (span != null) {
+			JfrEvents.endPhase(span, phase);
+		}
+	}
+
+	/**
+	 * Starts the event for a contact callback
+	 *
+	 * These are disabled in the default JFR settings, as there can be hundreds of
+	 * them in a frame.
+	 *
+	 * @return the span of the event (null if not recording)
+	 */
+	public static Object beginContact() {
+		return active ? JfrEvents.beginContact() : null;
+	}
+
+	/**
+	 * Commits the event for a contact callback
+	 *
+	 * @param span	The span from beginContact
+	 */
+	public static void endContact(Object span) {
+		if (span != null) {
+			JfrEvents.endContact(span);
+		}
+	}
+
+	/**
+	 * Starts the event for a Box2D world step
+	 *
+	 * @return the span of the event (null if not recording)
+	 */
+	public static Object beginStep() {
+		return active ? JfrEvents.beginStep() : null;
+	}
+
+	/**
+	 * Commits the event for a Box2D world step
+	 *
+	 * @param span		The span from beginStep
+	 * @param dt		The length of the step in seconds
+	 * @param bodies	The number of bodies in the world
+	 * @param contacts	The number of contacts in the world
+	 */
+	public static void endStep(Object span, float dt, int bodies, int contacts) {
+		if (span != null) {
+			JfrEvents.endStep(span, dt, bodies, contacts);
+		}
+	}
+
+	/**
+	 * Starts the event for an A* search
+	 *
+	 * @return the span of the event (null if not recording)
+	 */
+	public static Object beginSearch() {
+		return active ? JfrEvents.beginSearch() : null;
+	}
+
+	/**
+	 * Commits the event for an A* search
+	 *
+	 * @param span		The span from beginSearch
+	 * @param start		The start cell
+	 * @param goal		The goal cell
+	 * @param expanded	The number of cells expanded
+	 * @param length	The length of the path found (0 if none)
+	 * @param found		Whether a path was found
+	 */
+	public static void endSearch(Object span, int start, int goal, int expanded, int length, boolean found) {
+		if (span != null) {
+			JfrEvents.endSearch(span, start, goal, expanded, length, found);
+		}
+	}
+
+	/**
+	 * Records that a chicken was added to the world
+	 *
+	 * @param x			The x-coordinate of the chicken
+	 * @param y			The y-coordinate of the chicken
+	 * @param chickens	The number of chickens in the world afterwards
+	 */
+	public static void chickenSpawned(float x, float y, int chickens) {
+		if (active) {
+			JfrEvents.chickenSpawned(x, y, chickens);
+		}
+	}
+
+	/**
+	 * Records that a chicken was removed from the world
+	 *
+	 * @param x			The x-coordinate of the chicken
+	 * @param y			The y-coordinate of the chicken
+	 * @param chickens	The number of chickens in the world afterwards
+	 */
+	public static void chickenDespawned(float x, float y, int chickens) {
+		if (active) {
+			JfrEvents.chickenDespawned(x, y, chickens);
+		}
+	}
+
+	/**
+	 * Starts the event for claiming an audio source
+	 *
+	 * @return the span of the event (null if not recording)
+	 */
+	public static Object beginAudioSource() {
+		return active ? JfrEvents.beginAudioSource() : null;
+	}
+
+	/**
+	 * Commits the event for claiming an audio source
+	 *
+	 * @param span		The span from beginAudioSource
+	 * @param source	The source claimed (-1 if none was available)
+	 * @param evicted	Whether another sound was evicted from the source
+	 */
+	public static void endAudioSource(Object span, int source, boolean evicted) {
+		if (span != null) {
+			JfrEvents.endAudioSource(span, source, evicted);
+		}
+	}
+
+	/**
+	 * Starts the event for loading an asset
+	 *
+	 * @return the span of the event (null if not recording)
+	 */
+	public static Object beginAsset() {
+		return active ? JfrEvents.beginAsset() : null;
+	}
+
+	/**
+	 * Commits the event for loading an asset
+	 *
+	 * @param span	The span from beginAsset
+	 * @param file	The asset file name
+	 * @param type	The asset class
+	 */
+	public static void endAsset(Object span, String file, Class<?> type) {
+		if (span != null) {
+			JfrEvents.endAsset(span, file, type);
+		}
+	}
+}
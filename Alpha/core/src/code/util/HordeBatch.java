@@ -0,0 +1,316 @@
+/*
+ * HordeBatch.java
+ *
+ * Every chicken is a filmstrip frame and a two-part health bar.  Through the render
+ * queue, that is three sprites a chicken, and each sprite gets an affine transform
+ * (a rotation, a scale and two translations) when it is drawn.  With hundreds of
+ * chickens, building those transforms costs more than drawing the sprites.
+ *
+ * Chickens never rotate, and every chicken has the same size, so the corners of its
+ * quads are the same offsets from its position.  This batch computes those offsets
+ * once, stores only a position, a frame, a tint and a health per chicken, and writes
+ * the quads straight into vertex arrays in the format of the sprite batch.
+ */
+package code.util;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+
+/**
+ * A batch of unrotated sprites of the same size, each with a health bar.
+ *
+ * The shared size and placement of the sprite and its bar are set with
+ * {@link #setSprite} and {@link #setBar}.  The instances are added each frame, and
+ * the sprites are drawn back to front (by height), as in a depth sorted layer of the
+ * render queue.  The bars are drawn separately, so that they can go over everything
+ * else.  Like the render queue, the batch only needs a sprite batch to draw into, so
+ * it does not depend on any particular canvas.
+ */
+public class HordeBatch {
+	/** The number of floats stored for each instance */
+	private static final int STRIDE = 8;
+	/** The offsets of the instance data */
+	private static final int X = 0, Y = 1, U = 2, V = 3, U2 = 4, V2 = 5, COLOR = 6, HEALTH = 7;
+	/** The number of floats of a quad (four vertices of x, y, color, u and v) */
+	private static final int QUAD_SIZE = 20;
+	/** The most quads written in one call to the sprite batch */
+	private static final int MAX_QUADS = 128;
+
+	/** The number of instances in the batch */
+	private int size;
+	/** The position, frame, tint and health of each instance */
+	private float[] data;
+	/** The depth key of each instance */
+	private long[] keys;
+	/** The instance indices, in sorted order once the batch is sorted */
+	private int[] order;
+	/** The sorter for the keys */
+	private final RadixSort sorter;
+	/** The quads written for the sprite batch */
+	private final float[] vertices;
+
+	/** The texture of the sprites */
+	private Texture spriteTexture;
+	/** The corners of a sprite, relative to the position of its instance */
+	private float spriteLeft, spriteBottom, spriteRight, spriteTop;
+	/** The texture of the health bars */
+	private Texture barTexture;
+	/** The texture coordinates of the health bars */
+	private float barU, barV, barU2, barV2;
+	/** The corners of a full health bar, relative to the position of its instance */
+	private float barLeft, barBottom, barWidth, barTop;
+	/** The packed colors of the empty and the full health bar */
+	private float barBack, barFront;
+
+	/**
+	 * Creates an empty batch with the given capacity
+	 *
+	 * The batch grows if more instances are added.
+	 *
+	 * @param capacity	The initial number of instances
+	 */
+	public HordeBatch(int capacity) {
+		data = new float[capacity*STRIDE];
+		keys = new long[capacity];
+		sorter = new RadixSort();
+		vertices = new float[MAX_QUADS*QUAD_SIZE];
+	}
+
+	/**
+	 * Returns the number of instances in the batch
+	 *
+	 * @return the number of instances in the batch
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Removes every instance from the batch
+	 *
+	 * The textures are released, so the batch does not keep them alive.
+	 */
+	public void clear() {
+		size = 0;
+		spriteTexture = null;
+		barTexture = null;
+	}
+
+	/**
+	 * Sets the texture and placement of the sprites
+	 *
+	 * The frame of each sprite is given when it is added, so only the texture of the
+	 * region is used.
+	 *
+	 * @param region	A region of the sprite texture
+	 * @param left		The offset of the left edge from the instance position
+	 * @param bottom	The offset of the bottom edge from the instance position
+	 * @param width		The width of a sprite (on screen)
+	 * @param height	The height of a sprite (on screen)
+	 */
+	public void setSprite(TextureRegion region, float left, float bottom, float width, float height) {
+		spriteTexture = region.getTexture();
+		spriteLeft = left;
+		spriteBottom = bottom;
+		spriteRight = left+width;
+		spriteTop = bottom+height;
+	}
+
+	/**
+	 * Sets the texture, colors and placement of the health bars
+	 *
+	 * A bar is drawn in the back color at full width, and then in the front color
+	 * at the health fraction of that width.
+	 *
+	 * @param region	The health bar texture
+	 * @param back		The color of the empty bar
+	 * @param front		The color of the full bar
+	 * @param left		The offset of the left edge from the instance position
+	 * @param bottom	The offset of the bottom edge from the instance position
+	 * @param width		The width of a full bar (on screen)
+	 * @param height	The height of a bar (on screen)
+	 */
+	public void setBar(TextureRegion region, Color back, Color front,
+					   float left, float bottom, float width, float height) {
+		barTexture = region.getTexture();
+		barU  = region.getU();
+		barV  = region.getV();
+		barU2 = region.getU2();
+		barV2 = region.getV2();
+		barBack  = back.toFloatBits();
+		barFront = front.toFloatBits();
+		barLeft = left;
+		barBottom = bottom;
+		barWidth = width;
+		barTop = bottom+height;
+	}
+
+	/**
+	 * Adds an instance to the batch
+	 *
+	 * The current frame of a filmstrip is copied, so it is safe to change the frame
+	 * afterwards.
+	 *
+	 * @param x			The x-coordinate of the instance (on screen)
+	 * @param y			The y-coordinate of the instance (on screen)
+	 * @param frame		The frame of the sprite
+	 * @param tint		The color tint of the sprite
+	 * @param health	The fraction of the health bar to fill
+	 */
+	public void add(float x, float y, TextureRegion frame, Color tint, float health) {
+		if (size == keys.length) {
+			resize(Math.max(2*size, 16));
+		}
+		// Sprites higher on the screen are further away, so they get smaller keys
+		keys[size] = RadixSort.sortableBits(-y);
+
+		int pos = size*STRIDE;
+		data[pos+X]  = x;
+		data[pos+Y]  = y;
+		data[pos+U]  = frame.getU();
+		data[pos+V]  = frame.getV();
+		data[pos+U2] = frame.getU2();
+		data[pos+V2] = frame.getV2();
+		data[pos+COLOR]  = tint.toFloatBits();
+		data[pos+HEALTH] = health;
+		size++;
+	}
+
+	/**
+	 * Sorts the batch back to front
+	 *
+	 * The sort is stable, so instances at the same height are drawn in the order
+	 * they were added.
+	 */
+	public void sort() {
+		order = sorter.sort(keys, size);
+	}
+
+	/**
+	 * Draws the sorted sprites that are behind the given height
+	 *
+	 * The sprites are drawn from the given position in the sorted batch, up to the
+	 * first sprite that is not above the given height.  This lets the canvas draw
+	 * the batch in between the sprites of a depth sorted layer.
+	 *
+	 * @param batch	The sprite batch to draw into
+	 * @param start	The position in the sorted batch to start from
+	 * @param depth	The height (on screen) to stop at
+	 *
+	 * @return the position of the first sprite that was not drawn
+	 */
+	public int drawSprites(Batch batch, int start, float depth) {
+		int end = start;
+		while (end < size && data[order[end]*STRIDE+Y] > depth) {
+			end++;
+		}
+
+		int quads = 0;
+		for (int ii = start; ii < end; ii++) {
+			int pos = order[ii]*STRIDE;
+			float x = data[pos+X];
+			float y = data[pos+Y];
+			putQuad(quads++, x+spriteLeft, y+spriteBottom, x+spriteRight, y+spriteTop,
+					data[pos+U], data[pos+V], data[pos+U2], data[pos+V2], data[pos+COLOR]);
+			if (quads == MAX_QUADS) {
+				batch.draw(spriteTexture, vertices, 0, quads*QUAD_SIZE);
+				quads = 0;
+			}
+		}
+		if (quads > 0) {
+			batch.draw(spriteTexture, vertices, 0, quads*QUAD_SIZE);
+		}
+		return end;
+	}
+
+	/**
+	 * Draws the health bars of every instance
+	 *
+	 * The bars are drawn in the order the instances were added.  Each empty bar is
+	 * followed by its fill, so a bar is never covered by the one next to it.
+	 *
+	 * @param batch	The sprite batch to draw into
+	 */
+	public void drawBars(Batch batch) {
+		int quads = 0;
+		for (int ii = 0; ii < size; ii++) {
+			int pos = ii*STRIDE;
+			float left = data[pos+X]+barLeft;
+			float bottom = data[pos+Y]+barBottom;
+			float top = data[pos+Y]+barTop;
+			putQuad(quads++, left, bottom, left+barWidth, top, barU, barV, barU2, barV2, barBack);
+			putQuad(quads++, left, bottom, left+barWidth*data[pos+HEALTH], top,
+					barU, barV, barU2, barV2, barFront);
+			if (quads == MAX_QUADS) {
+				batch.draw(barTexture, vertices, 0, quads*QUAD_SIZE);
+				quads = 0;
+			}
+		}
+		if (quads > 0) {
+			batch.draw(barTexture, vertices, 0, quads*QUAD_SIZE);
+		}
+	}
+
+	/**
+	 * Writes a quad into the vertex array
+	 *
+	 * The vertices are in the order of the sprite batch, starting at the bottom left
+	 * and going clockwise.  The region is flipped vertically, as the texture rows go
+	 * down while the screen coordinates go up.
+	 *
+	 * @param quad		The position of the quad in the vertex array
+	 * @param left		The left edge (on screen)
+	 * @param bottom	The bottom edge (on screen)
+	 * @param right		The right edge (on screen)
+	 * @param top		The top edge (on screen)
+	 * @param u			The left texture coordinate
+	 * @param v			The top texture coordinate
+	 * @param u2		The right texture coordinate
+	 * @param v2		The bottom texture coordinate
+	 * @param color		The packed color
+	 */
+	private void putQuad(int quad, float left, float bottom, float right, float top,
+						 float u, float v, float u2, float v2, float color) {
+		float[] vertices = this.vertices;
+		int ii = quad*QUAD_SIZE;
+		vertices[ii++] = left;
+		vertices[ii++] = bottom;
+		vertices[ii++] = color;
+		vertices[ii++] = u;
+		vertices[ii++] = v2;
+
+		vertices[ii++] = left;
+		vertices[ii++] = top;
+		vertices[ii++] = color;
+		vertices[ii++] = u;
+		vertices[ii++] = v;
+
+		vertices[ii++] = right;
+		vertices[ii++] = top;
+		vertices[ii++] = color;
+		vertices[ii++] = u2;
+		vertices[ii++] = v;
+
+		vertices[ii++] = right;
+		vertices[ii++] = bottom;
+		vertices[ii++] = color;
+		vertices[ii++] = u2;
+		vertices[ii]   = v2;
+	}
+
+	/**
+	 * Grows the batch to the given capacity
+	 *
+	 * @param capacity	The new number of instances
+	 */
+	private void resize(int capacity) {
+		long[] newKeys = new long[capacity];
+		System.arraycopy(keys, 0, newKeys, 0, size);
+		keys = newKeys;
+		float[] newData = new float[capacity*STRIDE];
+		System.arraycopy(data, 0, newData, 0, size*STRIDE);
+		data = newData;
+	}
+}
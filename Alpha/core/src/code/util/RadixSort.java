@@ -0,0 +1,105 @@
+/*
+ * RadixSort.java
+ *
+ * Drawing back to front means sorting every sprite every frame.  A comparison sort
+ * needs objects (or boxed keys) and a comparator, and costs O(n log n) calls through
+ * it.  Packing the sort order into a 64-bit key instead lets us sort with a radix
+ * sort, which is linear in the number of sprites and allocates nothing once its
+ * arrays are large enough.
+ */
+package code.util;
+
+import java.util.Arrays;
+
+/**
+ * A least significant digit radix sort on 64-bit keys.
+ *
+ * The keys are compared as unsigned integers.  The sort is stable, and it skips the
+ * bytes that are the same for every key (usually most of them).  A sorter keeps its
+ * scratch space between calls, so it should not be shared between threads.
+ */
+public class RadixSort {
+	/** The bucket counts of each byte of the keys */
+	private final int[][] counts;
+	/** The indices, in sorted order after a sort */
+	private int[] order;
+	/** The scratch space for the sort */
+	private int[] scratch;
+
+	/**
+	 * Creates a new sorter
+	 */
+	public RadixSort() {
+		counts = new int[8][256];
+		order = new int[0];
+		scratch = new int[0];
+	}
+
+	/**
+	 * Returns the indices of the given keys in sorted order
+	 *
+	 * This method returns a reference to an internal array, which is only valid
+	 * until the next sort.  Only its first size entries are meaningful.
+	 *
+	 * @param keys	The keys to sort (which are not modified)
+	 * @param size	The number of keys to sort
+	 *
+	 * @return the indices of the given keys in sorted order
+	 */
+	public int[] sort(long[] keys, int size) {
+		if (order.length < size) {
+			order = new int[keys.length];
+			scratch = new int[keys.length];
+		}
+		for (int[] count : counts) {
+			Arrays.fill(count, 0);
+		}
+		for (int ii = 0; ii < size; ii++) {
+			long key = keys[ii];
+			for (int pass = 0; pass < 8; pass++) {
+				counts[pass][(int)(key >>> (8*pass)) & 0xff]++;
+			}
+			order[ii] = ii;
+		}
+
+		int[] source = order;
+		int[] target = scratch;
+		for (int pass = 0; pass < 8; pass++) {
+			int[] count = counts[pass];
+			if (size == 0 || count[(int)(keys[0] >>> (8*pass)) & 0xff] == size) {
+				continue;
+			}
+			int total = 0;
+			for (int ii = 0; ii < 256; ii++) {
+				int amount = count[ii];
+				count[ii] = total;
+				total += amount;
+			}
+			for (int ii = 0; ii < size; ii++) {
+				int index = source[ii];
+				target[count[(int)(keys[index] >>> (8*pass)) & 0xff]++] = index;
+			}
+			int[] swap = source;
+			source = target;
+			target = swap;
+		}
+		order = source;
+		scratch = target;
+		return order;
+	}
+
+	/**
+	 * Returns the bits of a float, flipped so that they sort as unsigned integers
+	 *
+	 * The result is in the lower 32 bits, so it can be shifted into place in a key.
+	 *
+	 * @param value	The value to convert
+	 *
+	 * @return the bits of a float, flipped so that they sort as unsigned integers
+	 */
+	public static long sortableBits(float value) {
+		int bits = Float.floatToIntBits(value);
+		bits ^= (bits >> 31) | 0x80000000;
+		return bits & 0xffffffffL;
+	}
+}
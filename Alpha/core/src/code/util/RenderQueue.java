@@ -0,0 +1,242 @@
+/*
+ * RenderQueue.java
+ *
+ * Sprites drawn straight to the sprite batch are drawn in the order the objects were
+ * added to the level.  That order says nothing about which sprite should be in front
+ * (a nugget further down the screen should cover one further up), and it switches
+ * textures whenever it switches objects, flushing the batch every time.
+ *
+ * The queue defers the sprites of a pass instead.  Every sprite gets a 64-bit sort
+ * key, with the layer in the top bits, then the height on the screen (for the layers
+ * that are sorted back to front), then the texture and then the blend state.  At the
+ * end of the pass the keys are radix sorted, and the sprites are drawn in that order,
+ * so that sprites on the same texture are drawn together.
+ */
+package code.util;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.ObjectIntMap;
+
+/**
+ * A list of sprite commands, sorted by layer, depth, texture and blend state.
+ *
+ * The queue only records and sorts the sprites; the canvas draws them.  Layers and
+ * blend states are small integers (the ordinals of the canvas enums), so the queue
+ * does not depend on any particular canvas.  The region of a sprite is copied when it
+ * is queued, so animations may change their frame before the queue is drawn.
+ */
+public class RenderQueue {
+	/** The number of floats stored for each sprite */
+	public static final int STRIDE = 14;
+	/** The offsets of the sprite data */
+	public static final int U = 0, V = 1, U2 = 2, V2 = 3, WIDTH = 4, HEIGHT = 5,
+							OX = 6, OY = 7, X = 8, Y = 9, ANGLE = 10, SX = 11, SY = 12, COLOR = 13;
+	/** The number of layers a queue can sort */
+	public static final int MAX_LAYERS = 1 << 8;
+	/** The number of blend states a queue can sort */
+	public static final int MAX_BLENDS = 1 << 2;
+
+	/** The bit offset of the layer in the sort key */
+	private static final int LAYER_SHIFT = 56;
+	/** The bit offset of the depth in the sort key */
+	private static final int DEPTH_SHIFT = 24;
+	/** The bit offset of the texture in the sort key */
+	private static final int TEXTURE_SHIFT = 8;
+	/** The bit offset of the blend state in the sort key */
+	private static final int BLEND_SHIFT = 6;
+	/** The most textures that a single pass may use */
+	private static final int MAX_TEXTURES = 1 << 16;
+
+	/** The number of sprites in the queue */
+	private int size;
+	/** The sort key of each sprite */
+	private long[] keys;
+	/** The texture of each sprite */
+	private Texture[] textures;
+	/** The region, transform and color of each sprite */
+	private float[] data;
+	/** The sprite indices, in sorted order once the queue is sorted */
+	private int[] order;
+	/** The sorter for the keys */
+	private final RadixSort sorter;
+	/** The texture identifiers of this pass */
+	private final ObjectIntMap<Texture> textureIds;
+
+	/**
+	 * Creates an empty queue with the given capacity
+	 *
+	 * The queue grows if more sprites are queued.
+	 *
+	 * @param capacity	The initial number of sprites
+	 */
+	public RenderQueue(int capacity) {
+		keys = new long[capacity];
+		textures = new Texture[capacity];
+		data = new float[capacity*STRIDE];
+		sorter = new RadixSort();
+		textureIds = new ObjectIntMap<Texture>();
+	}
+
+	/**
+	 * Returns the number of sprites in the queue
+	 *
+	 * @return the number of sprites in the queue
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Removes every sprite from the queue
+	 *
+	 * The textures are released, so the queue does not keep them alive.
+	 */
+	public void clear() {
+		for (int ii = 0; ii < size; ii++) {
+			textures[ii] = null;
+		}
+		size = 0;
+		textureIds.clear();
+	}
+
+	/**
+	 * Adds a sprite to the queue
+	 *
+	 * The transformations are the same as those of the canvas draw method that takes
+	 * an origin, a position, an angle and a scale.
+	 *
+	 * @param layer	The layer of the sprite (less than {@link #MAX_LAYERS})
+	 * @param depthSorted Whether the layer is sorted back to front
+	 * @param blend	The blend state of the sprite (less than {@link #MAX_BLENDS})
+	 * @param region The texture to draw
+	 * @param tint  The color tint
+	 * @param ox 	The x-coordinate of texture origin (in pixels)
+	 * @param oy 	The y-coordinate of texture origin (in pixels)
+	 * @param x 	The x-coordinate of the texture origin (on screen)
+	 * @param y 	The y-coordinate of the texture origin (on screen)
+	 * @param angle The rotation angle (in radians) about the origin.
+	 * @param sx 	The x-axis scaling factor
+	 * @param sy 	The y-axis scaling factor
+	 */
+	public void add(int layer, boolean depthSorted, int blend, TextureRegion region, Color tint,
+					float ox, float oy, float x, float y, float angle, float sx, float sy) {
+		if (size == keys.length) {
+			resize(Math.max(2*size, 16));
+		}
+		Texture texture = region.getTexture();
+		int id = textureIds.get(texture, -1);
+		if (id == -1) {
+			id = textureIds.size % MAX_TEXTURES;
+			textureIds.put(texture, id);
+		}
+
+		// Sprites higher on the screen are further away, so they get smaller keys
+		long depth = depthSorted ? RadixSort.sortableBits(-y) : 0;
+		keys[size] = (long)layer << LAYER_SHIFT | depth << DEPTH_SHIFT |
+					 (long)id << TEXTURE_SHIFT | (long)blend << BLEND_SHIFT;
+		textures[size] = texture;
+
+		int pos = size*STRIDE;
+		data[pos+U]  = region.getU();
+		data[pos+V]  = region.getV();
+		data[pos+U2] = region.getU2();
+		data[pos+V2] = region.getV2();
+		data[pos+WIDTH]  = region.getRegionWidth();
+		data[pos+HEIGHT] = region.getRegionHeight();
+		data[pos+OX] = ox;
+		data[pos+OY] = oy;
+		data[pos+X]  = x;
+		data[pos+Y]  = y;
+		data[pos+ANGLE] = angle;
+		data[pos+SX] = sx;
+		data[pos+SY] = sy;
+		data[pos+COLOR] = tint.toFloatBits();
+		size++;
+	}
+
+	/**
+	 * Sorts the queue by its keys
+	 *
+	 * The sort is a radix sort, so it is stable: sprites with the same key are drawn
+	 * in the order they were queued.
+	 */
+	public void sort() {
+		order = sorter.sort(keys, size);
+	}
+
+	/**
+	 * Returns the index of the sprite at the given position in the sorted queue
+	 *
+	 * @param position	The position in the sorted queue
+	 *
+	 * @return the index of the sprite at the given position in the sorted queue
+	 */
+	public int get(int position) {
+		return order[position];
+	}
+
+	/**
+	 * Returns the layer of the given sprite
+	 *
+	 * @param index	The sprite index
+	 *
+	 * @return the layer of the given sprite
+	 */
+	public int getLayer(int index) {
+		return (int)(keys[index] >>> LAYER_SHIFT) & (MAX_LAYERS-1);
+	}
+
+	/**
+	 * Returns the blend state of the given sprite
+	 *
+	 * @param index	The sprite index
+	 *
+	 * @return the blend state of the given sprite
+	 */
+	public int getBlend(int index) {
+		return (int)(keys[index] >>> BLEND_SHIFT) & (MAX_BLENDS-1);
+	}
+
+	/**
+	 * Returns the texture of the given sprite
+	 *
+	 * @param index	The sprite index
+	 *
+	 * @return the texture of the given sprite
+	 */
+	public Texture getTexture(int index) {
+		return textures[index];
+	}
+
+	/**
+	 * Returns the region, transform and color of every sprite
+	 *
+	 * The sprite with index i starts at i*STRIDE, and the offsets of its values are
+	 * the constants U through COLOR.  This method returns a reference to the internal
+	 * array, which must not be modified.
+	 *
+	 * @return the region, transform and color of every sprite
+	 */
+	public float[] getData() {
+		return data;
+	}
+
+	/**
+	 * Grows the queue to the given capacity
+	 *
+	 * @param capacity	The new number of sprites
+	 */
+	private void resize(int capacity) {
+		long[] newKeys = new long[capacity];
+		System.arraycopy(keys, 0, newKeys, 0, size);
+		keys = newKeys;
+		Texture[] newTextures = new Texture[capacity];
+		System.arraycopy(textures, 0, newTextures, 0, size);
+		textures = newTextures;
+		float[] newData = new float[capacity*STRIDE];
+		System.arraycopy(data, 0, newData, 0, size*STRIDE);
+		data = newData;
+	}
+}
@@ -13,6 +13,7 @@ package code.backend;
 
 import code.audio.*;
 import code.backend.audio.*;
+import code.telemetry.Telemetry;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.ApplicationListener;
 import com.badlogic.gdx.Audio;
@@ -482,6 +483,9 @@ public class GDXAudio implements AudioEngine {
             return 0;
         }
         
+        Object span = Telemetry.beginAudioSource();
+        boolean evicted = false;
+
         // Try to find an available buffer
         int sourceId = -1;
         for (int next = (recentIndex + 1) % buffers.length; next != recentIndex && sourceId == -1; next = (next + 1) % buffers.length) {
@@ -500,10 +504,12 @@ public class GDXAudio implements AudioEngine {
                     stopSource(sourceId);
                     buffers[next] = sound;
                     recentIndex = next;
+                    evicted = true;
                 }
             }
         }
-        
+
+        Telemetry.endAudioSource(span, sourceId, evicted);
         return sourceId;
     }
     
@@ -0,0 +1,79 @@
+/*
+ * NullHandler.java
+ *
+ * Null objects for the interfaces a headless run has no implementation of.  The
+ * headless backend leaves Gdx.gl unset, and our audio loaders expect Gdx.audio to be
+ * an AudioEngine.  Writing out the 140 or so methods of GL20 (or the buffer interfaces
+ * of the audio engine) as empty stubs would be a lot of code that does nothing, so we
+ * let a dynamic proxy do it for us instead.
+ */
+package code.backend.headless;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * An invocation handler that ignores every call and returns zero, false or null.
+ *
+ * The Object methods behave as they would for a plain object, so null objects are
+ * safe to put in hash maps.
+ */
+public class NullHandler implements InvocationHandler {
+	/** The shared handler (it has no state) */
+	private static final NullHandler INSTANCE = new NullHandler();
+
+	/**
+	 * Returns a new null object implementing the given interface
+	 *
+	 * @param type	The interface to implement
+	 *
+	 * @return a new null object implementing the given interface
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> T create(Class<T> type) {
+		return (T)Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, INSTANCE);
+	}
+
+	/**
+	 * Returns the zero value for the return type of the method
+	 *
+	 * @param proxy		The null object
+	 * @param method	The method called
+	 * @param args		The method arguments
+	 *
+	 * @return the zero value for the return type of the method
+	 */
+	public Object invoke(Object proxy, Method method, Object[] args) {
+		if (method.getDeclaringClass() == Object.class) {
+			String name = method.getName();
+			if (name.equals("equals")) {
+				return proxy == args[0];
+			} else if (name.equals("hashCode")) {
+				return System.identityHashCode(proxy);
+			} else if (name.equals("toString")) {
+				return "Null" + proxy.getClass().getInterfaces()[0].getSimpleName();
+			}
+		}
+
+		Class<?> type = method.getReturnType();
+		if (!type.isPrimitive() || type == void.class) {
+			return null;
+		} else if (type == boolean.class) {
+			return false;
+		} else if (type == int.class) {
+			return 0;
+		} else if (type == long.class) {
+			return 0L;
+		} else if (type == float.class) {
+			return 0.0f;
+		} else if (type == double.class) {
+			return 0.0;
+		} else if (type == short.class) {
+			return (short)0;
+		} else if (type == byte.class) {
+			return (byte)0;
+		}
+		return (char)0;
+	}
+}
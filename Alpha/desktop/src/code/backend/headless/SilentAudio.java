@@ -0,0 +1,124 @@
+/*
+ * SilentAudio.java
+ *
+ * An audio engine for machines without a sound card.  Our asset loaders cast Gdx.audio
+ * to AudioEngine, so the mock audio of the headless backend is not enough to load the
+ * game.  This engine never touches OpenAL or the sound files; every sound it creates
+ * is a null object that plays nothing.
+ */
+package code.backend.headless;
+
+import com.badlogic.gdx.audio.AudioDevice;
+import com.badlogic.gdx.audio.AudioRecorder;
+import com.badlogic.gdx.files.FileHandle;
+import code.audio.*;
+
+/**
+ * An {@link AudioEngine} that does nothing.
+ *
+ * All sounds, music and sources are null objects (see {@link NullHandler}), so any
+ * query on them returns zero, false or null.
+ */
+public class SilentAudio implements AudioEngine {
+
+	/**
+	 * Returns the number of simultaneous sound sources supported by this audio engine.
+	 *
+	 * @return 0, as this engine has no sound sources
+	 */
+	public int getCapacity() {
+		return 0;
+	}
+
+	/**
+	 * Returns a silent audio source, without reading the file
+	 *
+	 * @param file The sound asset
+	 *
+	 * @return a silent audio source
+	 */
+	public AudioSource newSource(FileHandle file) {
+		return NullHandler.create(AudioSource.class);
+	}
+
+	/**
+	 * Returns a silent sound buffer, without reading the file
+	 *
+	 * @param file The sound asset
+	 *
+	 * @return a silent sound buffer
+	 */
+	public SoundBuffer newSound(FileHandle file) {
+		return NullHandler.create(SoundBuffer.class);
+	}
+
+	/**
+	 * Returns a silent sound buffer
+	 *
+	 * @param source The audio source
+	 *
+	 * @return a silent sound buffer
+	 */
+	public SoundBuffer newSoundBuffer(AudioSource source) {
+		return NullHandler.create(SoundBuffer.class);
+	}
+
+	/**
+	 * Returns a silent music buffer, without reading the file
+	 *
+	 * @param file The music asset
+	 *
+	 * @return a silent music buffer
+	 */
+	public MusicBuffer newMusic(FileHandle file) {
+		return NullHandler.create(MusicBuffer.class);
+	}
+
+	/**
+	 * Returns a silent music buffer
+	 *
+	 * @param isMono 		Whether the buffer is mono
+	 * @param sampleRate	The buffer sample rate
+	 *
+	 * @return a silent music buffer
+	 */
+	public MusicBuffer newMusicBuffer(boolean isMono, int sampleRate) {
+		return NullHandler.create(MusicBuffer.class);
+	}
+
+	/**
+	 * Returns a device that discards all samples
+	 *
+	 * @param samplingRate	The sampling rate
+	 * @param isMono		Whether the device is mono
+	 *
+	 * @return a device that discards all samples
+	 */
+	public AudioDevice newAudioDevice(int samplingRate, boolean isMono) {
+		return NullHandler.create(AudioDevice.class);
+	}
+
+	/**
+	 * Returns a recorder that records only silence
+	 *
+	 * @param samplingRate	The sampling rate
+	 * @param isMono		Whether the recorder is mono
+	 *
+	 * @return a recorder that records only silence
+	 */
+	public AudioRecorder newAudioRecorder(int samplingRate, boolean isMono) {
+		return NullHandler.create(AudioRecorder.class);
+	}
+
+	/**
+	 * Does nothing, as there is nothing playing
+	 */
+	public void pause() {
+	}
+
+	/**
+	 * Does nothing, as there is nothing playing
+	 */
+	public void resume() {
+	}
+}
@@ -0,0 +1,188 @@
+/*
+ * HeadlessGame.java
+ *
+ * The game without a window, a GPU or a sound card.  This boots the libGDX headless
+ * backend, replaces the parts it is missing with null objects, and loads the regular
+ * assets into a GameController.  The controller can then be stepped from any thread
+ * (the backend thread is idle once the game is loaded), which is what the headless
+ * launcher and the benchmarks do.
+ */
+package code.game.desktop;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Screen;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import code.assets.AssetDirectory;
+import code.backend.headless.NullHandler;
+import code.backend.headless.SilentAudio;
+import code.game.controllers.GameController;
+import code.game.views.HeadlessCanvas;
+import code.util.ScreenListener;
+
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * A loaded game on the headless backend.
+ *
+ * Whenever the game would change screens (because the level was won, or the exit
+ * key was pressed), the level is restarted instead.  The working directory must be
+ * the assets folder, as with DesktopLauncher.
+ */
+public class HeadlessGame extends ApplicationAdapter implements ScreenListener {
+	/** The width of the simulated screen */
+	private static final int WIDTH  = 1024;
+	/** The height of the simulated screen */
+	private static final int HEIGHT = 576;
+
+	/** Released once the game is loaded (or has failed to load) */
+	private final CountDownLatch loaded;
+	/** The reason the game failed to load (null if it did not) */
+	private RuntimeException failure;
+	/** The scripted keyboard */
+	private ScriptedInput input;
+	/** The game assets */
+	private AssetDirectory directory;
+	/** The canvas for the controller (it never draws) */
+	private HeadlessCanvas canvas;
+	/** The game being simulated */
+	private GameController controller;
+	/** The number of times the game tried to change screens */
+	private int exits;
+
+	/**
+	 * Starts the headless backend and waits for the game to load
+	 *
+	 * @return the loaded game
+	 *
+	 * @throws GdxRuntimeException if the game could not be loaded
+	 */
+	public static HeadlessGame start() {
+		HeadlessGame game = new HeadlessGame();
+		new HeadlessApplication(game, new HeadlessApplicationConfiguration());
+		try {
+			game.loaded.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new GdxRuntimeException("Interrupted while loading", e);
+		}
+		if (game.failure != null) {
+			throw new GdxRuntimeException("Could not load the game", game.failure);
+		}
+		return game;
+	}
+
+	/**
+	 * Creates a new, unloaded game
+	 */
+	private HeadlessGame() {
+		loaded = new CountDownLatch(1);
+	}
+
+	/**
+	 * Loads the game on the backend thread.
+	 *
+	 * The headless backend has no OpenGL context and no audio engine, so we replace
+	 * them with null objects before loading any assets.
+	 */
+	@Override
+	public void create() {
+		try {
+			Gdx.gl = Gdx.gl20 = NullHandler.create(GL20.class);
+			Gdx.audio = new SilentAudio();
+			input = new ScriptedInput();
+			Gdx.input = input;
+
+			directory = new AssetDirectory("assets.json");
+			directory.loadAssets();
+			directory.finishLoading();
+
+			canvas = new HeadlessCanvas(WIDTH, HEIGHT);
+			controller = new GameController();
+			controller.gatherAssets(directory);
+			controller.setScreenListener(this);
+			controller.setCanvas(canvas);
+			controller.reset();
+		} catch (RuntimeException e) {
+			failure = e;
+			Gdx.app.exit();
+		} finally {
+			loaded.countDown();
+		}
+	}
+
+	/**
+	 * Returns the game being simulated
+	 *
+	 * @return the game being simulated
+	 */
+	public GameController getController() {
+		return controller;
+	}
+
+	/**
+	 * Returns the scripted keyboard
+	 *
+	 * @return the scripted keyboard
+	 */
+	public ScriptedInput getInput() {
+		return input;
+	}
+
+	/**
+	 * Returns the number of times the game tried to change screens
+	 *
+	 * @return the number of times the game tried to change screens
+	 */
+	public int getExits() {
+		return exits;
+	}
+
+	/**
+	 * Resets the number of times the game tried to change screens
+	 */
+	public void clearExits() {
+		exits = 0;
+	}
+
+	/**
+	 * Stops the backend, disposing of the game and its assets
+	 */
+	public void stop() {
+		Gdx.app.exit();
+	}
+
+	/**
+	 * Restarts the level whenever the game would change screens.
+	 *
+	 * @param screen	The screen requesting to exit
+	 * @param exitCode	The state of the screen upon exit
+	 */
+	public void exitScreen(Screen screen, int exitCode) {
+		exits++;
+		controller.reset();
+	}
+
+	/**
+	 * Disposes of the game and its assets
+	 */
+	@Override
+	public void dispose() {
+		if (controller != null) {
+			controller.dispose();
+			controller = null;
+		}
+		if (canvas != null) {
+			canvas.dispose();
+			canvas = null;
+		}
+		if (directory != null) {
+			directory.unloadAssets();
+			directory.dispose();
+			directory = null;
+		}
+	}
+}
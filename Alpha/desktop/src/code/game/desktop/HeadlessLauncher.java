@@ -0,0 +1,156 @@
+/*
+ * HeadlessLauncher.java
+ *
+ * Runs the game simulation without a window, a GPU or a sound card, so that it can be
+ * benchmarked (and smoke tested) on a build machine.  The launcher loads the regular
+ * assets, then steps each scenario in headless.json as fast as it can and reports the
+ * number of ticks per second.
+ *
+ * Usage: HeadlessLauncher [scenario ...]
+ *
+ * With no arguments every scenario is run.  The working directory must be the assets
+ * folder, as with DesktopLauncher.  The launcher exits with status 1 if any scenario
+ * allocated more than its budget of bytes per frame.
+ */
+package code.game.desktop;
+
+import code.game.controllers.GameController;
+import code.game.profile.AllocationMeter;
+import code.game.profile.FrameProfiler;
+import code.game.profile.GcMonitor;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.utils.JsonReader;
+import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.ObjectSet;
+
+/**
+ * The entry point for headless simulation runs.
+ *
+ * Each scenario picks a difficulty, a number of ticks and a script of key presses
+ * (see {@link ScriptedInput}).  A tick is one profiled frame, less the drawing (see
+ * GameController.simulate), with a time step of exactly one physics step, so results
+ * do not depend on the speed of the machine.  Nothing is ever drawn.
+ */
+public class HeadlessLauncher {
+	/** The file with the scenario definitions */
+	private static final String SCENARIOS = "headless.json";
+
+	/**
+	 * Classic main method that all Java programmers know.
+	 *
+	 * @param arg The names of the scenarios to run (none to run all)
+	 */
+	public static void main(String[] arg) {
+		ObjectSet<String> selected = new ObjectSet<String>();
+		selected.addAll(arg);
+
+		HeadlessGame game = HeadlessGame.start();
+		JsonValue scenarios = new JsonReader().parse(Gdx.files.internal(SCENARIOS));
+		boolean passed = true;
+		for (JsonValue scenario = scenarios.child; scenario != null; scenario = scenario.next) {
+			if (selected.size == 0 || selected.contains(scenario.name())) {
+				passed = run(game, scenario) && passed;
+			}
+		}
+		game.stop();
+		if (!passed) {
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Steps a single scenario to completion and logs its throughput
+	 *
+	 * A scenario may set "max_bytes_per_frame", the most bytes the game thread may
+	 * allocate per tick on average (level restarts included).  If the scenario goes
+	 * over this budget, the failure is logged and the scenario does not pass.
+	 *
+	 * @param game		The loaded game
+	 * @param scenario	The scenario definition
+	 *
+	 * @return true if the scenario stayed within its allocation budget
+	 */
+	private static boolean run(HeadlessGame game, JsonValue scenario) {
+		GameController controller = game.getController();
+		String difficulty = scenario.getString("difficulty", "easy");
+		if (difficulty.equals("hard")) {
+			controller.initHard();
+		} else if (difficulty.equals("medium")) {
+			controller.initMed();
+		} else {
+			controller.initEasy();
+		}
+		controller.reset();
+		ScriptedInput input = game.getInput();
+		input.clear();
+		input.load(scenario.get("input"));
+		game.clearExits();
+
+		int ticks  = scenario.getInt("ticks", 3600);
+		float dt   = controller.getStepSize();
+		FrameProfiler profiler = controller.getProfiler();
+		profiler.setTracking(true);
+		GcMonitor monitor = profiler.getGcMonitor();
+		AllocationMeter meter = new AllocationMeter();
+		long collections = monitor.getCollections();
+		long pauses = monitor.getTotalTime();
+		long chickens = 0;
+		int failures = 0;
+		boolean failed = false;
+		long bytes = meter.getAllocatedBytes();
+		long start = System.nanoTime();
+		for (int tick = 0; tick < ticks; tick++) {
+			input.setTick(tick);
+			profiler.beginFrame();
+			controller.simulate(dt);
+			profiler.endFrame();
+			chickens += controller.getChickenCount();
+			// The controller restarts failed levels itself
+			if (controller.isFailure() && !failed) {
+				failures++;
+			}
+			failed = controller.isFailure();
+		}
+		long elapsed = System.nanoTime()-start;
+		long perFrame = (meter.getAllocatedBytes()-bytes)/ticks;
+
+		double seconds = elapsed/1.0e9;
+		Gdx.app.log("Headless", String.format("%s: %d ticks in %.3f s (%.1f ticks/s, %.1fx real time), "+
+					"%.1f chickens on average, %d restarts",
+				scenario.name(), ticks, seconds, ticks/seconds, ticks*dt/seconds,
+				chickens/(double)ticks, failures+game.getExits()));
+		logProfile(scenario.name(), profiler);
+
+		Gdx.app.log("Headless", String.format("%s: %d bytes/frame, %d collections taking %d ms",
+				scenario.name(), perFrame, monitor.getCollections()-collections, monitor.getTotalTime()-pauses));
+		long budget = scenario.getLong("max_bytes_per_frame", -1);
+		if (budget >= 0 && perFrame > budget) {
+			Gdx.app.error("Headless", String.format("%s: allocated %d bytes/frame, over the budget of %d",
+					scenario.name(), perFrame, budget));
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Logs the p50, p95 and p99 time of each phase over the last frames of a scenario
+	 *
+	 * @param name		The scenario name
+	 * @param profiler	The frame timings
+	 */
+	private static void logProfile(String name, FrameProfiler profiler) {
+		StringBuilder line = new StringBuilder();
+		for (FrameProfiler.Phase phase : FrameProfiler.Phase.values()) {
+			if (phase == FrameProfiler.Phase.DRAW) {
+				continue;
+			}
+			line.setLength(0);
+			line.append(name).append(" ").append(phase.name().toLowerCase()).append(": ");
+			FrameProfiler.appendMillis(line, profiler.getPercentile(phase, 50)).append(" / ");
+			FrameProfiler.appendMillis(line, profiler.getPercentile(phase, 95)).append(" / ");
+			FrameProfiler.appendMillis(line, profiler.getPercentile(phase, 99)).append(" ms (p50 / p95 / p99), ");
+			AllocationMeter.appendBytes(line, profiler.getAverageAllocated(phase)).append(" per frame");
+			Gdx.app.log("Headless", line.toString());
+		}
+	}
+}
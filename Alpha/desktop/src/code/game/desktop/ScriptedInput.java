@@ -0,0 +1,129 @@
+/*
+ * ScriptedInput.java
+ *
+ * Keyboard input for headless runs.  The InputController polls Gdx.input once per
+ * frame, so replacing Gdx.input with this class lets a scenario "hold down" keys for
+ * a range of ticks without touching any of the game code.
+ */
+package code.game.desktop;
+
+import com.badlogic.gdx.Input;
+import com.badlogic.gdx.backends.headless.mock.input.MockInput;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.JsonValue;
+
+/**
+ * An input device that replays a script of key presses.
+ *
+ * Each entry of the script holds a key down from its first tick up to (but not
+ * including) its last tick.  The mouse and every other device stay idle.
+ */
+public class ScriptedInput extends MockInput {
+	/** The key of each script entry */
+	private final IntArray keys;
+	/** The first tick of each script entry */
+	private final IntArray starts;
+	/** The tick after the last of each script entry */
+	private final IntArray ends;
+	/** Whether each key is down this tick */
+	private final boolean[] pressed;
+
+	/**
+	 * Creates a new input device with an empty script
+	 */
+	public ScriptedInput() {
+		keys = new IntArray();
+		starts = new IntArray();
+		ends = new IntArray();
+		pressed = new boolean[Input.Keys.MAX_KEYCODE+1];
+	}
+
+	/**
+	 * Removes every entry from the script and releases all keys
+	 */
+	public void clear() {
+		keys.clear();
+		starts.clear();
+		ends.clear();
+		for (int ii = 0; ii < pressed.length; ii++) {
+			pressed[ii] = false;
+		}
+	}
+
+	/**
+	 * Adds a key press to the script
+	 *
+	 * @param key	The key code
+	 * @param start	The first tick the key is down
+	 * @param end	The tick the key is released
+	 */
+	public void press(int key, int start, int end) {
+		keys.add(key);
+		starts.add(start);
+		ends.add(end);
+	}
+
+	/**
+	 * Adds the key presses in the given JSON array to the script
+	 *
+	 * Each entry has a list of key names (as in {@link Input.Keys#toString}), and the
+	 * ticks "from" and "to".  An entry without "to" holds its keys down forever.  An
+	 * entry with "every" instead taps its keys for one tick, every that many ticks,
+	 * which is how a script repeats a key that only acts when it is first pressed.
+	 *
+	 * @param script	The JSON array of key presses (may be null)
+	 */
+	public void load(JsonValue script) {
+		if (script == null) {
+			return;
+		}
+		for (JsonValue entry = script.child; entry != null; entry = entry.next) {
+			int start = entry.getInt("from", 0);
+			int end = entry.getInt("to", Integer.MAX_VALUE);
+			int every = entry.getInt("every", 0);
+			for (String name : entry.get("keys").asStringArray()) {
+				int key = Input.Keys.valueOf(name);
+				if (key < 0) {
+					throw new GdxRuntimeException("Unknown key in script: "+name);
+				}
+				if (every <= 0) {
+					press(key, start, end);
+				} else {
+					for (int tick = start; tick < end; tick += every) {
+						press(key, tick, tick+1);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Sets the keys that are down to those of the given tick
+	 *
+	 * @param tick	The current tick
+	 */
+	public void setTick(int tick) {
+		for (int ii = 0; ii < pressed.length; ii++) {
+			pressed[ii] = false;
+		}
+		for (int ii = 0; ii < keys.size; ii++) {
+			if (starts.get(ii) <= tick && tick < ends.get(ii)) {
+				pressed[keys.get(ii)] = true;
+			}
+		}
+	}
+
+	@Override
+	public boolean isKeyPressed(int key) {
+		if (key == Input.Keys.ANY_KEY) {
+			for (int ii = 0; ii < pressed.length; ii++) {
+				if (pressed[ii]) {
+					return true;
+				}
+			}
+			return false;
+		}
+		return key >= 0 && key < pressed.length && pressed[key];
+	}
+}
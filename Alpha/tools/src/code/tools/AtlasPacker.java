@@ -0,0 +1,179 @@
+/*
+ * AtlasPacker.java
+ *
+ * Packs the sprites of an asset directory into a texture atlas.  Every texture in the
+ * directory is its own OpenGL texture, so the sprite batch has to flush whenever it
+ * switches between them (nugget, health bar, trap spot, nugget, ...).  Packing them onto
+ * a few large pages lets a whole level draw in a handful of batches.
+ *
+ * The packer reads the same JSON as the game.  Each entry of "atlases" gets every
+ * texture with the same key prefix that can live in an atlas (an atlas key without a
+ * prefix gets them all), and each region is named after its image file.  AssetDirectory
+ * uses those names to hand out atlas regions for the same keys, so game code does not
+ * need to know that an atlas exists.  Run it with `gradle -Ptools tools:packTextures`
+ * after changing any image, and commit the result.
+ */
+package code.tools;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.tools.texturepacker.TexturePacker;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.JsonReader;
+import com.badlogic.gdx.utils.JsonValue;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+/**
+ * Command line tool to pack the textures of an asset directory.
+ *
+ * The only (optional) argument is the asset directory, which defaults to assets.json.
+ * The working directory must be the assets folder.  The packer runs as a headless
+ * application, so that it can log like the game does.
+ */
+public class AtlasPacker extends ApplicationAdapter {
+	/** The default asset directory */
+	private static final String DEFAULT_DIRECTORY = "assets.json";
+	/** The largest size of an atlas page (the chef and nugget sheets only share a 4096 page) */
+	private static final int MAX_PAGE_SIZE = 4096;
+	/** The padding between regions, which keeps linear filtering from bleeding */
+	private static final int PADDING = 2;
+
+	/** The asset directory to pack */
+	private final String directory;
+
+	/**
+	 * Creates a packer for the given asset directory
+	 *
+	 * @param directory	The asset directory file name
+	 */
+	public AtlasPacker(String directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * Classic main method that all Java programmers know.
+	 *
+	 * @param args	The asset directory (optional)
+	 */
+	public static void main(String[] args) {
+		new HeadlessApplication(new AtlasPacker(args.length > 0 ? args[0] : DEFAULT_DIRECTORY));
+	}
+
+	/**
+	 * Packs every atlas of the asset directory, and then exits
+	 *
+	 * The application exits with status 1 if an atlas could not be packed.
+	 */
+	@Override
+	public void create() {
+		FileHandle file = Gdx.files.internal(directory);
+		JsonValue json = new JsonReader().parse(file);
+		JsonValue atlases = json.get("atlases");
+		if (atlases == null || atlases.child() == null) {
+			Gdx.app.error("AtlasPacker", directory+" has no atlas to pack into");
+			System.exit(1);
+		}
+		try {
+			for (JsonValue entry = atlases.child(); entry != null; entry = entry.next()) {
+				pack(json.get("textures"), entry.name(), Gdx.files.local(entry.asString()));
+			}
+		} catch (IOException | GdxRuntimeException e) {
+			Gdx.app.error("AtlasPacker", "Could not pack "+directory, e);
+			System.exit(1);
+		}
+		Gdx.app.exit();
+	}
+
+	/**
+	 * Packs the textures that share the prefix of the atlas key
+	 *
+	 * The atlas "char:sprites" gets every packable "char:" texture, while the atlas
+	 * "sprites" gets every packable texture.
+	 *
+	 * @param textures	The texture entries of the asset directory
+	 * @param key		The atlas key
+	 * @param atlas		The atlas file to write
+	 */
+	private static void pack(JsonValue textures, String key, FileHandle atlas) throws IOException {
+		String prefix = key.substring(0, key.lastIndexOf(':')+1);
+
+		TexturePacker.Settings settings = new TexturePacker.Settings();
+		settings.maxWidth  = MAX_PAGE_SIZE;
+		settings.maxHeight = MAX_PAGE_SIZE;
+		settings.paddingX = PADDING;
+		settings.paddingY = PADDING;
+		settings.duplicatePadding = true;
+		settings.filterMin = Texture.TextureFilter.Linear;
+		settings.filterMag = Texture.TextureFilter.Linear;
+		settings.useIndexes = false;
+		TexturePacker packer = new TexturePacker(settings);
+
+		int count = 0;
+		for (JsonValue entry = textures.child(); entry != null; entry = entry.next()) {
+			if (!entry.name().startsWith(prefix)) {
+				continue;
+			}
+			String image = getPackableFile(entry);
+			if (image == null) {
+				Gdx.app.log("AtlasPacker", "Skipping "+entry.name());
+				continue;
+			}
+			BufferedImage pixels = ImageIO.read(Gdx.files.internal(image).file());
+			if (pixels == null) {
+				throw new IOException("Could not read "+image);
+			}
+			packer.addImage(pixels, getRegionName(image));
+			count++;
+		}
+
+		// The packer appends to an existing atlas, so start from a clean one
+		if (atlas.exists() && !atlas.delete()) {
+			throw new IOException("Could not replace "+atlas);
+		}
+		packer.pack(atlas.parent().file(), atlas.name());
+		Gdx.app.log("AtlasPacker", "Packed "+count+" textures into "+atlas);
+	}
+
+	/**
+	 * Returns the image file of a texture entry, if it can be packed
+	 *
+	 * A texture that repeats, or that has mipmaps, needs to be a texture of its own.
+	 * So does a texture with its own regions, as those are in the pixels of the texture.
+	 *
+	 * @param entry	The texture entry of the asset directory
+	 *
+	 * @return the image file of a texture entry (null if it cannot be packed)
+	 */
+	private static String getPackableFile(JsonValue entry) {
+		if (entry.isString()) {
+			return entry.asString();
+		}
+		if (entry.getBoolean("mipmaps", false) || entry.has("atlas") ||
+			!"clamped".equals(entry.getString("wrapU", "clamped")) ||
+			!"clamped".equals(entry.getString("wrapV", "clamped"))) {
+			return null;
+		}
+		return entry.getString("file", null);
+	}
+
+	/**
+	 * Returns the atlas region name for an image file
+	 *
+	 * This is the file path without its extension, which is the name that
+	 * AssetDirectory looks for.
+	 *
+	 * @param image	The image file (relative to the assets folder)
+	 *
+	 * @return the atlas region name for an image file
+	 */
+	private static String getRegionName(String image) {
+		int suffix = image.lastIndexOf('.');
+		return suffix == -1 ? image : image.substring(0, suffix);
+	}
+}